@@ -0,0 +1,86 @@
+package com.ricequant.rqboot.benchmark.buffer;
+
+import com.ricequant.rqboot.lang.buffer.DoubleRingBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaying a day of ticks into a window and reading the window back, per element against the bulk
+ * {@link DoubleRingBuffer#append(double[], int, int)} and {@link DoubleRingBuffer#copyLatestN}.
+ *
+ * @author chenfeng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkRingBufferBenchmark {
+
+  @Param({"2000"})
+  private int window;
+
+  @Param({"4800", "100000"})
+  private int ticks;
+
+  private double[] day;
+
+  private double[] copy;
+
+  private DoubleRingBuffer buffer;
+
+  @Setup
+  public void setUp() {
+    day = new double[ticks];
+    for (int i = 0; i < ticks; i++)
+      day[i] = 100 + Math.sin(i / 100.0);
+    copy = new double[window];
+    buffer = new DoubleRingBuffer(window);
+    buffer.append(day, 0, Math.min(ticks, window));
+  }
+
+  @Benchmark
+  public double replayPerElement() {
+    for (double price : day)
+      buffer.append(price);
+    return buffer.getLatest();
+  }
+
+  @Benchmark
+  public double replayBulk() {
+    buffer.append(day, 0, day.length);
+    return buffer.getLatest();
+  }
+
+  @Benchmark
+  public double copyWindowPerElement() {
+    for (int n = window; n >= 1; n--)
+      copy[window - n] = buffer.getLatestNthItem(n);
+    return copy[0];
+  }
+
+  @Benchmark
+  public double copyWindowBulk() {
+    buffer.copyLatestN(copy, window);
+    return copy[0];
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(BulkRingBufferBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,124 @@
+package com.ricequant.rqboot.benchmark.buffer;
+
+import com.ricequant.rqboot.lang.buffer.BatchEventConsumer;
+import com.ricequant.rqboot.lang.buffer.EventRingBuffer;
+import com.ricequant.rqboot.lang.buffer.ProducerMode;
+import com.ricequant.rqboot.lang.buffer.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer throughput into a consumer thread: {@link EventRingBuffer} with preallocated events against a
+ * {@link LinkedBlockingQueue} of freshly allocated messages. Run with {@code -prof gc} to compare garbage per event;
+ * on hosts with spare cores try {@code -p waitStrategy=BUSY_SPIN}.
+ *
+ * @author chenfeng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventRingBufferBenchmark {
+
+  public static final class Tick {
+
+    long instrument;
+
+    double price;
+  }
+
+  @Param({"SINGLE", "MULTI"})
+  private ProducerMode producerMode;
+
+  @Param({"YIELDING"})
+  private WaitStrategy waitStrategy;
+
+  private EventRingBuffer<Tick> ring;
+
+  private BatchEventConsumer<Tick> consumer;
+
+  private LinkedBlockingQueue<Tick> queue;
+
+  private Thread ringConsumerThread;
+
+  private Thread queueConsumerThread;
+
+  private volatile boolean queueRunning;
+
+  private long consumed;
+
+  private long value;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ring = new EventRingBuffer<>(1 << 14, Tick::new, producerMode, waitStrategy);
+    consumer = ring.newConsumer((event, sequence, endOfBatch) -> consumed += event.instrument);
+    ringConsumerThread = new Thread(consumer, "ring-consumer");
+    ringConsumerThread.setDaemon(true);
+    ringConsumerThread.start();
+
+    queue = new LinkedBlockingQueue<>(1 << 14);
+    queueRunning = true;
+    queueConsumerThread = new Thread(() -> {
+      try {
+        while (queueRunning) {
+          Tick tick = queue.poll(1, TimeUnit.MILLISECONDS);
+          if (tick != null)
+            consumed += tick.instrument;
+        }
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, "queue-consumer");
+    queueConsumerThread.setDaemon(true);
+    queueConsumerThread.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    consumer.halt();
+    queueRunning = false;
+    ringConsumerThread.join();
+    queueConsumerThread.join();
+  }
+
+  @Benchmark
+  public void ringPublish() {
+    ring.publishEvent((event, v) -> {
+      event.instrument = v;
+      event.price = 1.5;
+    }, ++value);
+  }
+
+  @Benchmark
+  public void queuePut() throws InterruptedException {
+    Tick tick = new Tick();
+    tick.instrument = ++value;
+    tick.price = 1.5;
+    queue.put(tick);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(EventRingBufferBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,73 @@
+package com.ricequant.rqboot.benchmark.buffer;
+
+import com.ricequant.rqboot.lang.buffer.IntRingBuffer;
+import com.ricequant.rqboot.lang.buffer.LongRingBuffer;
+import com.ricequant.rqboot.lang.buffer.ObjectRingBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appending timestamps and volumes: {@code ObjectRingBuffer<Long>} boxes every value, {@link LongRingBuffer} and
+ * {@link IntRingBuffer} do not. Run with {@code -prof gc}; the primitive appends should report 0 B/op.
+ *
+ * @author chenfeng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveRingBufferBenchmark {
+
+  private static final int WINDOW = 2000;
+
+  private ObjectRingBuffer<Long> boxed;
+
+  private LongRingBuffer longs;
+
+  private IntRingBuffer ints;
+
+  private long timestamp;
+
+  @Setup
+  public void setUp() {
+    boxed = new ObjectRingBuffer<>(WINDOW);
+    longs = new LongRingBuffer(WINDOW);
+    ints = new IntRingBuffer(WINDOW);
+    // epoch microseconds, far outside the Long cache
+    timestamp = 1_700_000_000_000_000L;
+  }
+
+  @Benchmark
+  public Long boxedAppend() {
+    return boxed.append(++timestamp);
+  }
+
+  @Benchmark
+  public long longAppend() {
+    return longs.append(++timestamp);
+  }
+
+  @Benchmark
+  public int intAppend() {
+    return ints.append((int) ++timestamp);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PrimitiveRingBufferBenchmark.class.getSimpleName()).build()).run();
+  }
+}
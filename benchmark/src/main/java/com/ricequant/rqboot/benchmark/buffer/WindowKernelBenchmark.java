@@ -0,0 +1,108 @@
+package com.ricequant.rqboot.benchmark.buffer;
+
+import com.ricequant.rqboot.lang.buffer.DoubleRingBuffer;
+import com.ricequant.rqboot.lang.buffer.WindowKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Window aggregations through {@link WindowKernels} against {@link DoubleRingBuffer#forLatestNItems} with a
+ * {@code DoubleConsumer}. The window wraps around the end of the buffer array. Forks run with the Vector API module;
+ * add {@code -jvmArgsAppend -Drqboot.vector.disabled=true} to measure the scalar kernels.
+ *
+ * @author chenfeng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class WindowKernelBenchmark {
+
+  @Param({"2000"})
+  private int window;
+
+  private DoubleRingBuffer buffer;
+
+  private double[] weights;
+
+  private double sum;
+
+  private double max;
+
+  private int weightIndex;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    buffer = new DoubleRingBuffer(window);
+    // leave the latest window split across the end of the array
+    for (int i = 0; i < window + window / 3; i++)
+      buffer.append(100 + random.nextGaussian());
+    weights = new double[window];
+    for (int i = 0; i < window; i++)
+      weights[i] = random.nextDouble();
+  }
+
+  @Benchmark
+  public double consumerSum() {
+    sum = 0;
+    buffer.forLatestNItems(window, v -> sum += v);
+    return sum;
+  }
+
+  @Benchmark
+  public double kernelSum() {
+    return WindowKernels.sumLatestN(buffer, window);
+  }
+
+  @Benchmark
+  public double consumerDot() {
+    sum = 0;
+    weightIndex = 0;
+    buffer.forLatestNItems(window, v -> sum += v * weights[weightIndex++]);
+    return sum;
+  }
+
+  @Benchmark
+  public double kernelDot() {
+    return WindowKernels.dotLatestN(buffer, weights, window);
+  }
+
+  @Benchmark
+  public double consumerMax() {
+    max = Double.NEGATIVE_INFINITY;
+    buffer.forLatestNItems(window, v -> max = Math.max(max, v));
+    return max;
+  }
+
+  @Benchmark
+  public double kernelMax() {
+    return WindowKernels.maxLatestN(buffer, window);
+  }
+
+  @Benchmark
+  public int kernelCountAbove() {
+    return WindowKernels.countLatestNAbove(buffer, window, 100.5);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(WindowKernelBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,145 @@
+package com.ricequant.rqboot.benchmark.collection;
+
+import com.ricequant.rqboot.lang.collection.LongArrayList;
+import com.ricequant.rqboot.lang.collection.LongDoubleHashMap;
+import com.ricequant.rqboot.lang.collection.LongObjectHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick work on {@code keyCount} instrument ids: point lookups, accumulating positions and refilling a list that is
+ * cleared every tick, each on the boxed JDK collection and on its primitive counterpart. Run with {@code -prof gc} to
+ * compare allocation.
+ *
+ * @author chenfeng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveCollectionsBenchmark {
+
+  @Param({"1000", "100000"})
+  private int keyCount;
+
+  private long[] keys;
+
+  private Map<Long, Double> boxedPrices;
+
+  private LongDoubleHashMap primitivePrices;
+
+  private Map<Long, Object> boxedObjects;
+
+  private LongObjectHashMap<Object> primitiveObjects;
+
+  private List<Long> boxedList;
+
+  private LongArrayList primitiveList;
+
+  private int cursor;
+
+  @Setup
+  public void setUp() {
+    keys = new long[keyCount];
+    boxedPrices = new HashMap<>();
+    primitivePrices = new LongDoubleHashMap(keyCount);
+    boxedObjects = new HashMap<>();
+    primitiveObjects = new LongObjectHashMap<>(keyCount);
+    for (int i = 0; i < keyCount; i++) {
+      keys[i] = 1_000_000L + i * 7919L;
+      boxedPrices.put(keys[i], (double) i);
+      primitivePrices.put(keys[i], i);
+      Object value = new Object();
+      boxedObjects.put(keys[i], value);
+      primitiveObjects.put(keys[i], value);
+    }
+    boxedList = new ArrayList<>(keyCount);
+    primitiveList = new LongArrayList(keyCount);
+  }
+
+  @Benchmark
+  public double boxedDoubleGet() {
+    return boxedPrices.get(nextKey());
+  }
+
+  @Benchmark
+  public double primitiveDoubleGet() {
+    return primitivePrices.get(nextKey());
+  }
+
+  @Benchmark
+  public double boxedDoubleAccumulate() {
+    return boxedPrices.merge(nextKey(), 1.0, Double::sum);
+  }
+
+  @Benchmark
+  public double primitiveDoubleAccumulate() {
+    return primitivePrices.addTo(nextKey(), 1.0);
+  }
+
+  @Benchmark
+  public Object boxedObjectGet() {
+    return boxedObjects.get(nextKey());
+  }
+
+  @Benchmark
+  public Object primitiveObjectGet() {
+    return primitiveObjects.get(nextKey());
+  }
+
+  @Benchmark
+  public long boxedListRefill() {
+    boxedList.clear();
+    for (long key : keys)
+      boxedList.add(key);
+
+    long sum = 0;
+    for (long value : boxedList)
+      sum += value;
+    return sum;
+  }
+
+  @Benchmark
+  public long primitiveListRefill() {
+    primitiveList.clear();
+    for (long key : keys)
+      primitiveList.add(key);
+
+    long sum = 0;
+    for (int i = 0; i < primitiveList.size(); i++)
+      sum += primitiveList.get(i);
+    return sum;
+  }
+
+  private long nextKey() {
+    int i = cursor + 1;
+    if (i == keys.length)
+      i = 0;
+    cursor = i;
+    return keys[i];
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PrimitiveCollectionsBenchmark.class.getSimpleName()).build()).run();
+  }
+}
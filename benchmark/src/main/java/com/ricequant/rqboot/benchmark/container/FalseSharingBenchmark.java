@@ -0,0 +1,123 @@
+package com.ricequant.rqboot.benchmark.container;
+
+import com.ricequant.rqboot.lang.container.PaddedAtomicLong;
+import com.ricequant.rqboot.lang.container.SingleWriterSequence;
+import com.ricequant.rqboot.lang.container.StripedLongCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Two threads each updating their own sequence. In the {@code adjacent} groups the two values share a cache line, so
+ * every write invalidates the other core's copy; in the {@code padded} groups they do not. The {@code shared} benchmarks
+ * compare one contended {@link AtomicLong} with a {@link StripedLongCounter} under four writers.
+ *
+ * @author chenfeng
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FalseSharingBenchmark {
+
+  @State(Scope.Group)
+  public static class Adjacent {
+
+    final AtomicLongArray values = new AtomicLongArray(2);
+  }
+
+  @State(Scope.Group)
+  public static class Padded {
+
+    final PaddedAtomicLong first = new PaddedAtomicLong();
+
+    final PaddedAtomicLong second = new PaddedAtomicLong();
+
+    final SingleWriterSequence firstCursor = new SingleWriterSequence();
+
+    final SingleWriterSequence secondCursor = new SingleWriterSequence();
+  }
+
+  @State(Scope.Benchmark)
+  public static class Shared {
+
+    final AtomicLong atomic = new AtomicLong();
+
+    final StripedLongCounter striped = new StripedLongCounter();
+  }
+
+  @Benchmark
+  @Group("adjacent")
+  @GroupThreads(1)
+  public long adjacentFirst(Adjacent state) {
+    return state.values.incrementAndGet(0);
+  }
+
+  @Benchmark
+  @Group("adjacent")
+  @GroupThreads(1)
+  public long adjacentSecond(Adjacent state) {
+    return state.values.incrementAndGet(1);
+  }
+
+  @Benchmark
+  @Group("padded")
+  @GroupThreads(1)
+  public long paddedFirst(Padded state) {
+    return state.first.incrementAndGet();
+  }
+
+  @Benchmark
+  @Group("padded")
+  @GroupThreads(1)
+  public long paddedSecond(Padded state) {
+    return state.second.incrementAndGet();
+  }
+
+  @Benchmark
+  @Group("paddedSingleWriter")
+  @GroupThreads(1)
+  public long paddedSingleWriterFirst(Padded state) {
+    return state.firstCursor.increment();
+  }
+
+  @Benchmark
+  @Group("paddedSingleWriter")
+  @GroupThreads(1)
+  public long paddedSingleWriterSecond(Padded state) {
+    return state.secondCursor.increment();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long sharedAtomic(Shared state) {
+    return state.atomic.incrementAndGet();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void sharedStriped(Shared state) {
+    state.striped.increment();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(FalseSharingBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,114 @@
+package com.ricequant.rqboot.benchmark.datetime;
+
+import com.ricequant.rqboot.lang.DateTimeCodec;
+import com.ricequant.rqboot.lang.DateTimeHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The String based parse and format methods of {@link DateTimeHelper} against {@link DateTimeCodec}, which reads and
+ * writes the same text in place.
+ *
+ * @author kain
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeCodecBenchmark {
+
+  private String text;
+
+  private byte[] bytes;
+
+  private StringBuilder builder;
+
+  private byte[] out;
+
+  private int date;
+
+  private int time;
+
+  @Setup
+  public void setUp() {
+    text = "2023-10-15 14:30:20";
+    bytes = text.getBytes(StandardCharsets.US_ASCII);
+    builder = new StringBuilder(64);
+    out = new byte[64];
+    date = 20231015;
+    time = 143020;
+  }
+
+  @Benchmark
+  public long helperParseTimestamp() {
+    return DateTimeHelper.toRQTimestamp(text);
+  }
+
+  @Benchmark
+  public long codecParseTimestamp() {
+    return DateTimeCodec.parseRQTimestamp(text, 0);
+  }
+
+  @Benchmark
+  public long codecParseTimestampBytes() {
+    return DateTimeCodec.parseRQTimestamp(bytes, 0);
+  }
+
+  @Benchmark
+  public String helperFormatTime() {
+    time = time % 235959 + 1;
+    return DateTimeHelper.intTimeToString(time);
+  }
+
+  @Benchmark
+  public StringBuilder codecFormatTime() {
+    time = time % 235959 + 1;
+    builder.setLength(0);
+    return DateTimeCodec.formatIntTime(time, builder);
+  }
+
+  @Benchmark
+  public int codecFormatTimeBytes() {
+    time = time % 235959 + 1;
+    return DateTimeCodec.formatIntTime(time, out, 0);
+  }
+
+  @Benchmark
+  public String helperFormatDateTime() {
+    time = time % 235959 + 1;
+    return DateTimeHelper.toPythonDateTime(date, time);
+  }
+
+  @Benchmark
+  public StringBuilder codecFormatDateTime() {
+    time = time % 235959 + 1;
+    builder.setLength(0);
+    return DateTimeCodec.formatPythonDateTime(date, time, builder);
+  }
+
+  @Benchmark
+  public int codecFormatDateTimeBytes() {
+    time = time % 235959 + 1;
+    return DateTimeCodec.formatPythonDateTime(date, time, out, 0);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(DateTimeCodecBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,105 @@
+package com.ricequant.rqboot.benchmark.datetime;
+
+import com.ricequant.rqboot.lang.DateTimeBatchHelper;
+import com.ricequant.rqboot.lang.DateTimeHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RQ timestamp conversions through {@link DateTimeHelper}, which now uses arithmetic and a zone offset table, against
+ * the thread-local {@link Calendar} it used before, and a column of a trading day's ticks converted one call at a time
+ * against {@link DateTimeBatchHelper}.
+ *
+ * @author kain
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeConversionBenchmark {
+
+  private Calendar calendar;
+
+  private long micros;
+
+  private long[] column;
+
+  private long[] readable;
+
+  @Setup
+  public void setUp() {
+    calendar = Calendar.getInstance(TimeZone.getTimeZone("Asia/Shanghai"));
+    micros = 1_697_351_420_500_000L;
+    column = new long[4096];
+    readable = new long[column.length];
+    for (int i = 0; i < column.length; i++)
+      column[i] = micros + i * 3_000_000L;
+  }
+
+  @Benchmark
+  public long calendarToReadable() {
+    micros += 1_000_003;
+    calendar.setTimeInMillis(micros / 1000);
+    return calendar.get(Calendar.YEAR) * 10000000000000L + (1 + calendar.get(Calendar.MONTH)) * 100000000000L
+            + calendar.get(Calendar.DAY_OF_MONTH) * 1000000000L + calendar.get(Calendar.HOUR_OF_DAY) * 10000000L
+            + calendar.get(Calendar.MINUTE) * 100000 + calendar.get(Calendar.SECOND) * 1000
+            + calendar.get(Calendar.MILLISECOND);
+  }
+
+  @Benchmark
+  public long helperToReadable() {
+    micros += 1_000_003;
+    return DateTimeHelper.toReadableTimestamp(micros);
+  }
+
+  @Benchmark
+  public long calendarToEpoch() {
+    micros += 1_000_003;
+    long readable = 20231015143020500L + micros % 60 * 1000;
+    calendar.clear();
+    calendar.set((int) (readable / 10000000000000L), (int) (readable % 10000000000000L / 100000000000L) - 1,
+            (int) (readable % 100000000000L / 1000000000L), (int) (readable % 1000000000L / 10000000L),
+            (int) (readable % 10000000L / 100000L), (int) (readable % 100000L / 1000L));
+    return (calendar.getTimeInMillis() + readable % 1000) * 1000;
+  }
+
+  @Benchmark
+  public long helperToEpoch() {
+    micros += 1_000_003;
+    return DateTimeHelper.toRQEpochTimestamp(20231015143020500L + micros % 60 * 1000);
+  }
+
+  @Benchmark
+  public long[] columnPerCall() {
+    for (int i = 0; i < column.length; i++)
+      readable[i] = DateTimeHelper.toReadableTimestamp(column[i]);
+    return readable;
+  }
+
+  @Benchmark
+  public long[] columnBatch() {
+    DateTimeBatchHelper.toReadableTimestamps(column, readable, 0, column.length);
+    return readable;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(DateTimeConversionBenchmark.class.getSimpleName()).build()).run();
+  }
+}
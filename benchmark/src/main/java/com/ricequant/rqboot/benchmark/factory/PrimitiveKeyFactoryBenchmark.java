@@ -0,0 +1,81 @@
+package com.ricequant.rqboot.benchmark.factory;
+
+import com.ricequant.rqboot.lang.factory.GetOrCreateFactory;
+import com.ricequant.rqboot.lang.factory.LongGetOrCreateFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit-path lookups of numeric instrument ids: boxed {@link GetOrCreateFactory} against {@link LongGetOrCreateFactory}.
+ * Run with {@code -prof gc} to compare allocation per lookup.
+ *
+ * @author chenfeng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveKeyFactoryBenchmark {
+
+  @Param({"1000", "100000"})
+  private int keyCount;
+
+  private long[] keys;
+
+  private GetOrCreateFactory<Long, Object> boxed;
+
+  private LongGetOrCreateFactory<Object> primitive;
+
+  private int cursor;
+
+  @Setup
+  public void setUp() {
+    keys = new long[keyCount];
+    boxed = new GetOrCreateFactory<>(k -> new Object());
+    primitive = new LongGetOrCreateFactory<>(k -> new Object());
+    for (int i = 0; i < keyCount; i++) {
+      // instrument ids are sparse; keep them outside the Long cache
+      keys[i] = 1_000_000L + i * 7919L;
+      boxed.getOrCreate(keys[i]);
+      primitive.getOrCreate(keys[i]);
+    }
+  }
+
+  @Benchmark
+  public Object boxedGetOrCreate() {
+    return boxed.getOrCreate(nextKey());
+  }
+
+  @Benchmark
+  public Object primitiveGetOrCreate() {
+    return primitive.getOrCreate(nextKey());
+  }
+
+  private long nextKey() {
+    int i = cursor + 1;
+    if (i == keys.length)
+      i = 0;
+    cursor = i;
+    return keys[i];
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PrimitiveKeyFactoryBenchmark.class.getSimpleName()).build()).run();
+  }
+}
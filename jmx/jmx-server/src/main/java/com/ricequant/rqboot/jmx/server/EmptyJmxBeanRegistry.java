@@ -17,6 +17,12 @@ public class EmptyJmxBeanRegistry implements IJmxBeanRegistry {
     return object.getClass().getSimpleName();
   }
 
+  @Override
+  public String register(Object object, String name) throws JmxServerException {
+    register(object);
+    return object.getClass().getSimpleName() + "," + name;
+  }
+
   @Override
   public void deregister(String name) throws JmxServerException {
 
@@ -0,0 +1,89 @@
+package com.ricequant.rqboot.jmx.server;
+
+import com.ricequant.rqboot.jmx.shared_resource.annotations.JmxBean;
+import com.ricequant.rqboot.jmx.shared_resource.annotations.JmxMethod;
+import com.ricequant.rqboot.lang.factory.AbstractGetOrCreateFactory;
+import com.ricequant.rqboot.lang.factory.FactoryStats;
+
+/**
+ * Exposes the {@link FactoryStats} of a get-or-create factory as a jmx bean.
+ *
+ * @author chenfeng
+ */
+@JmxBean("Statistics of a get-or-create factory")
+public class FactoryStatsBean {
+
+  private final AbstractGetOrCreateFactory<?, ?> iFactory;
+
+  private final FactoryStats iStats;
+
+  public FactoryStatsBean(AbstractGetOrCreateFactory<?, ?> factory) {
+    iFactory = factory;
+    iStats = factory.enableStats();
+  }
+
+  /**
+   * Enables statistics on the factory and registers them under the given name.
+   *
+   * @return the object name the bean was registered with
+   */
+  public static String register(IJmxBeanRegistry registry, String name, AbstractGetOrCreateFactory<?, ?> factory)
+          throws JmxServerException {
+    return registry.register(new FactoryStatsBean(factory), name);
+  }
+
+  @JmxMethod("number of entries")
+  public int getSize() {
+    return iFactory.size();
+  }
+
+  @JmxMethod("getOrCreate calls answered without running the creator")
+  public long getHitCount() {
+    return iStats.hitCount();
+  }
+
+  @JmxMethod("getOrCreate calls that ran the creator")
+  public long getMissCount() {
+    return iStats.missCount();
+  }
+
+  @JmxMethod("creator runs that threw, included in the misses")
+  public long getFailureCount() {
+    return iStats.failureCount();
+  }
+
+  @JmxMethod("getOrCreate calls that waited for a creator run started by another call")
+  public long getCoalescedCount() {
+    return iStats.coalescedCount();
+  }
+
+  @JmxMethod("hits / (hits + misses + coalesced)")
+  public double getHitRatio() {
+    return iStats.hitRatio();
+  }
+
+  @JmxMethod("entries dropped by eviction or expiry")
+  public long getEvictionCount() {
+    return iStats.evictionCount();
+  }
+
+  @JmxMethod("average creator time in microseconds")
+  public double getAverageCreationMicros() {
+    return iStats.averageCreationNanos() / 1000.0;
+  }
+
+  @JmxMethod("median creator time in microseconds, accurate to a factor of two")
+  public double getCreationMicrosP50() {
+    return iStats.creationNanosQuantile(0.5) / 1000.0;
+  }
+
+  @JmxMethod("99th percentile creator time in microseconds, accurate to a factor of two")
+  public double getCreationMicrosP99() {
+    return iStats.creationNanosQuantile(0.99) / 1000.0;
+  }
+
+  @JmxMethod("reset all counters")
+  public void resetStats() {
+    iStats.reset();
+  }
+}
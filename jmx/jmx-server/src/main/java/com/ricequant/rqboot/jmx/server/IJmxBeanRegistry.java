@@ -10,6 +10,14 @@ public interface IJmxBeanRegistry {
 
   String register(Object object) throws JmxServerException;
 
+  /**
+   * Registers a bean under its type and the given name, so several instances of the same class can be exposed side by
+   * side.
+   *
+   * @return the object name the bean was registered with
+   */
+  String register(Object object, String name) throws JmxServerException;
+
   void deregister(String name) throws JmxServerException;
 
   boolean isRegistered(String name) throws JmxServerException;
@@ -109,6 +109,26 @@ public class JmxBeanRegistry implements IJmxBeanRegistry {
     }
 
     String name = object.getClass().getPackage().getName() + ":type=" + object.getClass().getSimpleName();
+    return registerBean(object, name);
+  }
+
+  @Override
+  public String register(Object object, String name) throws JmxServerException {
+
+    if (object == null) {
+      throw new IllegalArgumentException("No object specified.");
+    }
+
+    if (name == null || "".equals(name)) {
+      throw new IllegalArgumentException("No name specified.");
+    }
+
+    String objectName = object.getClass().getPackage().getName() + ":type=" + object.getClass().getSimpleName()
+            + ",name=" + ObjectName.quote(name);
+    return registerBean(object, objectName);
+  }
+
+  private String registerBean(Object object, String name) throws JmxServerException {
     IBeanCommandRegistry registry = iCommandRegistry.byBeanName(name);
     DynamicMBean mBean = MBeanFactory.createBean(object, registry);
     try {
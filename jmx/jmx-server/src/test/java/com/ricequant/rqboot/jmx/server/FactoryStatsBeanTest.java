@@ -0,0 +1,82 @@
+package com.ricequant.rqboot.jmx.server;
+
+import com.ricequant.rqboot.lang.factory.ConcurrencyMode;
+import com.ricequant.rqboot.lang.factory.GetOrCreateFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FactoryStatsBeanTest {
+
+  private JmxBeanRegistry iRegistry;
+
+  private String iProcessName;
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (iRegistry != null) {
+      iRegistry.withdrawService();
+    }
+    // the registry writes its url next to other temp files, named after the process
+    if (iProcessName != null) {
+      Files.deleteIfExists(Path.of(System.getProperty("java.io.tmpdir"), iProcessName + ".jmx"));
+    }
+  }
+
+  @Test
+  void testRegisterExposesStatsPerName() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    // unique per run, so repeated or parallel runs neither share the url file nor the bean names
+    String suffix = ProcessHandle.current().pid() + "-" + port;
+    iProcessName = "factory-stats-test-" + suffix;
+    iRegistry = new JmxBeanRegistry(new InetSocketAddress("localhost", port), iProcessName);
+
+    GetOrCreateFactory<Integer, String> quotes = new GetOrCreateFactory<>(k -> {
+      if (k < 0)
+        throw new IllegalArgumentException("negative key");
+      return "q" + k;
+    }, ConcurrencyMode.STRIPED);
+    GetOrCreateFactory<Integer, String> orders = new GetOrCreateFactory<>(k -> "o" + k);
+
+    String quotesName = FactoryStatsBean.register(iRegistry, "quotes-" + suffix, quotes);
+    String ordersName = FactoryStatsBean.register(iRegistry, "orders-" + suffix, orders);
+    assertNotEquals(quotesName, ordersName);
+    assertTrue(iRegistry.isRegistered(quotesName));
+    assertTrue(iRegistry.isRegistered(ordersName));
+    assertNotNull(quotes.stats());
+
+    quotes.getOrCreate(1);
+    quotes.getOrCreate(1);
+    assertThrows(IllegalArgumentException.class, () -> quotes.getOrCreate(-1));
+    orders.getOrCreate(7);
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName quotesObject = new ObjectName(quotesName);
+    assertEquals(1L, server.getAttribute(quotesObject, "hitCount"));
+    assertEquals(2L, server.getAttribute(quotesObject, "missCount"));
+    assertEquals(1L, server.getAttribute(quotesObject, "failureCount"));
+    assertEquals(1, server.getAttribute(quotesObject, "size"));
+    assertEquals(1L, server.getAttribute(new ObjectName(ordersName), "missCount"));
+
+    server.invoke(quotesObject, "resetStats", new Object[0], new String[0]);
+    assertEquals(0L, server.getAttribute(quotesObject, "missCount"));
+
+    iRegistry.deregister(quotesName);
+    assertFalse(iRegistry.isRegistered(quotesName));
+    iRegistry.deregister(ordersName);
+    assertTrue(Files.exists(Path.of(System.getProperty("java.io.tmpdir"), iProcessName + ".jmx")));
+  }
+}
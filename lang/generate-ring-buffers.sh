@@ -0,0 +1,19 @@
+#!/bin/sh
+# Regenerates LongRingBuffer and IntRingBuffer from DoubleRingBuffer, the template for all primitive ring buffers.
+# Members between the "double only" comment lines serve WindowKernels and are left out of the generated classes.
+# Edit DoubleRingBuffer, run this script from the lang directory and commit the generated files with it.
+set -e
+
+dir=src/main/java/com/ricequant/rqboot/lang/buffer
+
+for spec in Long:long Int:int; do
+  name=${spec%%:*}
+  type=${spec##*:}
+  sed -e "/^  \/\/ double only: the generated/,/^  \/\/ double only: end/{/end/N;d}" \
+      -e "s/DoubleRingBuffer/${name}RingBuffer/g" \
+      -e "s/DoubleConsumer/${name}Consumer/g" \
+      -e "s/\bdouble\b/${type}/g" \
+      -e "s/0\.0\b/0/g" \
+      -e "s/^ \* .* are generated from this class .*$/ * Generated from {@link DoubleRingBuffer} by generate-ring-buffers.sh, do not edit./" \
+      "$dir/DoubleRingBuffer.java" > "$dir/${name}RingBuffer.java"
+done
@@ -0,0 +1,244 @@
+package com.ricequant.rqboot.lang;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conversions between epoch milliseconds and civil date and time in one time zone, by plain arithmetic: Howard
+ * Hinnant's days-from-civil algorithm for the proleptic Gregorian calendar and a table of the zone's UTC offset
+ * transitions, computed once per zone. No {@link java.util.Calendar} is involved and nothing is allocated, so the
+ * conversions are safe to call per tick from any thread.
+ * <p>
+ * Results are identical to a lenient {@link java.util.Calendar} in the same zone for instants in
+ * [{@link #MIN_EPOCH_MILLIS}, {@link #MAX_EPOCH_MILLIS}), i.e. the years 1900 to 2199; check with
+ * {@link #inRange(long)}. Outside that range the offsets at the ends of the table are used. Local times in a gap or an
+ * overlap of the zone's offsets resolve like {@link java.util.Calendar}: to the offset in effect before the gap, and to
+ * the later instant of the overlap.
+ *
+ * @author kain
+ */
+public final class CivilCalendar {
+
+  public static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  public static final long MIN_EPOCH_MILLIS = daysFromCivil(1900, 1, 1) * MILLIS_PER_DAY;
+
+  public static final long MAX_EPOCH_MILLIS = daysFromCivil(2200, 1, 1) * MILLIS_PER_DAY;
+
+  private static final ConcurrentHashMap<ZoneId, CivilCalendar> cCalendars = new ConcurrentHashMap<>();
+
+  private static final CivilCalendar cShanghai = of(ZoneId.of("Asia/Shanghai"));
+
+  private final ZoneId iZone;
+
+  // epoch millis of each offset transition in range
+  private final long[] iTransitions;
+
+  // local wall millis at each transition, measured with the offset after it
+  private final long[] iWallTransitions;
+
+  // offset in millis before the first transition, then after each transition
+  private final int[] iOffsets;
+
+  private CivilCalendar(ZoneId zone) {
+    iZone = zone;
+    ZoneRules rules = zone.getRules();
+
+    long[] transitions = new long[16];
+    int[] offsets = new int[17];
+    offsets[0] = rules.getOffset(Instant.ofEpochMilli(MIN_EPOCH_MILLIS)).getTotalSeconds() * 1000;
+    int count = 0;
+    ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(MIN_EPOCH_MILLIS));
+    while (transition != null && transition.toEpochSecond() * 1000 < MAX_EPOCH_MILLIS) {
+      if (count == transitions.length) {
+        transitions = Arrays.copyOf(transitions, count * 2);
+        offsets = Arrays.copyOf(offsets, count * 2 + 1);
+      }
+      transitions[count] = transition.toEpochSecond() * 1000;
+      offsets[count + 1] = transition.getOffsetAfter().getTotalSeconds() * 1000;
+      count++;
+      transition = rules.nextTransition(transition.getInstant());
+    }
+
+    iTransitions = Arrays.copyOf(transitions, count);
+    iOffsets = Arrays.copyOf(offsets, count + 1);
+    iWallTransitions = new long[count];
+    for (int i = 0; i < count; i++)
+      iWallTransitions[i] = iTransitions[i] + iOffsets[i + 1];
+  }
+
+  /**
+   * Returns the calendar of {@code zone}, building its transition table on first use.
+   */
+  public static CivilCalendar of(ZoneId zone) {
+    return cCalendars.computeIfAbsent(zone, CivilCalendar::new);
+  }
+
+  /**
+   * Returns the calendar of Asia/Shanghai, the zone of {@link DateTimeHelper}.
+   */
+  public static CivilCalendar shanghai() {
+    return cShanghai;
+  }
+
+  /**
+   * Returns true if results for {@code epochMillis} are exact, see the class documentation.
+   */
+  public static boolean inRange(long epochMillis) {
+    return epochMillis >= MIN_EPOCH_MILLIS && epochMillis < MAX_EPOCH_MILLIS;
+  }
+
+  public ZoneId zone() {
+    return iZone;
+  }
+
+  // ==================== Civil Arithmetic ====================
+
+  /**
+   * Counts days from 1970-01-01 to a date of the proleptic Gregorian calendar.
+   *
+   * @param year  year, e.g. 2023
+   * @param month month, 1-12
+   * @param day   day of month, 1-31
+   * @return days since 1970-01-01, negative before it
+   */
+  public static long daysFromCivil(int year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  /**
+   * Converts days since 1970-01-01 to a date of the proleptic Gregorian calendar.
+   *
+   * @param epochDay days since 1970-01-01, negative before it
+   * @return date in YYYYMMDD format (e.g., 20231015)
+   */
+  public static int civilFromDays(long epochDay) {
+    long z = epochDay + 719468;
+    long era = Math.floorDiv(z, 146097);
+    int dayOfEra = (int) (z - era * 146097);
+    int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    int mp = (5 * dayOfYear + 2) / 153;
+    int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+    int month = mp < 10 ? mp + 3 : mp - 9;
+    int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+    return year * 10000 + month * 100 + day;
+  }
+
+  /**
+   * Counts local wall milliseconds since 1970-01-01 00:00 for the given fields. Like a lenient
+   * {@link java.util.Calendar}, fields out of their range roll over into the next larger field, e.g. month 13 is
+   * January of the following year.
+   */
+  public static long toLocalMillis(int year, int month, int day, int hour, int minute, int second, int milli) {
+    int normalizedYear = year + Math.floorDiv(month - 1, 12);
+    int normalizedMonth = Math.floorMod(month - 1, 12) + 1;
+    long days = daysFromCivil(normalizedYear, normalizedMonth, 1) + day - 1;
+    return days * MILLIS_PER_DAY + hour * 3_600_000L + minute * 60_000L + second * 1000L + milli;
+  }
+
+  // ==================== Zone Conversions ====================
+
+  /**
+   * Returns the offset from UTC in effect at an instant.
+   *
+   * @param epochMillis milliseconds since Unix epoch
+   * @return the offset in milliseconds
+   */
+  public int offsetMillis(long epochMillis) {
+    return iOffsets[indexAtOrBefore(iTransitions, epochMillis) + 1];
+  }
+
+  /**
+   * Converts local wall milliseconds, see {@link #toLocalMillis}, to milliseconds since Unix epoch.
+   */
+  public long toEpochMillis(long localMillis) {
+    return localMillis - iOffsets[indexAtOrBefore(iWallTransitions, localMillis) + 1];
+  }
+
+  /**
+   * Converts date and time fields in this zone to milliseconds since Unix epoch, see {@link #toLocalMillis}.
+   */
+  public long toEpochMillis(int year, int month, int day, int hour, int minute, int second, int milli) {
+    return toEpochMillis(toLocalMillis(year, month, day, hour, minute, second, milli));
+  }
+
+  /**
+   * @param epochMillis milliseconds since Unix epoch
+   * @return local date in YYYYMMDD format (e.g., 20231015)
+   */
+  public int toIntDate(long epochMillis) {
+    return civilFromDays(Math.floorDiv(epochMillis + offsetMillis(epochMillis), MILLIS_PER_DAY));
+  }
+
+  /**
+   * @param epochMillis milliseconds since Unix epoch
+   * @return local time in HHMMSS format (e.g., 143020)
+   */
+  public int toIntTime(long epochMillis) {
+    int secondOfDay = (int) (Math.floorMod(epochMillis + offsetMillis(epochMillis), MILLIS_PER_DAY) / 1000);
+    return secondOfDay / 3600 * 10000 + secondOfDay / 60 % 60 * 100 + secondOfDay % 60;
+  }
+
+  /**
+   * @param epochMillis milliseconds since Unix epoch
+   * @return local date and time in YYYYMMDDHHMMSSmmm format (e.g., 20231015143020500)
+   */
+  public long toReadableTimestamp(long epochMillis) {
+    long local = epochMillis + offsetMillis(epochMillis);
+    int date = civilFromDays(Math.floorDiv(local, MILLIS_PER_DAY));
+    return date * 1_000_000_000L + readableTime((int) Math.floorMod(local, MILLIS_PER_DAY));
+  }
+
+  /**
+   * @return the time of day in HHMMSSmmm format
+   */
+  static int readableTime(int milliOfDay) {
+    int secondOfDay = milliOfDay / 1000;
+    return secondOfDay / 3600 * 10_000_000 + secondOfDay / 60 % 60 * 100_000 + secondOfDay % 60 * 1000
+            + milliOfDay % 1000;
+  }
+
+  /**
+   * @return the start of the period of constant offset containing {@code epochMillis}, or {@link Long#MIN_VALUE}
+   */
+  long periodStart(long epochMillis) {
+    int index = indexAtOrBefore(iTransitions, epochMillis);
+    return index < 0 ? Long.MIN_VALUE : iTransitions[index];
+  }
+
+  /**
+   * @return the end, exclusive, of the period of constant offset containing {@code epochMillis}, or
+   * {@link Long#MAX_VALUE}
+   */
+  long periodEnd(long epochMillis) {
+    int index = indexAtOrBefore(iTransitions, epochMillis) + 1;
+    return index < iTransitions.length ? iTransitions[index] : Long.MAX_VALUE;
+  }
+
+  private static int indexAtOrBefore(long[] sorted, long value) {
+    int high = sorted.length - 1;
+    // most conversions are of recent instants, after the last transition of zones without daylight saving
+    if (high < 0 || value >= sorted[high])
+      return high;
+
+    int low = 0;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] <= value)
+        low = mid + 1;
+      else
+        high = mid - 1;
+    }
+    return high;
+  }
+}
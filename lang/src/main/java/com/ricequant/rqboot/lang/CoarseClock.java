@@ -0,0 +1,118 @@
+package com.ricequant.rqboot.lang;
+
+import com.ricequant.rqboot.lang.container.SingleWriterSequence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The current time, date and time of day, refreshed by one background ticker thread so that hot loops read them for
+ * the cost of a load instead of a clock call or a calendar computation. Values lag real time by up to one tick.
+ * <p>
+ * The ticker is a daemon thread; {@link #close()} stops it. The {@link #shared()} clock runs for the life of the
+ * process: it is handed out as an {@link ICoarseClock}, and closing it anyway does nothing. Reads are thread safe, take
+ * no lock and allocate nothing.
+ *
+ * @author kain
+ */
+public final class CoarseClock implements ICoarseClock, AutoCloseable {
+
+  public static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final HighResolutionClock iClock;
+
+  private final CivilCalendar iCalendar;
+
+  private final long iTickNanos;
+
+  private final SingleWriterSequence iMicros = new SingleWriterSequence();
+
+  // date in the high and time in the low 32 bits, so both are read from the same tick
+  private final SingleWriterSequence iDateTime = new SingleWriterSequence();
+
+  private final Thread iTicker;
+
+  private final boolean iCloseable;
+
+  private volatile boolean iRunning = true;
+
+  /**
+   * Creates a clock and starts its ticker.
+   *
+   * @param clock     the source of the current time
+   * @param calendar  the zone of the cached date and time of day
+   * @param tickNanos how often to refresh, must be positive
+   */
+  public CoarseClock(HighResolutionClock clock, CivilCalendar calendar, long tickNanos) {
+    this(clock, calendar, tickNanos, true);
+  }
+
+  private CoarseClock(HighResolutionClock clock, CivilCalendar calendar, long tickNanos, boolean closeable) {
+    if (tickNanos <= 0) {
+      throw new IllegalArgumentException("Tick must be positive, got: " + tickNanos);
+    }
+    iClock = clock;
+    iCalendar = calendar;
+    iTickNanos = tickNanos;
+    iCloseable = closeable;
+    tick();
+    iTicker = Thread.ofPlatform().daemon().name("coarse-clock-" + calendar.zone()).start(this::run);
+  }
+
+  /**
+   * Returns the clock shared by {@link DateTimeHelper}: Asia/Shanghai, ticking every millisecond, started on first
+   * use. It cannot be closed.
+   */
+  public static ICoarseClock shared() {
+    return SharedHolder.SHARED;
+  }
+
+  @Override
+  public long micros() {
+    return iMicros.get();
+  }
+
+  @Override
+  public int dateInt() {
+    return (int) (iDateTime.get() >>> 32);
+  }
+
+  @Override
+  public int timeInt() {
+    return (int) iDateTime.get();
+  }
+
+  /**
+   * Stops the ticker; the values keep those of the last tick. Does nothing on the {@link #shared()} clock, which other
+   * code in the process relies on.
+   */
+  @Override
+  public void close() {
+    if (!iCloseable)
+      return;
+
+    iRunning = false;
+    LockSupport.unpark(iTicker);
+  }
+
+  private void run() {
+    while (iRunning) {
+      LockSupport.parkNanos(iTickNanos);
+      tick();
+    }
+  }
+
+  private void tick() {
+    long micros = iClock.currentMicros();
+    long millis = Math.floorDiv(micros, 1000);
+    if (CivilCalendar.inRange(millis))
+      iDateTime.set((long) iCalendar.toIntDate(millis) << 32 | iCalendar.toIntTime(millis));
+    iMicros.set(micros);
+  }
+
+  private static final class SharedHolder {
+
+    private static final CoarseClock SHARED = new CoarseClock(HighResolutionClock.shared(), CivilCalendar.shanghai(),
+            DEFAULT_TICK_NANOS, false);
+  }
+}
@@ -0,0 +1,239 @@
+package com.ricequant.rqboot.lang;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Column-at-a-time versions of {@link DateTimeHelper} conversions, for loaders that convert millions of timestamps.
+ * Each method converts {@code len} elements starting at {@code off} of the source array into the same positions of the
+ * destination array, with results identical to calling the matching {@link DateTimeHelper} method per element.
+ * <p>
+ * Conversions from RQ timestamps remember the Asia/Shanghai day and UTC offset of the previous element, so timestamps
+ * of the same day, which is the common case in market data, skip the date arithmetic and offset lookup entirely.
+ * <p>
+ * The overloads taking a {@link ForkJoinPool} split very large ranges into chunks of at least
+ * {@value #PARALLEL_CHUNK} elements and convert them in parallel; smaller ranges are converted on the calling thread.
+ *
+ * @author kain
+ */
+public class DateTimeBatchHelper {
+
+  public static final int PARALLEL_CHUNK = 1 << 16;
+
+  private DateTimeBatchHelper() {
+
+  }
+
+  // ==================== RQ Timestamp Columns ====================
+
+  /**
+   * Converts RQ timestamps to readable timestamps, see {@link DateTimeHelper#toReadableTimestamp(long)}.
+   *
+   * @param src RQ timestamps in microseconds since Unix epoch
+   * @param dst receives readable timestamps in YYYYMMDDHHMMSSmmm format
+   * @throws IndexOutOfBoundsException if the range is outside either array
+   */
+  public static void toReadableTimestamps(long[] src, long[] dst, int off, int len) {
+    checkRange(off, len, src.length, dst.length);
+    new DayCache().toReadable(src, dst, off, off + len);
+  }
+
+  /**
+   * Parallel form of {@link #toReadableTimestamps(long[], long[], int, int)}.
+   */
+  public static void toReadableTimestamps(long[] src, long[] dst, int off, int len, ForkJoinPool pool) {
+    checkRange(off, len, src.length, dst.length);
+    invoke(pool, off, len, (from, to) -> new DayCache().toReadable(src, dst, from, to));
+  }
+
+  /**
+   * Extracts dates from RQ timestamps, see {@link DateTimeHelper#getIntDateFromRQTimestamp(long)}.
+   *
+   * @param src   RQ timestamps in microseconds since Unix epoch
+   * @param dates receives dates in YYYYMMDD format
+   * @throws IndexOutOfBoundsException if the range is outside either array
+   */
+  public static void toIntDates(long[] src, int[] dates, int off, int len) {
+    checkRange(off, len, src.length, dates.length);
+    new DayCache().toIntDates(src, dates, off, off + len);
+  }
+
+  /**
+   * Parallel form of {@link #toIntDates(long[], int[], int, int)}.
+   */
+  public static void toIntDates(long[] src, int[] dates, int off, int len, ForkJoinPool pool) {
+    checkRange(off, len, src.length, dates.length);
+    invoke(pool, off, len, (from, to) -> new DayCache().toIntDates(src, dates, from, to));
+  }
+
+  // ==================== Readable Timestamp Columns ====================
+
+  /**
+   * Splits readable timestamps into their date and time, see {@link DateTimeHelper#getDate(long)} and
+   * {@link DateTimeHelper#getTime(long)}.
+   *
+   * @param readable readable timestamps in YYYYMMDDHHMMSSmmm format
+   * @param dates    receives dates in YYYYMMDD format
+   * @param times    receives times in HHMMSSmmm format
+   * @throws IndexOutOfBoundsException if {@code dates} or {@code times} is shorter than {@code readable}
+   */
+  public static void splitDateTime(long[] readable, int[] dates, int[] times) {
+    splitDateTime(readable, dates, times, 0, readable.length);
+  }
+
+  /**
+   * Splits {@code len} readable timestamps from {@code off} into their date and time.
+   *
+   * @throws IndexOutOfBoundsException if the range is outside any of the arrays
+   * @see #splitDateTime(long[], int[], int[])
+   */
+  public static void splitDateTime(long[] readable, int[] dates, int[] times, int off, int len) {
+    checkRange(off, len, readable.length, dates.length);
+    Objects.checkFromIndexSize(off, len, times.length);
+    split(readable, dates, times, off, off + len);
+  }
+
+  /**
+   * Parallel form of {@link #splitDateTime(long[], int[], int[], int, int)}.
+   */
+  public static void splitDateTime(long[] readable, int[] dates, int[] times, int off, int len, ForkJoinPool pool) {
+    checkRange(off, len, readable.length, dates.length);
+    Objects.checkFromIndexSize(off, len, times.length);
+    invoke(pool, off, len, (from, to) -> split(readable, dates, times, from, to));
+  }
+
+  /**
+   * Converts readable timestamps to seconds since midnight, see {@link DateTimeHelper#toSecondOfDay(long)}.
+   *
+   * @param readable readable timestamps in YYYYMMDDHHMMSSmmm format
+   * @param seconds  receives seconds since midnight
+   * @throws IndexOutOfBoundsException if the range is outside either array
+   */
+  public static void toSecondsOfDay(long[] readable, int[] seconds, int off, int len) {
+    checkRange(off, len, readable.length, seconds.length);
+    secondsOfDay(readable, seconds, off, off + len);
+  }
+
+  /**
+   * Parallel form of {@link #toSecondsOfDay(long[], int[], int, int)}.
+   */
+  public static void toSecondsOfDay(long[] readable, int[] seconds, int off, int len, ForkJoinPool pool) {
+    checkRange(off, len, readable.length, seconds.length);
+    invoke(pool, off, len, (from, to) -> secondsOfDay(readable, seconds, from, to));
+  }
+
+  private static void split(long[] readable, int[] dates, int[] times, int from, int to) {
+    for (int i = from; i < to; i++) {
+      long value = readable[i];
+      dates[i] = (int) (value / 1_000_000_000L);
+      times[i] = (int) (value % 1_000_000_000L);
+    }
+  }
+
+  private static void secondsOfDay(long[] readable, int[] seconds, int from, int to) {
+    for (int i = from; i < to; i++)
+      seconds[i] = DateTimeHelper.toSecondOfDay(readable[i]);
+  }
+
+  private static void checkRange(int off, int len, int srcLength, int dstLength) {
+    Objects.checkFromIndexSize(off, len, srcLength);
+    Objects.checkFromIndexSize(off, len, dstLength);
+  }
+
+  private static void invoke(ForkJoinPool pool, int off, int len, RangeAction action) {
+    if (len <= PARALLEL_CHUNK)
+      action.apply(off, off + len);
+    else
+      pool.invoke(new RangeTask(action, off, off + len));
+  }
+
+  @FunctionalInterface
+  private interface RangeAction {
+
+    void apply(int from, int to);
+  }
+
+  private static final class RangeTask extends RecursiveAction {
+
+    private final RangeAction iAction;
+
+    private final int iFrom;
+
+    private final int iTo;
+
+    RangeTask(RangeAction action, int from, int to) {
+      iAction = action;
+      iFrom = from;
+      iTo = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (iTo - iFrom <= PARALLEL_CHUNK) {
+        iAction.apply(iFrom, iTo);
+        return;
+      }
+
+      int mid = (iFrom + iTo) >>> 1;
+      invokeAll(new RangeTask(iAction, iFrom, mid), new RangeTask(iAction, mid, iTo));
+    }
+  }
+
+  /**
+   * The Shanghai day and offset of the last converted instant: every instant in [start, end) has the same date and
+   * lies {@code millis - base} milliseconds after local midnight.
+   */
+  private static final class DayCache {
+
+    private final CivilCalendar iCalendar = CivilCalendar.shanghai();
+
+    private long iStart;
+
+    private long iEnd;
+
+    private long iBase;
+
+    private int iDate;
+
+    void toReadable(long[] src, long[] dst, int from, int to) {
+      for (int i = from; i < to; i++) {
+        long millis = src[i] / 1000;
+        if ((millis < iStart || millis >= iEnd) && !refill(millis)) {
+          dst[i] = DateTimeHelper.toReadableTimestamp(src[i]);
+          continue;
+        }
+        dst[i] = iDate * 1_000_000_000L + CivilCalendar.readableTime((int) (millis - iBase));
+      }
+    }
+
+    void toIntDates(long[] src, int[] dates, int from, int to) {
+      for (int i = from; i < to; i++) {
+        long millis = src[i] / 1000;
+        if ((millis < iStart || millis >= iEnd) && !refill(millis)) {
+          dates[i] = DateTimeHelper.getIntDateFromRQTimestamp(src[i]);
+          continue;
+        }
+        dates[i] = iDate;
+      }
+    }
+
+    /**
+     * @return false if {@code millis} is outside the range of {@link CivilCalendar}
+     */
+    private boolean refill(long millis) {
+      if (!CivilCalendar.inRange(millis))
+        return false;
+
+      int offset = iCalendar.offsetMillis(millis);
+      long localDay = Math.floorDiv(millis + offset, CivilCalendar.MILLIS_PER_DAY);
+      iBase = localDay * CivilCalendar.MILLIS_PER_DAY - offset;
+      iDate = CivilCalendar.civilFromDays(localDay);
+      // a day with an offset transition is cached piecewise
+      iStart = Math.max(Math.max(iBase, iCalendar.periodStart(millis)), CivilCalendar.MIN_EPOCH_MILLIS);
+      iEnd = Math.min(Math.min(iBase + CivilCalendar.MILLIS_PER_DAY, iCalendar.periodEnd(millis)),
+              CivilCalendar.MAX_EPOCH_MILLIS);
+      return true;
+    }
+  }
+}
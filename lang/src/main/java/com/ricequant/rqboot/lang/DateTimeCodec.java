@@ -0,0 +1,467 @@
+package com.ricequant.rqboot.lang;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Parses and formats the date and time representations of {@link DateTimeHelper} directly from and into character or
+ * ASCII byte storage, without creating Strings or any other object, for exports and imports of many rows.
+ * <p>
+ * Parsers read the fields from an offset, each up to the first non-digit or its full width, and skip the one
+ * character after it as the separator without checking it. Fields may be zero-padded or not, e.g. both
+ * "2023-01-05 09:30:00" and "2023-1-5 9:30:00", the form the formatters and {@link DateTimeHelper#intDateToString}
+ * write. A non-digit where a field starts throws {@link NumberFormatException}. {@link ByteBuffer} offsets are
+ * absolute and the buffer's position is left unchanged.
+ * <p>
+ * Formatters produce exactly the text of the matching {@link DateTimeHelper} method. They append to a
+ * {@link StringBuilder}, write into a {@code byte[]} at an offset and return the offset after the text, or put into a
+ * {@link ByteBuffer} at its position and advance it.
+ *
+ * @author kain
+ */
+public class DateTimeCodec {
+
+  private static final int[] SMALL_DIVISORS = {1, 10, 100, 1000};
+
+  private DateTimeCodec() {
+
+  }
+
+  // ==================== Parsing ====================
+
+  /**
+   * Parses "yyyy-MM-dd HH:mm:ss" like {@link DateTimeHelper#toRQTimestamp(String)}.
+   *
+   * @param src text containing the timestamp at {@code off}
+   * @return RQ timestamp in microseconds since Unix epoch
+   */
+  public static long parseRQTimestamp(CharSequence src, int off) {
+    long year = field(src, off, 4);
+    long month = field(src, next(year), 2);
+    long day = field(src, next(month), 2);
+    long hour = field(src, next(day), 2);
+    long minute = field(src, next(hour), 2);
+    long second = field(src, next(minute), 2);
+    return DateTimeHelper.toRQTimestamp(value(year), value(month), value(day), value(hour), value(minute),
+            value(second), 0);
+  }
+
+  /**
+   * @see #parseRQTimestamp(CharSequence, int)
+   */
+  public static long parseRQTimestamp(byte[] src, int off) {
+    long year = field(src, off, 4);
+    long month = field(src, next(year), 2);
+    long day = field(src, next(month), 2);
+    long hour = field(src, next(day), 2);
+    long minute = field(src, next(hour), 2);
+    long second = field(src, next(minute), 2);
+    return DateTimeHelper.toRQTimestamp(value(year), value(month), value(day), value(hour), value(minute),
+            value(second), 0);
+  }
+
+  /**
+   * @see #parseRQTimestamp(CharSequence, int)
+   */
+  public static long parseRQTimestamp(ByteBuffer src, int off) {
+    long year = field(src, off, 4);
+    long month = field(src, next(year), 2);
+    long day = field(src, next(month), 2);
+    long hour = field(src, next(day), 2);
+    long minute = field(src, next(hour), 2);
+    long second = field(src, next(minute), 2);
+    return DateTimeHelper.toRQTimestamp(value(year), value(month), value(day), value(hour), value(minute),
+            value(second), 0);
+  }
+
+  /**
+   * Parses "yyyy-MM-dd", with any separators.
+   *
+   * @return date in YYYYMMDD format (e.g., 20231015)
+   */
+  public static int parseIntDate(CharSequence src, int off) {
+    long year = field(src, off, 4);
+    long month = field(src, next(year), 2);
+    return value(year) * 10000 + value(month) * 100 + value(field(src, next(month), 2));
+  }
+
+  /**
+   * @see #parseIntDate(CharSequence, int)
+   */
+  public static int parseIntDate(byte[] src, int off) {
+    long year = field(src, off, 4);
+    long month = field(src, next(year), 2);
+    return value(year) * 10000 + value(month) * 100 + value(field(src, next(month), 2));
+  }
+
+  /**
+   * @see #parseIntDate(CharSequence, int)
+   */
+  public static int parseIntDate(ByteBuffer src, int off) {
+    long year = field(src, off, 4);
+    long month = field(src, next(year), 2);
+    return value(year) * 10000 + value(month) * 100 + value(field(src, next(month), 2));
+  }
+
+  /**
+   * Parses "HH:mm:ss", the format of {@link DateTimeHelper#intTimeToString(int)}; the hour may be unpadded.
+   *
+   * @return time in HHMMSS format (e.g., 143020)
+   */
+  public static int parseIntTime(CharSequence src, int off) {
+    long hour = field(src, off, 2);
+    long minute = field(src, next(hour), 2);
+    return value(hour) * 10000 + value(minute) * 100 + value(field(src, next(minute), 2));
+  }
+
+  /**
+   * @see #parseIntTime(CharSequence, int)
+   */
+  public static int parseIntTime(byte[] src, int off) {
+    long hour = field(src, off, 2);
+    long minute = field(src, next(hour), 2);
+    return value(hour) * 10000 + value(minute) * 100 + value(field(src, next(minute), 2));
+  }
+
+  /**
+   * @see #parseIntTime(CharSequence, int)
+   */
+  public static int parseIntTime(ByteBuffer src, int off) {
+    long hour = field(src, off, 2);
+    long minute = field(src, next(hour), 2);
+    return value(hour) * 10000 + value(minute) * 100 + value(field(src, next(minute), 2));
+  }
+
+  /**
+   * Parses {@code len} decimal digits, e.g. a YYYYMMDD date or a 17-digit readable timestamp.
+   *
+   * @param len number of digits, at most 18
+   */
+  public static long parseLong(CharSequence src, int off, int len) {
+    checkDigitCount(len);
+    long value = 0;
+    for (int i = off; i < off + len; i++)
+      value = value * 10 + digit(src.charAt(i));
+    return value;
+  }
+
+  /**
+   * @see #parseLong(CharSequence, int, int)
+   */
+  public static long parseLong(byte[] src, int off, int len) {
+    checkDigitCount(len);
+    long value = 0;
+    for (int i = off; i < off + len; i++)
+      value = value * 10 + digit(src[i]);
+    return value;
+  }
+
+  /**
+   * @see #parseLong(CharSequence, int, int)
+   */
+  public static long parseLong(ByteBuffer src, int off, int len) {
+    checkDigitCount(len);
+    long value = 0;
+    for (int i = off; i < off + len; i++)
+      value = value * 10 + digit(src.get(i));
+    return value;
+  }
+
+  // ==================== Formatting ====================
+
+  /**
+   * Formats like {@link DateTimeHelper#intDateToString(int, String)}: year, month and day without padding.
+   */
+  public static StringBuilder formatIntDate(int date, char separator, StringBuilder dst) {
+    return dst.append(date / 10000).append(separator).append(date / 100 % 100).append(separator).append(date % 100);
+  }
+
+  /**
+   * @return the offset after the text
+   * @see #formatIntDate(int, char, StringBuilder)
+   */
+  public static int formatIntDate(int date, char separator, byte[] dst, int off) {
+    off = putInt(date / 10000, dst, off);
+    dst[off++] = (byte) separator;
+    off = putInt(date / 100 % 100, dst, off);
+    dst[off++] = (byte) separator;
+    return putInt(date % 100, dst, off);
+  }
+
+  /**
+   * @see #formatIntDate(int, char, StringBuilder)
+   */
+  public static ByteBuffer formatIntDate(int date, char separator, ByteBuffer dst) {
+    putInt(date / 10000, dst);
+    dst.put((byte) separator);
+    putInt(date / 100 % 100, dst);
+    dst.put((byte) separator);
+    return putInt(date % 100, dst);
+  }
+
+  /**
+   * Formats like {@link DateTimeHelper#intTimeToString(int)}: "HH:mm:ss".
+   */
+  public static StringBuilder formatIntTime(int time, StringBuilder dst) {
+    append2(time / 10000, dst).append(':');
+    append2(time / 100 % 100, dst).append(':');
+    return append2(time % 100, dst);
+  }
+
+  /**
+   * @return the offset after the text
+   * @see #formatIntTime(int, StringBuilder)
+   */
+  public static int formatIntTime(int time, byte[] dst, int off) {
+    off = put2(time / 10000, dst, off);
+    dst[off++] = ':';
+    off = put2(time / 100 % 100, dst, off);
+    dst[off++] = ':';
+    return put2(time % 100, dst, off);
+  }
+
+  /**
+   * @see #formatIntTime(int, StringBuilder)
+   */
+  public static ByteBuffer formatIntTime(int time, ByteBuffer dst) {
+    put2(time / 10000, dst).put((byte) ':');
+    put2(time / 100 % 100, dst).put((byte) ':');
+    return put2(time % 100, dst);
+  }
+
+  /**
+   * Formats like {@link DateTimeHelper#toPythonDateTime(int, int)}.
+   */
+  public static StringBuilder formatPythonDateTime(int date, int time, StringBuilder dst) {
+    return formatIntTime(time, formatIntDate(date, '-', dst).append(' '));
+  }
+
+  /**
+   * @return the offset after the text
+   * @see #formatPythonDateTime(int, int, StringBuilder)
+   */
+  public static int formatPythonDateTime(int date, int time, byte[] dst, int off) {
+    off = formatIntDate(date, '-', dst, off);
+    dst[off++] = ' ';
+    return formatIntTime(time, dst, off);
+  }
+
+  /**
+   * @see #formatPythonDateTime(int, int, StringBuilder)
+   */
+  public static ByteBuffer formatPythonDateTime(int date, int time, ByteBuffer dst) {
+    return formatIntTime(time, formatIntDate(date, '-', dst).put((byte) ' '));
+  }
+
+  /**
+   * Formats an RQ timestamp as "yyyy-MM-dd HH:mm:ss" in Asia/Shanghai, the format read by
+   * {@link DateTimeHelper#toRQTimestamp(String)}. Fractions of a second are dropped.
+   */
+  public static StringBuilder formatRQTimestamp(long rqTimestamp, StringBuilder dst) {
+    long readable = DateTimeHelper.toReadableTimestamp(rqTimestamp);
+    int date = DateTimeHelper.getDate(readable);
+    append2(date / 1000000, dst);
+    append2(date / 10000 % 100, dst).append('-');
+    append2(date / 100 % 100, dst).append('-');
+    append2(date % 100, dst).append(' ');
+    return formatIntTime((int) (DateTimeHelper.getTime(readable) / 1000), dst);
+  }
+
+  /**
+   * @return the offset after the text
+   * @see #formatRQTimestamp(long, StringBuilder)
+   */
+  public static int formatRQTimestamp(long rqTimestamp, byte[] dst, int off) {
+    long readable = DateTimeHelper.toReadableTimestamp(rqTimestamp);
+    int date = DateTimeHelper.getDate(readable);
+    off = put2(date / 1000000, dst, off);
+    off = put2(date / 10000 % 100, dst, off);
+    dst[off++] = '-';
+    off = put2(date / 100 % 100, dst, off);
+    dst[off++] = '-';
+    off = put2(date % 100, dst, off);
+    dst[off++] = ' ';
+    return formatIntTime((int) (DateTimeHelper.getTime(readable) / 1000), dst, off);
+  }
+
+  /**
+   * @see #formatRQTimestamp(long, StringBuilder)
+   */
+  public static ByteBuffer formatRQTimestamp(long rqTimestamp, ByteBuffer dst) {
+    long readable = DateTimeHelper.toReadableTimestamp(rqTimestamp);
+    int date = DateTimeHelper.getDate(readable);
+    put2(date / 1000000, dst);
+    put2(date / 10000 % 100, dst).put((byte) '-');
+    put2(date / 100 % 100, dst).put((byte) '-');
+    put2(date % 100, dst).put((byte) ' ');
+    return formatIntTime((int) (DateTimeHelper.getTime(readable) / 1000), dst);
+  }
+
+  /**
+   * Writes a decimal number like {@link Long#toString(long)}, e.g. a readable timestamp.
+   *
+   * @return the offset after the text
+   */
+  public static int formatLong(long value, byte[] dst, int off) {
+    if (value < 0) {
+      dst[off++] = '-';
+    }
+    int end = off + digitCount(value);
+    // fill from the right with negative remainders, which also covers Long.MIN_VALUE
+    long rest = value < 0 ? value : -value;
+    for (int i = end - 1; i >= off; i--) {
+      dst[i] = (byte) ('0' - rest % 10);
+      rest /= 10;
+    }
+    return end;
+  }
+
+  /**
+   * @see #formatLong(long, byte[], int)
+   */
+  public static ByteBuffer formatLong(long value, ByteBuffer dst) {
+    if (value < 0) {
+      dst.put((byte) '-');
+    }
+    int off = dst.position();
+    int end = off + digitCount(value);
+    if (end > dst.limit()) {
+      throw new BufferOverflowException();
+    }
+    long rest = value < 0 ? value : -value;
+    for (int i = end - 1; i >= off; i--) {
+      dst.put(i, (byte) ('0' - rest % 10));
+      rest /= 10;
+    }
+    return dst.position(end);
+  }
+
+  // ==================== Digits ====================
+
+  // a field of 1 to maxDigits digits at off: its value in the high and the offset after it in the low 32 bits
+  private static long field(CharSequence src, int off, int maxDigits) {
+    int end = Math.min(src.length(), off + maxDigits);
+    int i = off;
+    int value = 0;
+    while (i < end && isDigit(src.charAt(i)))
+      value = value * 10 + src.charAt(i++) - '0';
+    if (i == off)
+      throw missingField(off, off < src.length() ? src.charAt(off) : -1);
+    return (long) value << 32 | i;
+  }
+
+  private static long field(byte[] src, int off, int maxDigits) {
+    int end = Math.min(src.length, off + maxDigits);
+    int i = off;
+    int value = 0;
+    while (i < end && isDigit(src[i]))
+      value = value * 10 + src[i++] - '0';
+    if (i == off)
+      throw missingField(off, off < src.length ? src[off] : -1);
+    return (long) value << 32 | i;
+  }
+
+  private static long field(ByteBuffer src, int off, int maxDigits) {
+    int end = Math.min(src.limit(), off + maxDigits);
+    int i = off;
+    int value = 0;
+    while (i < end && isDigit(src.get(i)))
+      value = value * 10 + src.get(i++) - '0';
+    if (i == off)
+      throw missingField(off, off < src.limit() ? src.get(off) : -1);
+    return (long) value << 32 | i;
+  }
+
+  private static int value(long field) {
+    return (int) (field >>> 32);
+  }
+
+  // the offset of the next field, past the separator
+  private static int next(long field) {
+    return (int) field + 1;
+  }
+
+  private static boolean isDigit(int c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static NumberFormatException missingField(int off, int c) {
+    return new NumberFormatException(c < 0 ? "Missing field at offset " + off : "Not a digit: '" + (char) c + "'");
+  }
+
+  private static int digit(int c) {
+    int d = c - '0';
+    if (d < 0 || d > 9) {
+      throw new NumberFormatException("Not a digit: '" + (char) c + "'");
+    }
+    return d;
+  }
+
+  private static void checkDigitCount(int len) {
+    if (len <= 0 || len > 18) {
+      throw new IllegalArgumentException("Digit count must be in [1, 18], got: " + len);
+    }
+  }
+
+  // number of digits of |value|
+  private static int digitCount(long value) {
+    long rest = value < 0 ? value : -value;
+    int count = 1;
+    while (rest <= -10) {
+      rest /= 10;
+      count++;
+    }
+    return count;
+  }
+
+  private static StringBuilder append2(int value, StringBuilder dst) {
+    if (value < 10)
+      dst.append('0');
+    return dst.append(value);
+  }
+
+  private static int put2(int value, byte[] dst, int off) {
+    if (value >= 0 && value < 100) {
+      dst[off] = (byte) ('0' + value / 10);
+      dst[off + 1] = (byte) ('0' + value % 10);
+      return off + 2;
+    }
+    if (value < 0)
+      dst[off++] = '0';
+    return putInt(value, dst, off);
+  }
+
+  private static ByteBuffer put2(int value, ByteBuffer dst) {
+    if (value >= 0 && value < 100)
+      return dst.put((byte) ('0' + value / 10)).put((byte) ('0' + value % 10));
+    if (value < 0)
+      dst.put((byte) '0');
+    return putInt(value, dst);
+  }
+
+  // dates and times only ever need up to four digits, which int arithmetic writes without the long loop
+  private static int putInt(int value, byte[] dst, int off) {
+    if (value < 0 || value >= 10000)
+      return formatLong(value, dst, off);
+
+    int end = off + smallDigitCount(value);
+    for (int i = end - 1; i >= off; i--) {
+      dst[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    return end;
+  }
+
+  private static ByteBuffer putInt(int value, ByteBuffer dst) {
+    if (value < 0 || value >= 10000)
+      return formatLong(value, dst);
+
+    for (int divisor = SMALL_DIVISORS[smallDigitCount(value) - 1]; divisor > 0; divisor /= 10)
+      dst.put((byte) ('0' + value / divisor % 10));
+    return dst;
+  }
+
+  private static int smallDigitCount(int value) {
+    return value < 10 ? 1 : value < 100 ? 2 : value < 1000 ? 3 : 4;
+  }
+}
@@ -26,7 +26,9 @@ import java.util.TimeZone;
  *
  * <p><b>Important Notes:</b>
  * <ul>
- *   <li>All operations use <b>Asia/Shanghai timezone</b> (CST, UTC+8) via ThreadLocal Calendar</li>
+ *   <li>All operations use <b>Asia/Shanghai timezone</b> (CST, UTC+8). Conversions between RQ timestamps and
+ *   date/time fields go through {@link CivilCalendar} for the years 1900-2199 and a ThreadLocal Calendar outside
+ *   them, with identical results</li>
  *   <li>The class is thread-safe due to ThreadLocal usage</li>
  *   <li>This class cannot be instantiated (utility class pattern)</li>
  *   <li>Mixing Joda-Time and java.time APIs for historical reasons</li>
@@ -36,9 +38,7 @@ import java.util.TimeZone;
  */
 public class DateTimeHelper {
 
-  private static final long cBeginMicro;
-
-  private static final long cMicroDiff;
+  private final static CivilCalendar SHANGHAI = CivilCalendar.shanghai();
 
   private final static ThreadLocal<Calendar> CALENDAR = ThreadLocal.withInitial(() -> {
     Calendar c = Calendar.getInstance();
@@ -46,29 +46,51 @@ public class DateTimeHelper {
     return c;
   });
 
-  static {
-    long curNano = System.nanoTime();
-    for (int i = 0; i < 1000; i++) {
-      System.currentTimeMillis();
-    }
-    long milliCost = (System.nanoTime() - curNano) / 1000;
-
-    cBeginMicro = System.currentTimeMillis() * 1000;
-    cMicroDiff = (System.nanoTime() - milliCost) / 1000;
-  }
-
   // ==================== Current Time Functions ====================
 
   /**
    * Gets the current time in microseconds since Unix epoch.
    *
-   * <p>This method provides microsecond precision by combining {@code System.currentTimeMillis()}
-   * with {@code System.nanoTime()}, adjusting for the cost of time measurement operations.
+   * <p>This method provides microsecond precision from {@code System.nanoTime()}, recalibrated against the wall clock
+   * every minute so it does not drift in long-running processes. See {@link HighResolutionClock}.
    *
    * @return current time in microseconds since Unix epoch (1970-01-01 00:00:00 UTC)
    */
   public static long getCurrentMicros() {
-    return cBeginMicro + (System.nanoTime() / 1000 - cMicroDiff);
+    return HighResolutionClock.shared().currentMicros();
+  }
+
+  /**
+   * Gets the current time in microseconds since Unix epoch as of the last tick of {@link CoarseClock#shared()}.
+   *
+   * <p>Up to a millisecond behind {@link #getCurrentMicros()}, but costs only a memory read.
+   *
+   * @return current time in microseconds since Unix epoch, at millisecond granularity
+   */
+  public static long getCoarseMicros() {
+    return CoarseClock.shared().micros();
+  }
+
+  /**
+   * Gets the current date as an integer in YYYYMMDD format as of the last tick of {@link CoarseClock#shared()}.
+   *
+   * <p>Uses Asia/Shanghai timezone, unlike {@link #currDateInt()}.
+   *
+   * @return current date in YYYYMMDD format (e.g., 20231015)
+   */
+  public static int getCoarseDateInt() {
+    return CoarseClock.shared().dateInt();
+  }
+
+  /**
+   * Gets the current time as an integer in HHMMSS format as of the last tick of {@link CoarseClock#shared()}.
+   *
+   * <p>Uses Asia/Shanghai timezone.
+   *
+   * @return current time in HHMMSS format (e.g., 143020 for 14:30:20)
+   */
+  public static int getCoarseTimeInt() {
+    return CoarseClock.shared().timeInt();
   }
 
   /**
@@ -246,8 +268,6 @@ public class DateTimeHelper {
    * @return current time in HHMMSS format (e.g., 143020 for 14:30:20)
    */
   public static int currTimeInt() {
-    Calendar now = CALENDAR.get();
-    now.setTimeInMillis(System.currentTimeMillis());
     return currTimeInt(0);
   }
 
@@ -260,6 +280,10 @@ public class DateTimeHelper {
    * @return time in HHMMSS format (e.g., 143020 for 14:30:20)
    */
   public static int currTimeInt(int offset) {
+    long millis = System.currentTimeMillis() + offset * 1000L;
+    if (CivilCalendar.inRange(millis))
+      return SHANGHAI.toIntTime(millis);
+
     Calendar cal = CALENDAR.get();
     cal.setTimeInMillis(System.currentTimeMillis());
     cal.add(Calendar.SECOND, offset);
@@ -410,6 +434,10 @@ public class DateTimeHelper {
    * @return date in YYYYMMDD format (e.g., 20231015)
    */
   public static int getIntDateFromRQTimestamp(long ts) {
+    long millis = ts / 1000;
+    if (CivilCalendar.inRange(millis))
+      return SHANGHAI.toIntDate(millis);
+
     Calendar c = CALENDAR.get();
     c.setTimeInMillis(ts / 1000);
     int year = c.get(Calendar.YEAR);
@@ -481,7 +509,6 @@ public class DateTimeHelper {
     if (readableTimestamp < 9999999999999999L)
       readableTimestamp *= 10;
 
-    CALENDAR.get().clear();
     // YYYYMMDDHHMMSSsss
     int year = (int) (readableTimestamp / 10000000000000L);
     int month = (int) (readableTimestamp % 10000000000000L / 100000000000L);
@@ -491,8 +518,7 @@ public class DateTimeHelper {
     int sec = (int) (readableTimestamp % 100000L / 1000L);
     int milli = (int) (readableTimestamp % 1000L);
 
-    CALENDAR.get().set(year, month - 1, day, hour, min, sec);
-    long ret = (CALENDAR.get().getTimeInMillis() + milli) * 1000;
+    long ret = (calendarMillis(year, month, day, hour, min, sec) + milli) * 1000;
     if (ret < 0) {
       throw new IllegalArgumentException("input timestamp is not in readable format: " + readableTimestamp);
     }
@@ -536,6 +562,9 @@ public class DateTimeHelper {
    */
   public static long toReadableTimestamp(long rqTimestamp) {
     long ret = rqTimestamp / 1000;
+    if (CivilCalendar.inRange(ret))
+      return SHANGHAI.toReadableTimestamp(ret);
+
     Calendar c = CALENDAR.get();
     c.setTimeInMillis(ret);
     return c.get(Calendar.YEAR) * 10000000000000L + (1 + c.get(Calendar.MONTH)) * 100000000000L
@@ -709,10 +738,7 @@ public class DateTimeHelper {
    * @throws IllegalArgumentException if the datetime components result in a negative timestamp
    */
   public static long toRQTimestamp(int year, int month, int day, int hour, int minute, int second, int milli) {
-    Calendar cal = CALENDAR.get();
-    cal.clear(); // Clear all fields to avoid residual values
-    cal.set(year, month - 1, day, hour, minute, second);
-    long ret = (cal.getTimeInMillis() + milli) * 1000;
+    long ret = (calendarMillis(year, month, day, hour, minute, second) + milli) * 1000;
     if (ret < 0) {
       throw new IllegalArgumentException(
               "input is unreasonable: " + year + "-" + month + "-" + day + " " + hour + ":" + minute + ":" + second
@@ -721,6 +747,19 @@ public class DateTimeHelper {
     return ret;
   }
 
+  // Lenient Calendar semantics: fields out of range roll over, local times in a DST gap or overlap take the offset
+  // in effect before the gap or after the overlap
+  private static long calendarMillis(int year, int month, int day, int hour, int minute, int second) {
+    long local = CivilCalendar.toLocalMillis(year, month, day, hour, minute, second, 0);
+    if (CivilCalendar.inRange(local))
+      return SHANGHAI.toEpochMillis(local);
+
+    Calendar cal = CALENDAR.get();
+    cal.clear(); // Clear all fields to avoid residual values
+    cal.set(year, month - 1, day, hour, minute, second);
+    return cal.getTimeInMillis();
+  }
+
   /**
    * Converts integer date and time to Unix epoch seconds.
    *
@@ -1,9 +1,11 @@
 package com.ricequant.rqboot.lang;
 
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 /**
+ * For keys made of a primitive {@code long} and another component, prefer the allocation-free maps such as
+ * {@link com.ricequant.rqboot.lang.collection.LongLongKeyMap}.
+ *
  * @author chenfeng
  */
 public class HashMapHelper {
@@ -25,8 +27,8 @@ public class HashMapHelper {
       iO1 = o1;
       iO2 = o2;
 
-      HashCodeBuilder hashBuilder = new HashCodeBuilder();
-      iCode = hashBuilder.append(o1).append(o2).toHashCode();
+      // the value HashCodeBuilder produced for non-array components, without allocating the builder
+      iCode = (17 * 37 + (o1 == null ? 0 : o1.hashCode())) * 37 + (o2 == null ? 0 : o2.hashCode());
     }
 
     @Override
@@ -0,0 +1,189 @@
+package com.ricequant.rqboot.lang;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Microseconds since Unix epoch from {@link System#nanoTime()}, which is cheap and fine-grained but drifts away from
+ * the NTP-disciplined wall clock over days. The clock therefore measures the wall clock again once every recalibration
+ * interval, on the first read after the interval has passed, and corrects the offset it finds.
+ * <p>
+ * The correction is slewed rather than stepped: it is spread over at least one interval, at no more than
+ * {@value #MAX_SLEW_PPM} microseconds per second, so readings are continuous across recalibrations and never go
+ * backwards on a thread, even when the wall clock is set back. A large wall clock step therefore takes a while to
+ * catch up with; use {@link #instantMicros()} where the exact wall clock matters more than monotonicity.
+ * <p>
+ * Thread safe. Reads take no lock and allocate nothing, except the first read after each interval: that caller samples
+ * the wall clock {@value #CALIBRATION_SAMPLES} times and allocates the new slew segment before returning, and
+ * concurrent readers keep using the old segment meanwhile. To keep this off a latency-critical thread, call
+ * {@link #recalibrate()} from another thread more often than the interval; a running {@link CoarseClock} on this clock
+ * reads it every tick, so its ticker thread usually takes the recalibrations.
+ *
+ * @author kain
+ */
+public final class HighResolutionClock {
+
+  public static final long DEFAULT_RECALIBRATION_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  public static final int MAX_SLEW_PPM = 1000;
+
+  private static final int CALIBRATION_SAMPLES = 5;
+
+  private static final HighResolutionClock cShared = new HighResolutionClock(DEFAULT_RECALIBRATION_NANOS);
+
+  private final long iRecalibrationNanos;
+
+  private final LongSupplier iNanoTime;
+
+  private final LongSupplier iWallNanos;
+
+  private final AtomicBoolean iRecalibrating = new AtomicBoolean();
+
+  private volatile Segment iSegment;
+
+  /**
+   * @param recalibrationNanos how often to measure the wall clock again, must be positive
+   */
+  public HighResolutionClock(long recalibrationNanos) {
+    this(recalibrationNanos, System::nanoTime, HighResolutionClock::instantNanos);
+  }
+
+  HighResolutionClock(long recalibrationNanos, LongSupplier nanoTime, LongSupplier wallNanos) {
+    if (recalibrationNanos <= 0) {
+      throw new IllegalArgumentException("Recalibration interval must be positive, got: " + recalibrationNanos);
+    }
+    iRecalibrationNanos = recalibrationNanos;
+    iNanoTime = nanoTime;
+    iWallNanos = wallNanos;
+
+    long[] sample = sampleWallClock();
+    iSegment = new Segment(sample[0], sample[1], 0, 1, sample[0] + recalibrationNanos);
+  }
+
+  /**
+   * Returns the clock shared by {@link DateTimeHelper}, recalibrated every {@link #DEFAULT_RECALIBRATION_NANOS}.
+   */
+  public static HighResolutionClock shared() {
+    return cShared;
+  }
+
+  /**
+   * Reads the wall clock through {@link Instant#now()}, which has microsecond resolution on most platforms. Not
+   * monotonic: follows every adjustment of the system clock.
+   *
+   * @return current time in microseconds since Unix epoch
+   */
+  public static long instantMicros() {
+    Instant now = Instant.now();
+    return now.getEpochSecond() * 1_000_000L + now.getNano() / 1000;
+  }
+
+  private static long instantNanos() {
+    Instant now = Instant.now();
+    return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+  }
+
+  /**
+   * @return current time in microseconds since Unix epoch
+   */
+  public long currentMicros() {
+    return Math.floorDiv(currentNanos(), 1000);
+  }
+
+  /**
+   * @return current time in nanoseconds since Unix epoch, with the resolution of {@link System#nanoTime()}
+   */
+  public long currentNanos() {
+    long now = iNanoTime.getAsLong();
+    Segment segment = iSegment;
+    if (now - segment.iNextRecalibration >= 0 && iRecalibrating.compareAndSet(false, true)) {
+      try {
+        recalibrate();
+      }
+      finally {
+        iRecalibrating.set(false);
+      }
+      segment = iSegment;
+    }
+    return segment.epochNanos(now);
+  }
+
+  /**
+   * Measures the wall clock now and starts slewing towards it, regardless of the interval.
+   */
+  public synchronized void recalibrate() {
+    long[] sample = sampleWallClock();
+    Segment current = iSegment;
+    long estimate = current.epochNanos(sample[0]);
+    long offset = sample[1] - estimate;
+    long slewNanos = Math.max(iRecalibrationNanos, Math.abs(offset) / MAX_SLEW_PPM * 1_000_000L);
+    iSegment = new Segment(sample[0], estimate, offset, slewNanos, sample[0] + iRecalibrationNanos);
+  }
+
+  /**
+   * @return the wall clock minus this clock at the last recalibration, in nanoseconds; the drift being corrected
+   */
+  public long lastOffsetNanos() {
+    return iSegment.iCorrection;
+  }
+
+  /**
+   * @return {nanoTime, wall clock nanos} from the sample with the shortest nanoTime bracket, taking its midpoint
+   */
+  private long[] sampleWallClock() {
+    long bestSpan = Long.MAX_VALUE;
+    long bestNanoTime = 0;
+    long bestWall = 0;
+    for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+      long before = iNanoTime.getAsLong();
+      long wall = iWallNanos.getAsLong();
+      long span = iNanoTime.getAsLong() - before;
+      if (span < bestSpan) {
+        bestSpan = span;
+        bestNanoTime = before + span / 2;
+        bestWall = wall;
+      }
+    }
+    return new long[]{bestNanoTime, bestWall};
+  }
+
+  /**
+   * From {@code iBase} nanoTime on: {@code iBaseEpochNanos} plus elapsed time plus a correction that grows linearly
+   * to {@code iCorrection} over {@code iSlewNanos}. The correction changes by less than one nanosecond per elapsed
+   * nanosecond, so the result never decreases.
+   */
+  private static final class Segment {
+
+    private final long iBase;
+
+    private final long iBaseEpochNanos;
+
+    private final long iCorrection;
+
+    private final long iSlewNanos;
+
+    private final long iNextRecalibration;
+
+    Segment(long base, long baseEpochNanos, long correction, long slewNanos, long nextRecalibration) {
+      iBase = base;
+      iBaseEpochNanos = baseEpochNanos;
+      iCorrection = correction;
+      iSlewNanos = slewNanos;
+      iNextRecalibration = nextRecalibration;
+    }
+
+    long epochNanos(long nanoTime) {
+      long elapsed = nanoTime - iBase;
+      long correction;
+      if (elapsed <= 0)
+        correction = 0;
+      else if (elapsed >= iSlewNanos)
+        correction = iCorrection;
+      else
+        correction = (long) ((double) iCorrection * elapsed / iSlewNanos);
+      return iBaseEpochNanos + elapsed + correction;
+    }
+  }
+}
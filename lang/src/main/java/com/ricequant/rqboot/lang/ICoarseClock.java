@@ -0,0 +1,25 @@
+package com.ricequant.rqboot.lang;
+
+/**
+ * Read access to a {@link CoarseClock}: the time, date and time of day of its last tick. {@link CoarseClock#shared()}
+ * hands out this view, so code that only reads the shared clock cannot stop it.
+ *
+ * @author kain
+ */
+public interface ICoarseClock {
+
+  /**
+   * @return time of the last tick in microseconds since Unix epoch
+   */
+  long micros();
+
+  /**
+   * @return date of the last tick in YYYYMMDD format
+   */
+  int dateInt();
+
+  /**
+   * @return time of day of the last tick in HHMMSS format
+   */
+  int timeInt();
+}
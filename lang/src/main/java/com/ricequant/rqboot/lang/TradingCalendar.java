@@ -0,0 +1,264 @@
+package com.ricequant.rqboot.lang;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.MissingResourceException;
+import java.util.function.IntConsumer;
+
+/**
+ * Trading days over a fixed range of dates in YYYYMMDD format: every weekday that is not a listed holiday.
+ * <p>
+ * Days are stored as one bit per day since the first date of the range, with the count of trading days before every
+ * 64-day word (rank) and the sorted list of trading days (select). Membership, the next and previous trading day and
+ * counting or shifting by trading days therefore cost a few array reads, whatever the distance. Per century of days the
+ * bits and ranks take about 7 KB and the list of trading days, one int each, about 100 KB.
+ * <p>
+ * Holiday lists are plain text with one date per line, as YYYYMMDD or yyyy-MM-dd; blank lines and anything after a
+ * '#' are ignored. Queries outside the range throw {@link IllegalArgumentException}, so a calendar whose holidays were
+ * not loaded for a year never answers silently. Immutable and thread safe.
+ *
+ * @author kain
+ */
+public final class TradingCalendar {
+
+  private final int iFirstDate;
+
+  private final int iLastDate;
+
+  private final long iFirstDay;
+
+  private final long iLastDay;
+
+  // bit i of word i / 64 is set if iFirstDay + i is a trading day
+  private final long[] iWords;
+
+  // trading days before each word
+  private final int[] iRanks;
+
+  // all trading days in order, in YYYYMMDD format
+  private final int[] iTradingDays;
+
+  /**
+   * @param firstDate first date of the range, in YYYYMMDD format
+   * @param lastDate  last date of the range, inclusive
+   * @param holidays  weekdays without trading, in YYYYMMDD format; those outside the range are ignored
+   * @throws IllegalArgumentException if a date is invalid or the range is empty
+   */
+  public TradingCalendar(int firstDate, int lastDate, int... holidays) {
+    iFirstDay = epochDay(firstDate);
+    iLastDay = epochDay(lastDate);
+    if (iLastDay < iFirstDay) {
+      throw new IllegalArgumentException("Empty range: " + firstDate + " - " + lastDate);
+    }
+    iFirstDate = firstDate;
+    iLastDate = lastDate;
+
+    int days = (int) (iLastDay - iFirstDay + 1);
+    iWords = new long[(days + 63) >>> 6];
+    for (int i = 0; i < days; i++) {
+      if (Math.floorMod(iFirstDay + i + 3, 7) < 5)
+        iWords[i >>> 6] |= 1L << i;
+    }
+    for (int holiday : holidays) {
+      long day = epochDay(holiday);
+      if (day >= iFirstDay && day <= iLastDay) {
+        int i = (int) (day - iFirstDay);
+        iWords[i >>> 6] &= ~(1L << i);
+      }
+    }
+
+    iRanks = new int[iWords.length];
+    int count = 0;
+    for (int w = 0; w < iWords.length; w++) {
+      iRanks[w] = count;
+      count += Long.bitCount(iWords[w]);
+    }
+    iTradingDays = new int[count];
+    int n = 0;
+    for (int i = 0; i < days; i++) {
+      if ((iWords[i >>> 6] & 1L << i) != 0)
+        iTradingDays[n++] = CivilCalendar.civilFromDays(iFirstDay + i);
+    }
+  }
+
+  // ==================== Loading ====================
+
+  /**
+   * Reads a holiday list from a file, see {@link #readHolidays(InputStream)}.
+   *
+   * @see #TradingCalendar(int, int, int...)
+   */
+  public static TradingCalendar fromFile(Path file, int firstDate, int lastDate) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      return new TradingCalendar(firstDate, lastDate, readHolidays(in));
+    }
+  }
+
+  /**
+   * Reads a holiday list from a class path resource, see {@link #readHolidays(InputStream)}.
+   *
+   * @throws MissingResourceException if there is no such resource
+   * @see #TradingCalendar(int, int, int...)
+   */
+  public static TradingCalendar fromResource(String resourceName, int firstDate, int lastDate) {
+    InputStream resource = TradingCalendar.class.getClassLoader().getResourceAsStream(resourceName);
+    if (resource == null)
+      throw new MissingResourceException("resource not found: " + resourceName, TradingCalendar.class.getName(),
+              resourceName);
+
+    try (InputStream in = resource) {
+      return new TradingCalendar(firstDate, lastDate, readHolidays(in));
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + resourceName, e);
+    }
+  }
+
+  /**
+   * Reads one date per line, as YYYYMMDD or yyyy-MM-dd. Blank lines and text after a '#' are skipped.
+   *
+   * @return the dates in YYYYMMDD format, in file order
+   * @throws IllegalArgumentException if a line holds anything else, naming the line
+   */
+  public static int[] readHolidays(InputStream in) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+    int[] dates = new int[64];
+    int count = 0;
+    int lineNumber = 0;
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      lineNumber++;
+      int comment = line.indexOf('#');
+      String text = (comment < 0 ? line : line.substring(0, comment)).strip();
+      if (text.isEmpty())
+        continue;
+
+      int date;
+      try {
+        if (text.length() == 8)
+          date = (int) DateTimeCodec.parseLong(text, 0, 8);
+        else if (text.length() == 10)
+          date = DateTimeCodec.parseIntDate(text, 0);
+        else
+          throw new NumberFormatException("Unexpected length");
+        epochDay(date);
+      }
+      catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid date at line " + lineNumber + ": " + line, e);
+      }
+      if (count == dates.length)
+        dates = Arrays.copyOf(dates, count * 2);
+      dates[count++] = date;
+    }
+    return Arrays.copyOf(dates, count);
+  }
+
+  // ==================== Queries ====================
+
+  public int firstDate() {
+    return iFirstDate;
+  }
+
+  public int lastDate() {
+    return iLastDate;
+  }
+
+  public boolean isTradingDay(int date) {
+    int i = index(date);
+    return (iWords[i >>> 6] & 1L << i) != 0;
+  }
+
+  /**
+   * @return the first trading day after {@code date}, or -1 if there is none in the range
+   */
+  public int nextTradingDay(int date) {
+    int rank = upperRank(index(date));
+    return rank < iTradingDays.length ? iTradingDays[rank] : -1;
+  }
+
+  /**
+   * @return the last trading day before {@code date}, or -1 if there is none in the range
+   */
+  public int previousTradingDay(int date) {
+    int rank = rank(index(date));
+    return rank > 0 ? iTradingDays[rank - 1] : -1;
+  }
+
+  /**
+   * Moves by a number of trading days: the {@code n}th trading day after {@code date}, or the {@code -n}th before it
+   * if {@code n} is negative, so that 1 is {@link #nextTradingDay(int)} and -1 is {@link #previousTradingDay(int)}.
+   * With 0, {@code date} itself if it is a trading day, otherwise the previous one.
+   *
+   * @return the trading day, or -1 if it is outside the range
+   */
+  public int addTradingDays(int date, int n) {
+    int i = index(date);
+    long rank = n < 0 ? rank(i) + (long) n : upperRank(i) - 1 + (long) n;
+    return rank >= 0 && rank < iTradingDays.length ? iTradingDays[(int) rank] : -1;
+  }
+
+  /**
+   * @return the number of trading days from {@code from} to {@code to}, both inclusive; 0 if {@code to} is before
+   * {@code from}
+   */
+  public int tradingDaysBetween(int from, int to) {
+    int start = rank(index(from));
+    int end = upperRank(index(to));
+    return Math.max(0, end - start);
+  }
+
+  /**
+   * @return the trading days from {@code from} to {@code to}, both inclusive, in order
+   */
+  public int[] tradingDays(int from, int to) {
+    int start = rank(index(from));
+    int end = upperRank(index(to));
+    return end > start ? Arrays.copyOfRange(iTradingDays, start, end) : new int[0];
+  }
+
+  /**
+   * Passes the trading days from {@code from} to {@code to}, both inclusive, to {@code consumer} in order.
+   *
+   * @return the number of trading days passed
+   */
+  public int forEachTradingDay(int from, int to, IntConsumer consumer) {
+    int start = rank(index(from));
+    int end = upperRank(index(to));
+    for (int r = start; r < end; r++)
+      consumer.accept(iTradingDays[r]);
+    return Math.max(0, end - start);
+  }
+
+  // trading days before index i
+  private int rank(int i) {
+    return iRanks[i >>> 6] + Long.bitCount(iWords[i >>> 6] & (1L << i) - 1);
+  }
+
+  // trading days up to and including index i
+  private int upperRank(int i) {
+    return rank(i) + (int) (iWords[i >>> 6] >>> i & 1);
+  }
+
+  private int index(int date) {
+    long day = epochDay(date);
+    if (day < iFirstDay || day > iLastDay) {
+      throw new IllegalArgumentException(
+              "Date " + date + " is outside the calendar range " + iFirstDate + " - " + iLastDate);
+    }
+    return (int) (day - iFirstDay);
+  }
+
+  private static long epochDay(int date) {
+    long day = CivilCalendar.daysFromCivil(date / 10000, date / 100 % 100, date % 100);
+    if (CivilCalendar.civilFromDays(day) != date) {
+      throw new IllegalArgumentException("Invalid date: " + date);
+    }
+    return day;
+  }
+}
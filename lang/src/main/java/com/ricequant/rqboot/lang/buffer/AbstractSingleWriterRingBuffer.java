@@ -0,0 +1,112 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import com.ricequant.rqboot.lang.container.SingleWriterSequence;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Sequencing shared by the single-writer, multi-reader ring buffers. Neither side takes a lock.
+ * <p>
+ * The writer numbers values from 0. Before overwriting any slot it advances the claimed sequence, and after writing it
+ * publishes with a release store on the published sequence. A reader takes the published sequence with acquire
+ * semantics, reads the slots it needs, then checks the claimed sequence. The read is consistent if the writer has not
+ * claimed any slot the reader copied; otherwise the reader retries, as with a seqlock. Only the writer thread may
+ * append.
+ *
+ * @author chenfeng
+ */
+abstract class AbstractSingleWriterRingBuffer {
+
+  protected final int size;
+
+  private final SingleWriterSequence claimed = new SingleWriterSequence();
+
+  private final SingleWriterSequence published = new SingleWriterSequence();
+
+  // writer thread only
+  private long next;
+
+  protected AbstractSingleWriterRingBuffer(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size must be positive, got: " + size);
+    }
+    this.size = size;
+  }
+
+  /**
+   * Returns the maximum capacity of the buffer.
+   *
+   * @return the buffer size
+   */
+  public final int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of readable elements (0 to size).
+   *
+   * @return the count of elements in the buffer
+   */
+  public final int count() {
+    return (int) Math.min(size, published.get());
+  }
+
+  /**
+   * Returns the number of values appended since creation; the latest value has sequence {@code sequence() - 1}.
+   *
+   * @return the published sequence
+   */
+  public final long sequence() {
+    return published.get();
+  }
+
+  /**
+   * Claims the next {@code len} sequences before their slots are written.
+   *
+   * @return the first claimed sequence
+   */
+  protected final long beginWrite(int len) {
+    long seq = next;
+    claimed.set(seq + len);
+    // the claim must be visible before any slot is overwritten
+    VarHandle.storeStoreFence();
+    return seq;
+  }
+
+  /**
+   * Publishes the sequences claimed by the matching {@link #beginWrite(int)}.
+   */
+  protected final void endWrite(long seq, int len) {
+    next = seq + len;
+    published.set(next);
+  }
+
+  protected final long acquirePublished() {
+    return published.get();
+  }
+
+  /**
+   * Checks after reading that the latest {@code n} values as of {@code publishedSeq} were not being overwritten.
+   *
+   * @return true if the values read are consistent
+   */
+  protected final boolean validate(long publishedSeq, int n) {
+    // the slot reads must complete before the claimed sequence is read
+    VarHandle.loadLoadFence();
+    return claimed.get() - publishedSeq <= size - n;
+  }
+
+  protected final int slotOf(long seq) {
+    return (int) (seq % size);
+  }
+
+  protected final void checkLatestNInput(int n, long publishedSeq) {
+    if (n <= 0)
+      throw new IllegalArgumentException(
+              "n must be greater than 0. n=1 means \"the latest\", n=2 means \"the second latest\"");
+
+    long count = Math.min(size, publishedSeq);
+    if (n > count)
+      throw new IndexOutOfBoundsException("Only " + count + " elements in buffer, but wanted " + n + " items");
+  }
+}
@@ -0,0 +1,22 @@
+package com.ricequant.rqboot.lang.buffer;
+
+/**
+ * Reductions over a contiguous array range, the building block of {@link WindowKernels}.
+ *
+ * @author chenfeng
+ */
+interface ArrayKernels {
+
+  double sum(double[] a, int from, int len);
+
+  /**
+   * @return the sum of {@code a[from + i] * w[wFrom + i]} for i in [0, len)
+   */
+  double dot(double[] a, int from, double[] w, int wFrom, int len);
+
+  double min(double[] a, int from, int len);
+
+  double max(double[] a, int from, int len);
+
+  int countAbove(double[] a, int from, int len, double threshold);
+}
@@ -0,0 +1,143 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import com.ricequant.rqboot.lang.DateTimeHelper;
+
+import java.util.Arrays;
+
+/**
+ * Builds open/high/low/close/volume bars of several resolutions at once from a stream of ticks, writing them into one
+ * {@link BarSeries} per resolution. Each tick costs a table lookup and an O(1) update per resolution; no bar objects
+ * are allocated.
+ * <p>
+ * Bars are aligned to the start of the trading session they belong to and never span two sessions, so the last bar of
+ * a session may be shorter than its period. For the A-share sessions 09:30-11:30 and 13:00-15:00:
+ * <pre>
+ *   BarAggregator bars = new BarAggregator(240, new int[]{93000, 113000, 130000, 150000}, 1, 5, 15);
+ *   bars.onTick(readableTimestamp, price, volume);
+ *   double lastClose = bars.series(5).closes().getLatest();
+ * </pre>
+ * Ticks from the minute a session ends, e.g. a closing auction at 15:00:00, go into the session's last bar unless
+ * another session starts at that minute. Ticks outside all sessions, and ticks older than the latest bar, are dropped.
+ * Sessions lie within one day; split a night session that crosses midnight in two, e.g. 21:00-24:00 and 00:00-02:30.
+ * <p>
+ * Not thread safe.
+ *
+ * @author chenfeng
+ */
+public class BarAggregator {
+
+  private static final int MINUTES_PER_DAY = 24 * 60;
+
+  private final BarSeries[] series;
+
+  // per resolution, the end minute of the bar containing each minute of the day, or -1 outside the sessions
+  private final int[][] barEnds;
+
+  /**
+   * @param capacity      the number of bars kept per resolution
+   * @param sessions      start and end times of the trading sessions in HHMMSS format, in pairs and in order, e.g.
+   *                      {@code {93000, 113000, 130000, 150000}}; seconds must be 0 and 240000 ends the day
+   * @param periodMinutes the bar resolutions in minutes
+   */
+  public BarAggregator(int capacity, int[] sessions, int... periodMinutes) {
+    if (sessions.length == 0 || sessions.length % 2 != 0) {
+      throw new IllegalArgumentException(
+              "Sessions must be non-empty start and end pairs: " + Arrays.toString(sessions));
+    }
+    if (periodMinutes.length == 0) {
+      throw new IllegalArgumentException("At least one resolution is required");
+    }
+
+    int[] bounds = new int[sessions.length];
+    for (int i = 0; i < sessions.length; i++) {
+      int time = sessions[i];
+      if (time < 0 || time > 240000 || time % 100 != 0 || time / 100 % 100 >= 60) {
+        throw new IllegalArgumentException("Invalid session time: " + time);
+      }
+      bounds[i] = (int) (DateTimeHelper.secondCounts(time) / 60);
+      if (i > 0 && bounds[i] < bounds[i - 1] || i % 2 == 1 && bounds[i] == bounds[i - 1]) {
+        throw new IllegalArgumentException("Sessions must be non-empty and in order: " + Arrays.toString(sessions));
+      }
+    }
+
+    this.series = new BarSeries[periodMinutes.length];
+    this.barEnds = new int[periodMinutes.length][];
+    for (int r = 0; r < periodMinutes.length; r++) {
+      int period = periodMinutes[r];
+      if (period <= 0) {
+        throw new IllegalArgumentException("Period must be positive, got: " + period);
+      }
+      for (int i = 0; i < r; i++) {
+        if (periodMinutes[i] == period) {
+          throw new IllegalArgumentException("Duplicate period: " + period);
+        }
+      }
+
+      series[r] = new BarSeries(period, capacity);
+      barEnds[r] = buildBarEnds(bounds, period);
+    }
+  }
+
+  private static int[] buildBarEnds(int[] bounds, int period) {
+    int[] ends = new int[MINUTES_PER_DAY + 1];
+    Arrays.fill(ends, -1);
+    for (int s = 0; s < bounds.length; s += 2) {
+      int start = bounds[s];
+      int end = bounds[s + 1];
+      for (int minute = start; minute < end; minute++)
+        ends[minute] = Math.min(start + ((minute - start) / period + 1) * period, end);
+      // a later session starting at this minute overwrites it
+      ends[end] = end;
+    }
+    return ends;
+  }
+
+  /**
+   * Adds a tick to the bars of every resolution.
+   *
+   * @param readableTimestamp tick time in YYYYMMDDHHMMSSmmm format
+   * @param price             traded price
+   * @param volume            volume traded by this tick, not the cumulative volume of the day
+   * @return true if the tick was added, false if it was outside the sessions or older than the latest bar
+   */
+  public boolean onTick(long readableTimestamp, double price, double volume) {
+    int minute = DateTimeHelper.countMinutes(readableTimestamp);
+    // every resolution covers the same minutes
+    if (barEnds[0][minute] < 0)
+      return false;
+
+    long day = (long) DateTimeHelper.getDate(readableTimestamp) * 1_000_000_000L;
+    for (int r = 0; r < series.length; r++) {
+      if (series[r].endsAfter(barTime(day, barEnds[r][minute])))
+        return false;
+    }
+    for (int r = 0; r < series.length; r++)
+      series[r].update(barTime(day, barEnds[r][minute]), price, volume);
+    return true;
+  }
+
+  /**
+   * Returns the bars of the given resolution.
+   *
+   * @throws IllegalArgumentException if the aggregator has no such resolution
+   */
+  public BarSeries series(int periodMinutes) {
+    for (BarSeries s : series) {
+      if (s.periodMinutes() == periodMinutes)
+        return s;
+    }
+    throw new IllegalArgumentException("No bars of " + periodMinutes + " minutes");
+  }
+
+  private static long barTime(long day, int endMinute) {
+    return day + DateTimeHelper.minutesCountToTime(endMinute) * 100_000L;
+  }
+
+  /**
+   * Removes all bars, e.g. before replaying another day.
+   */
+  public void clear() {
+    for (BarSeries s : series)
+      s.clear();
+  }
+}
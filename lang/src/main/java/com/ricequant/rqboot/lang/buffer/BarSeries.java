@@ -0,0 +1,145 @@
+package com.ricequant.rqboot.lang.buffer;
+
+/**
+ * The bars of one resolution built by a {@link BarAggregator}, stored column by column in primitive ring buffers: one
+ * for the bar times and one each for open, high, low, close and volume. The n-th latest bar is at position n in every
+ * column, and the latest bar may still be forming.
+ * <p>
+ * Bar times are readable timestamps (YYYYMMDDHHMMSSmmm) of the end of each bar, e.g. 20231016093100000 for the bar
+ * covering 09:30 to 09:31. The columns are handed out as read-only views of the underlying ring buffers, which can be
+ * read in place, e.g. with {@link WindowKernels}.
+ *
+ * @author chenfeng
+ */
+public class BarSeries {
+
+  private final int periodMinutes;
+
+  private final LongRingBuffer times;
+
+  private final DoubleRingBuffer opens;
+
+  private final DoubleRingBuffer highs;
+
+  private final DoubleRingBuffer lows;
+
+  private final DoubleRingBuffer closes;
+
+  private final DoubleRingBuffer volumes;
+
+  BarSeries(int periodMinutes, int capacity) {
+    this.periodMinutes = periodMinutes;
+    this.times = new LongRingBuffer(capacity);
+    this.opens = new DoubleRingBuffer(capacity);
+    this.highs = new DoubleRingBuffer(capacity);
+    this.lows = new DoubleRingBuffer(capacity);
+    this.closes = new DoubleRingBuffer(capacity);
+    this.volumes = new DoubleRingBuffer(capacity);
+  }
+
+  /**
+   * Returns true if the latest bar ends later than {@code barTime}, so a tick for that bar comes too late.
+   */
+  boolean endsAfter(long barTime) {
+    return times.count() > 0 && times.getLatest() > barTime;
+  }
+
+  /**
+   * Adds a tick to the bar ending at {@code barTime}, starting that bar if the latest bar ends earlier.
+   */
+  void update(long barTime, double price, double volume) {
+    if (times.count() > 0 && times.getLatest() == barTime) {
+      if (price > highs.getLatest())
+        highs.setLatest(price);
+      if (price < lows.getLatest())
+        lows.setLatest(price);
+      closes.setLatest(price);
+      volumes.setLatest(volumes.getLatest() + volume);
+      return;
+    }
+
+    times.append(barTime);
+    opens.append(price);
+    highs.append(price);
+    lows.append(price);
+    closes.append(price);
+    volumes.append(volume);
+  }
+
+  void clear() {
+    times.clear();
+    opens.clear();
+    highs.clear();
+    lows.clear();
+    closes.clear();
+    volumes.clear();
+  }
+
+  public final int periodMinutes() {
+    return periodMinutes;
+  }
+
+  /**
+   * Returns the maximum number of bars kept.
+   *
+   * @return the capacity of each column
+   */
+  public final int size() {
+    return times.size();
+  }
+
+  /**
+   * Returns the number of bars kept, including the one still forming.
+   *
+   * @return the count of bars
+   */
+  public int count() {
+    return times.count();
+  }
+
+  public LongRingBuffer.ReadOnlyView times() {
+    return times.readOnlyView();
+  }
+
+  public DoubleRingBuffer.ReadOnlyView opens() {
+    return opens.readOnlyView();
+  }
+
+  public DoubleRingBuffer.ReadOnlyView highs() {
+    return highs.readOnlyView();
+  }
+
+  public DoubleRingBuffer.ReadOnlyView lows() {
+    return lows.readOnlyView();
+  }
+
+  public DoubleRingBuffer.ReadOnlyView closes() {
+    return closes.readOnlyView();
+  }
+
+  public DoubleRingBuffer.ReadOnlyView volumes() {
+    return volumes.readOnlyView();
+  }
+
+  /**
+   * Copies the latest {@code k} bars into the given arrays in chronological order, without allocating. Pass null for
+   * any column that is not needed.
+   *
+   * @throws IllegalArgumentException if k is invalid or an array is too small
+   */
+  public void copyLatest(int k, long[] barTimes, double[] open, double[] high, double[] low, double[] close,
+          double[] volume) {
+    if (barTimes != null)
+      times.copyLatestN(barTimes, k);
+    if (open != null)
+      opens.copyLatestN(open, k);
+    if (high != null)
+      highs.copyLatestN(high, k);
+    if (low != null)
+      lows.copyLatestN(low, k);
+    if (close != null)
+      closes.copyLatestN(close, k);
+    if (volume != null)
+      volumes.copyLatestN(volume, k);
+  }
+}
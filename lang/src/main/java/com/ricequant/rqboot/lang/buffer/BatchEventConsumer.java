@@ -0,0 +1,78 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import com.ricequant.rqboot.lang.container.SingleWriterSequence;
+
+/**
+ * Consumes the events of an {@link EventRingBuffer} in batches: each wake-up hands every event published so far to
+ * the handler and then releases all their slots back to producers with a single release store. Created by
+ * {@link EventRingBuffer#newConsumer(IEventHandler)}; must be driven by one thread at a time.
+ *
+ * @author chenfeng
+ */
+public class BatchEventConsumer<E> implements Runnable {
+
+  private final EventRingBuffer<E> ring;
+
+  // the next sequence to process; producers wait for it before reusing a slot
+  private final SingleWriterSequence sequence;
+
+  private final IEventHandler<? super E> handler;
+
+  private volatile boolean running = true;
+
+  BatchEventConsumer(EventRingBuffer<E> ring, SingleWriterSequence sequence, IEventHandler<? super E> handler) {
+    this.ring = ring;
+    this.sequence = sequence;
+    this.handler = handler;
+  }
+
+  /**
+   * Processes events until {@link #halt()} is called, waiting with the ring's {@link WaitStrategy} when there are none.
+   * If the handler throws, the loop stops with the failing event not yet released.
+   */
+  @Override
+  public void run() {
+    int attempt = 0;
+    while (running) {
+      if (poll() > 0)
+        attempt = 0;
+      else
+        ring.idle(attempt++);
+    }
+  }
+
+  /**
+   * Processes the events published so far, without waiting.
+   *
+   * @return the number of events processed
+   */
+  public int poll() {
+    long next = sequence.get();
+    long available = ring.highestPublished(next);
+    if (available < next)
+      return 0;
+
+    for (long s = next; s <= available; s++)
+      handler.onEvent(ring.get(s), s, s == available);
+    sequence.set(available + 1);
+    return (int) (available - next + 1);
+  }
+
+  /**
+   * Stops {@link #run()} after the current batch.
+   */
+  public void halt() {
+    running = false;
+  }
+
+  /**
+   * @return the number of events processed so far, including any before this consumer was created
+   */
+  public long processed() {
+    return sequence.get();
+  }
+
+  final SingleWriterSequence sequence() {
+    return sequence;
+  }
+}
@@ -1,5 +1,6 @@
 package com.ricequant.rqboot.lang.buffer;
 
+import java.util.Objects;
 import java.util.function.DoubleConsumer;
 
 /**
@@ -8,6 +9,8 @@ import java.util.function.DoubleConsumer;
  * <p>
  * The buffer maintains a fixed capacity and overwrites the oldest values when full.
  * All values are initially 0.0.
+ * <p>
+ * {@link LongRingBuffer} and {@link IntRingBuffer} are generated from this class by generate-ring-buffers.sh.
  *
  * @author kangol
  */
@@ -21,6 +24,8 @@ public class DoubleRingBuffer {
 
   private int count;
 
+  private ReadOnlyView readOnlyView;
+
   /**
    * Creates a new DoubleRingBuffer with the specified size.
    * All values are initialized to 0.0.
@@ -62,6 +67,19 @@ public class DoubleRingBuffer {
     return buffer[last];
   }
 
+  /**
+   * Replaces the most recently added value, e.g. to update an aggregate that is still being built.
+   *
+   * @param value the new latest value
+   * @throws IllegalStateException if buffer is empty
+   */
+  public void setLatest(double value) {
+    if (count == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+    buffer[last] = value;
+  }
+
   /**
    * Returns the oldest value in the buffer (first to be overwritten).
    *
@@ -83,6 +101,21 @@ public class DoubleRingBuffer {
     return buffer[index];
   }
 
+  /**
+   * Returns a view that can read this buffer but not modify it, for handing the buffer to code that must not append
+   * to it. The view sees every later change to the buffer.
+   *
+   * @return the read-only view
+   */
+  public ReadOnlyView readOnlyView() {
+    ReadOnlyView view = readOnlyView;
+    if (view == null) {
+      view = new ReadOnlyView(this);
+      readOnlyView = view;
+    }
+    return view;
+  }
+
   /**
    * Appends a value to the buffer, overwriting the oldest value if full.
    *
@@ -103,6 +136,29 @@ public class DoubleRingBuffer {
     return oldValue;
   }
 
+  /**
+   * Appends {@code len} values from {@code src} in order, with the same result as appending them one by one.
+   * At most two {@link System#arraycopy} calls are made; if {@code len} exceeds the buffer size, only the values that
+   * would survive are copied.
+   *
+   * @param src the values to append
+   * @param off index of the first value in {@code src}
+   * @param len number of values to append
+   * @throws IndexOutOfBoundsException if the range is outside {@code src}
+   */
+  public void append(double[] src, int off, int len) {
+    Objects.checkFromIndexSize(off, len, src.length);
+    if (len == 0)
+      return;
+
+    int skipped = Math.max(0, len - size);
+    int start = (int) ((last + 1L + skipped) % size);
+    copyIn(src, off + skipped, start, len - skipped);
+
+    this.last = (int) ((last + (long) len) % size);
+    this.count = (int) Math.min(size, (long) count + len);
+  }
+
   /**
    * Returns the maximum capacity of the buffer.
    *
@@ -163,13 +219,12 @@ public class DoubleRingBuffer {
     if (startIndex < 0)
       startIndex += size;
 
-    for (int i = 0; i < n; i++) {
-      int index = startIndex + i;
-      if (index >= size)
-        index -= size;
-
-      consumer.accept(buffer[index]);
-    }
+    // two runs, up to the end of the array and then from its start, so the loops need no wrap check
+    int end = Math.min(size, startIndex + n);
+    for (int i = startIndex; i < end; i++)
+      consumer.accept(buffer[i]);
+    for (int i = 0; i < n - (end - startIndex); i++)
+      consumer.accept(buffer[i]);
   }
 
   /**
@@ -193,14 +248,53 @@ public class DoubleRingBuffer {
     if (startIndex < 0)
       startIndex += size;
 
-    for (int i = 0; i < n; i++) {
-      int index = startIndex + i;
-      if (index >= size)
-        index -= size;
-      dest[i] = buffer[index];
-    }
+    copyOut(startIndex, dest, 0, n);
+  }
+
+  /**
+   * Copies {@code len} slots starting at slot {@code from}, wrapping at the end, as at most two array copies.
+   */
+  private void copyOut(int from, double[] dest, int destOff, int len) {
+    int first = Math.min(len, size - from);
+    System.arraycopy(buffer, from, dest, destOff, first);
+    if (first < len)
+      System.arraycopy(buffer, 0, dest, destOff + first, len - first);
+  }
+
+  /**
+   * Writes {@code len} values into the slots starting at slot {@code to}, wrapping at the end, as at most two array
+   * copies.
+   */
+  private void copyIn(double[] src, int srcOff, int to, int len) {
+    int first = Math.min(len, size - to);
+    System.arraycopy(src, srcOff, buffer, to, first);
+    if (first < len)
+      System.arraycopy(src, srcOff + first, buffer, 0, len - first);
+  }
+
+  // double only: the generated buffers drop everything from here to the matching end line
+  /**
+   * Returns the backing array, for {@link WindowKernels} to read windows in place.
+   */
+  final double[] array() {
+    return buffer;
   }
 
+  /**
+   * Returns the array index of the oldest of the latest n values.
+   *
+   * @throws IllegalArgumentException if n is invalid
+   */
+  final int latestNStart(int n) {
+    checkLatestNInput(n, n);
+
+    int startIndex = last - n + 1;
+    if (startIndex < 0)
+      startIndex += size;
+    return startIndex;
+  }
+  // double only: end
+
   private void checkLatestNInput(int n, int length) {
     if (n <= 0)
       throw new IllegalArgumentException(
@@ -215,4 +309,49 @@ public class DoubleRingBuffer {
     if (n < length)
       throw new IndexOutOfBoundsException("length must be less than or equal to n");
   }
+
+  /**
+   * The reading methods of a {@link DoubleRingBuffer}, which behave as on the buffer itself. See
+   * {@link #readOnlyView()}.
+   */
+  public static final class ReadOnlyView {
+
+    final DoubleRingBuffer buffer;
+
+    ReadOnlyView(DoubleRingBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    public int size() {
+      return buffer.size();
+    }
+
+    public int count() {
+      return buffer.count();
+    }
+
+    public boolean isFull() {
+      return buffer.isFull();
+    }
+
+    public double getLatest() {
+      return buffer.getLatest();
+    }
+
+    public double getOldest() {
+      return buffer.getOldest();
+    }
+
+    public double getLatestNthItem(int n) {
+      return buffer.getLatestNthItem(n);
+    }
+
+    public void forLatestNItems(int n, DoubleConsumer consumer) {
+      buffer.forLatestNItems(n, consumer);
+    }
+
+    public void copyLatestN(double[] dest, int n) {
+      buffer.copyLatestN(dest, n);
+    }
+  }
 }
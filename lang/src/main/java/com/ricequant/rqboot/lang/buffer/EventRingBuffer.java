@@ -0,0 +1,272 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import com.ricequant.rqboot.lang.container.PaddedAtomicLong;
+import com.ricequant.rqboot.lang.container.SingleWriterSequence;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * An inter-thread queue of preallocated, mutable events, in the style of the LMAX Disruptor. Like
+ * {@link ObjectRingBuffer#ObjectRingBuffer(int, Supplier)} every slot is filled up front; producers claim a sequence,
+ * fill the event in that slot in place and publish it, so passing a message allocates nothing and takes no lock.
+ * <p>
+ * Each {@link BatchEventConsumer} sees every event in sequence order and processes all available events as one batch.
+ * Producers never overwrite an event that a consumer has not processed yet: when the ring is full they wait using the
+ * ring's {@link WaitStrategy}. Create all consumers before the first event is published.
+ * <p>
+ * Publishing with {@link #publishEvent(BiConsumer, Object)} and a non-capturing translator is the simplest garbage
+ * free path:
+ * <pre>
+ *   ring.publishEvent((event, tick) -&gt; event.set(tick), tick);
+ * </pre>
+ * For more control use {@link #next()}, {@link #get(long)} and {@link #publish(long)}, always publishing a claimed
+ * sequence, even if filling the event failed.
+ *
+ * @author chenfeng
+ */
+public class EventRingBuffer<E> {
+
+  private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+  private final Object[] events;
+
+  private final int mask;
+
+  private final int indexShift;
+
+  private final ProducerMode producerMode;
+
+  private final WaitStrategy waitStrategy;
+
+  // the next sequence to claim; written by the only producer in SINGLE mode, by CAS in MULTI mode
+  private final PaddedAtomicLong claimCursor = new PaddedAtomicLong();
+
+  // SINGLE mode: the number of published events
+  private final SingleWriterSequence publishCursor = new SingleWriterSequence();
+
+  // MULTI mode: per slot, the round (sequence / size) of the event last published in it
+  private final int[] available;
+
+  // producer-side cache of the slowest consumer, to avoid scanning consumer sequences on every claim
+  private final PaddedAtomicLong gatingCache = new PaddedAtomicLong();
+
+  private volatile SingleWriterSequence[] consumerSequences = new SingleWriterSequence[0];
+
+  /**
+   * @param size
+   *         number of slots, must be a power of two
+   * @param eventFactory
+   *         creates the event held by each slot, called {@code size} times
+   */
+  public EventRingBuffer(int size, Supplier<E> eventFactory, ProducerMode producerMode, WaitStrategy waitStrategy) {
+    if (size <= 0 || Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("Size must be a positive power of two, got: " + size);
+    }
+    this.events = new Object[size];
+    for (int i = 0; i < size; i++)
+      events[i] = eventFactory.get();
+    this.mask = size - 1;
+    this.indexShift = Integer.numberOfTrailingZeros(size);
+    this.producerMode = producerMode;
+    this.waitStrategy = waitStrategy;
+    if (producerMode == ProducerMode.MULTI) {
+      this.available = new int[size];
+      Arrays.fill(available, -1);
+    }
+    else {
+      this.available = null;
+    }
+  }
+
+  public final int size() {
+    return events.length;
+  }
+
+  public final ProducerMode producerMode() {
+    return producerMode;
+  }
+
+  public final WaitStrategy waitStrategy() {
+    return waitStrategy;
+  }
+
+  /**
+   * Creates a consumer that will see every event published from now on. Run it on its own thread, see
+   * {@link BatchEventConsumer#run()}, or drive it with {@link BatchEventConsumer#poll()}.
+   */
+  public synchronized BatchEventConsumer<E> newConsumer(IEventHandler<? super E> handler) {
+    SingleWriterSequence sequence = new SingleWriterSequence(claimCursor.get());
+    SingleWriterSequence[] sequences = Arrays.copyOf(consumerSequences, consumerSequences.length + 1);
+    sequences[sequences.length - 1] = sequence;
+    consumerSequences = sequences;
+    return new BatchEventConsumer<>(this, sequence, handler);
+  }
+
+  /**
+   * Removes a consumer, so producers no longer wait for it. Halt it first.
+   */
+  public synchronized void removeConsumer(BatchEventConsumer<E> consumer) {
+    SingleWriterSequence[] sequences = consumerSequences;
+    for (int i = 0; i < sequences.length; i++) {
+      if (sequences[i] == consumer.sequence()) {
+        SingleWriterSequence[] remaining = new SingleWriterSequence[sequences.length - 1];
+        System.arraycopy(sequences, 0, remaining, 0, i);
+        System.arraycopy(sequences, i + 1, remaining, i, remaining.length - i);
+        consumerSequences = remaining;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Claims the next slot, waiting while the ring is full.
+   *
+   * @return the claimed sequence
+   */
+  public long next() {
+    return next(1);
+  }
+
+  /**
+   * Claims the next {@code n} slots, waiting while the ring is full.
+   *
+   * @return the first claimed sequence; the claim covers it and the following {@code n - 1} sequences
+   */
+  public long next(int n) {
+    if (n < 1 || n > events.length) {
+      throw new IllegalArgumentException("n must be in [1, " + events.length + "], got: " + n);
+    }
+
+    if (producerMode == ProducerMode.SINGLE) {
+      long first = claimCursor.getPlain();
+      awaitCapacity(first + n);
+      claimCursor.setPlain(first + n);
+      return first;
+    }
+
+    int attempt = 0;
+    while (true) {
+      long first = claimCursor.get();
+      long end = first + n;
+      if (end - events.length > gatingCache.get()) {
+        long slowest = slowestConsumer(first);
+        if (end - events.length > slowest) {
+          waitStrategy.idle(attempt++);
+          continue;
+        }
+        gatingCache.set(slowest);
+      }
+      if (claimCursor.compareAndSet(first, end))
+        return first;
+    }
+  }
+
+  /**
+   * @return the event in the slot of {@code sequence}, to be filled between claiming and publishing it
+   */
+  @SuppressWarnings("unchecked")
+  public final E get(long sequence) {
+    return (E) events[(int) sequence & mask];
+  }
+
+  /**
+   * Makes the event at a claimed sequence visible to consumers.
+   */
+  public void publish(long sequence) {
+    if (producerMode == ProducerMode.SINGLE)
+      publishCursor.set(sequence + 1);
+    else
+      AVAILABLE.setRelease(available, (int) sequence & mask, (int) (sequence >>> indexShift));
+  }
+
+  /**
+   * Publishes the claimed sequences {@code first} to {@code last} inclusive.
+   */
+  public void publish(long first, long last) {
+    if (producerMode == ProducerMode.SINGLE) {
+      publishCursor.set(last + 1);
+      return;
+    }
+
+    for (long sequence = first; sequence <= last; sequence++)
+      AVAILABLE.setRelease(available, (int) sequence & mask, (int) (sequence >>> indexShift));
+  }
+
+  /**
+   * Claims a slot, lets {@code translator} fill its event from {@code arg} and publishes it.
+   */
+  public <A> void publishEvent(BiConsumer<? super E, A> translator, A arg) {
+    long sequence = next();
+    try {
+      translator.accept(get(sequence), arg);
+    }
+    finally {
+      publish(sequence);
+    }
+  }
+
+  /**
+   * Claims a slot, lets {@code translator} fill its event from a primitive {@code arg} without boxing it and publishes
+   * it.
+   */
+  public void publishEvent(ObjLongConsumer<? super E> translator, long arg) {
+    long sequence = next();
+    try {
+      translator.accept(get(sequence), arg);
+    }
+    finally {
+      publish(sequence);
+    }
+  }
+
+  /**
+   * @return the number of sequences claimed so far, published or not
+   */
+  public final long claimed() {
+    return claimCursor.get();
+  }
+
+  /**
+   * @return the highest sequence from {@code from} on up to which every event is published, or {@code from - 1} if
+   * the event at {@code from} is not published yet
+   */
+  final long highestPublished(long from) {
+    if (producerMode == ProducerMode.SINGLE)
+      return publishCursor.get() - 1;
+
+    long claimed = claimCursor.get();
+    for (long sequence = from; sequence < claimed; sequence++) {
+      if ((int) AVAILABLE.getAcquire(available, (int) sequence & mask) != (int) (sequence >>> indexShift))
+        return sequence - 1;
+    }
+    return claimed - 1;
+  }
+
+  final void idle(int attempt) {
+    waitStrategy.idle(attempt);
+  }
+
+  private void awaitCapacity(long end) {
+    long wrapPoint = end - events.length;
+    if (wrapPoint <= gatingCache.getPlain())
+      return;
+
+    int attempt = 0;
+    long slowest;
+    while (wrapPoint > (slowest = slowestConsumer(end)))
+      waitStrategy.idle(attempt++);
+    gatingCache.setPlain(slowest);
+  }
+
+  private long slowestConsumer(long defaultValue) {
+    long slowest = defaultValue;
+    for (SingleWriterSequence sequence : consumerSequences)
+      slowest = Math.min(slowest, sequence.get());
+    return slowest;
+  }
+}
@@ -0,0 +1,17 @@
+package com.ricequant.rqboot.lang.buffer;
+
+/**
+ * @author chenfeng
+ */
+@FunctionalInterface
+public interface IEventHandler<E> {
+
+  /**
+   * Called for every published event in sequence order. The event is a reused slot of the ring: copy out anything
+   * needed after returning.
+   *
+   * @param endOfBatch
+   *         true for the last event currently available, a good point to flush work batched across events
+   */
+  void onEvent(E event, long sequence, boolean endOfBatch);
+}
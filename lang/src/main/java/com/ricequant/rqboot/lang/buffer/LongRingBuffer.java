@@ -0,0 +1,334 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * A fixed-size circular buffer optimized for primitive long values.
+ * This class provides efficient storage and retrieval of long values without boxing overhead.
+ * <p>
+ * The buffer maintains a fixed capacity and overwrites the oldest values when full.
+ * All values are initially 0.
+ * <p>
+ * Generated from {@link DoubleRingBuffer} by generate-ring-buffers.sh, do not edit.
+ *
+ * @author kangol
+ */
+public class LongRingBuffer {
+
+  private final int size;
+
+  private final long[] buffer;
+
+  private int last;
+
+  private int count;
+
+  private ReadOnlyView readOnlyView;
+
+  /**
+   * Creates a new LongRingBuffer with the specified size.
+   * All values are initialized to 0.
+   *
+   * @param size the capacity of the buffer, must be positive
+   */
+  public LongRingBuffer(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size must be positive, got: " + size);
+    }
+    this.size = size;
+    this.buffer = new long[this.size];
+    this.last = -1;
+    this.count = 0;
+  }
+
+  /**
+   * Clears the buffer, resetting count to 0.
+   * All values are reset to 0.
+   */
+  public void clear() {
+    for (int i = 0; i < buffer.length; i++) {
+      buffer[i] = 0;
+    }
+    this.last = -1;
+    this.count = 0;
+  }
+
+  /**
+   * Returns the most recently added value.
+   *
+   * @return the latest value
+   * @throws IllegalStateException if buffer is empty
+   */
+  public long getLatest() {
+    if (count == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+    return buffer[last];
+  }
+
+  /**
+   * Replaces the most recently added value, e.g. to update an aggregate that is still being built.
+   *
+   * @param value the new latest value
+   * @throws IllegalStateException if buffer is empty
+   */
+  public void setLatest(long value) {
+    if (count == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+    buffer[last] = value;
+  }
+
+  /**
+   * Returns the oldest value in the buffer (first to be overwritten).
+   *
+   * @return the oldest value
+   * @throws IllegalStateException if buffer is empty
+   */
+  public long getOldest() {
+    if (count == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+    // If buffer is not full, oldest is at index 0
+    // If buffer is full, oldest is at (last + 1) % size
+    if (count < size) {
+      return buffer[0];
+    }
+    int index = last + 1;
+    if (index >= size)
+      index -= size;
+    return buffer[index];
+  }
+
+  /**
+   * Returns a view that can read this buffer but not modify it, for handing the buffer to code that must not append
+   * to it. The view sees every later change to the buffer.
+   *
+   * @return the read-only view
+   */
+  public ReadOnlyView readOnlyView() {
+    ReadOnlyView view = readOnlyView;
+    if (view == null) {
+      view = new ReadOnlyView(this);
+      readOnlyView = view;
+    }
+    return view;
+  }
+
+  /**
+   * Appends a value to the buffer, overwriting the oldest value if full.
+   *
+   * @param value the value to append
+   * @return the old value that was overwritten, or 0 if buffer wasn't full
+   */
+  public long append(long value) {
+    last += 1;
+    if (last >= size)
+      last = last - size;
+
+    long oldValue = buffer[last];
+    buffer[last] = value;
+
+    if (count < size)
+      count++;
+
+    return oldValue;
+  }
+
+  /**
+   * Appends {@code len} values from {@code src} in order, with the same result as appending them one by one.
+   * At most two {@link System#arraycopy} calls are made; if {@code len} exceeds the buffer size, only the values that
+   * would survive are copied.
+   *
+   * @param src the values to append
+   * @param off index of the first value in {@code src}
+   * @param len number of values to append
+   * @throws IndexOutOfBoundsException if the range is outside {@code src}
+   */
+  public void append(long[] src, int off, int len) {
+    Objects.checkFromIndexSize(off, len, src.length);
+    if (len == 0)
+      return;
+
+    int skipped = Math.max(0, len - size);
+    int start = (int) ((last + 1L + skipped) % size);
+    copyIn(src, off + skipped, start, len - skipped);
+
+    this.last = (int) ((last + (long) len) % size);
+    this.count = (int) Math.min(size, (long) count + len);
+  }
+
+  /**
+   * Returns the maximum capacity of the buffer.
+   *
+   * @return the buffer size
+   */
+  public final int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of elements actually added (0 to size).
+   * Once full, this will always return size.
+   *
+   * @return the count of elements in the buffer
+   */
+  public int count() {
+    return count;
+  }
+
+  /**
+   * Returns true if the buffer has been filled to capacity at least once.
+   *
+   * @return true if buffer is full
+   */
+  public boolean isFull() {
+    return count >= size;
+  }
+
+  /**
+   * Returns the nth most recent item.
+   *
+   * @param n position from latest (1 = latest, 2 = second latest, etc.)
+   * @return the value at position n
+   * @throws IllegalArgumentException if n is invalid
+   * @throws IndexOutOfBoundsException if n exceeds buffer size
+   */
+  public long getLatestNthItem(int n) {
+    checkLatestNInput(n, n);
+
+    int index = last - n + 1;
+    if (index < 0)
+      index += size;
+
+    return buffer[index];
+  }
+
+  /**
+   * Iterates over the latest n items in chronological order (oldest to newest).
+   *
+   * @param n number of items to iterate
+   * @param consumer the consumer to accept each value
+   * @throws IllegalArgumentException if n is invalid
+   */
+  public void forLatestNItems(int n, LongConsumer consumer) {
+    checkLatestNInput(n, n);
+
+    int startIndex = last - n + 1;
+    if (startIndex < 0)
+      startIndex += size;
+
+    // two runs, up to the end of the array and then from its start, so the loops need no wrap check
+    int end = Math.min(size, startIndex + n);
+    for (int i = startIndex; i < end; i++)
+      consumer.accept(buffer[i]);
+    for (int i = 0; i < n - (end - startIndex); i++)
+      consumer.accept(buffer[i]);
+  }
+
+  /**
+   * Copies the latest n values to the provided array in chronological order.
+   *
+   * @param dest destination array (must be at least n elements)
+   * @param n number of values to copy
+   * @throws IllegalArgumentException if n is invalid or dest is too small
+   */
+  public void copyLatestN(long[] dest, int n) {
+    if (dest == null) {
+      throw new IllegalArgumentException("Destination array cannot be null");
+    }
+    if (dest.length < n) {
+      throw new IllegalArgumentException("Destination array too small: " + dest.length + " < " + n);
+    }
+
+    checkLatestNInput(n, n);
+
+    int startIndex = last - n + 1;
+    if (startIndex < 0)
+      startIndex += size;
+
+    copyOut(startIndex, dest, 0, n);
+  }
+
+  /**
+   * Copies {@code len} slots starting at slot {@code from}, wrapping at the end, as at most two array copies.
+   */
+  private void copyOut(int from, long[] dest, int destOff, int len) {
+    int first = Math.min(len, size - from);
+    System.arraycopy(buffer, from, dest, destOff, first);
+    if (first < len)
+      System.arraycopy(buffer, 0, dest, destOff + first, len - first);
+  }
+
+  /**
+   * Writes {@code len} values into the slots starting at slot {@code to}, wrapping at the end, as at most two array
+   * copies.
+   */
+  private void copyIn(long[] src, int srcOff, int to, int len) {
+    int first = Math.min(len, size - to);
+    System.arraycopy(src, srcOff, buffer, to, first);
+    if (first < len)
+      System.arraycopy(src, srcOff + first, buffer, 0, len - first);
+  }
+
+  private void checkLatestNInput(int n, int length) {
+    if (n <= 0)
+      throw new IllegalArgumentException(
+              "n must be greater than 0. n=1 means \"the latest\", n=2 means \"the second latest\"");
+
+    if (n > count)
+      throw new IndexOutOfBoundsException("Only " + count + " elements in buffer, but wanted " + n + " items");
+
+    if (length <= 0)
+      throw new IllegalArgumentException("length must be greater than 0");
+
+    if (n < length)
+      throw new IndexOutOfBoundsException("length must be less than or equal to n");
+  }
+
+  /**
+   * The reading methods of a {@link LongRingBuffer}, which behave as on the buffer itself. See
+   * {@link #readOnlyView()}.
+   */
+  public static final class ReadOnlyView {
+
+    final LongRingBuffer buffer;
+
+    ReadOnlyView(LongRingBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    public int size() {
+      return buffer.size();
+    }
+
+    public int count() {
+      return buffer.count();
+    }
+
+    public boolean isFull() {
+      return buffer.isFull();
+    }
+
+    public long getLatest() {
+      return buffer.getLatest();
+    }
+
+    public long getOldest() {
+      return buffer.getOldest();
+    }
+
+    public long getLatestNthItem(int n) {
+      return buffer.getLatestNthItem(n);
+    }
+
+    public void forLatestNItems(int n, LongConsumer consumer) {
+      buffer.forLatestNItems(n, consumer);
+    }
+
+    public void copyLatestN(long[] dest, int n) {
+      buffer.copyLatestN(dest, n);
+    }
+  }
+}
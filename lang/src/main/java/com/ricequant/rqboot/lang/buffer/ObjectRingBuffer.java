@@ -1,6 +1,7 @@
 package com.ricequant.rqboot.lang.buffer;
 
 import java.lang.reflect.Array;
+import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -83,6 +84,28 @@ public class ObjectRingBuffer<T> {
     return oldValue;
   }
 
+  /**
+   * Appends {@code len} elements from {@code src} in order, with the same result as appending them one by one but in
+   * at most two {@link System#arraycopy} calls. If {@code len} exceeds the buffer size, only the elements that would
+   * survive are copied.
+   */
+  public void append(T[] src, int off, int len) {
+    Objects.checkFromIndexSize(off, len, src.length);
+    if (len == 0)
+      return;
+
+    int skipped = Math.max(0, len - size);
+    int start = (int) ((last + 1L + skipped) % size);
+    int copied = len - skipped;
+    int first = Math.min(copied, size - start);
+    System.arraycopy(src, off + skipped, buffer, start, first);
+    if (first < copied)
+      System.arraycopy(src, off + skipped + first, buffer, 0, copied - first);
+
+    this.last = (int) ((last + (long) len) % size);
+    this.count = (int) Math.min(size, (long) count + len);
+  }
+
   public final int size() {
     return size;
   }
@@ -153,22 +176,16 @@ public class ObjectRingBuffer<T> {
     if (startIndex < 0)
       startIndex += size;
 
-    int bufferIndex = startIndex;
-
     T[] ret = a;
     if (a.length < length)
       //noinspection unchecked
       ret = (T[]) Array.newInstance(a.getClass().getComponentType(), length);
 
-    // TODO: performance can be optimized by using System.arraycopy
-    for (int i = 0; i < length; i++) {
-      ret[i] = buffer[bufferIndex];
-
-      bufferIndex++;
-
-      if (bufferIndex == size)
-        bufferIndex = 0;
-    }
+    // at most two segments: up to the end of the array, then from its start
+    int first = Math.min(length, size - startIndex);
+    System.arraycopy(buffer, startIndex, ret, 0, first);
+    if (first < length)
+      System.arraycopy(buffer, 0, ret, first, length - first);
 
     return ret;
   }
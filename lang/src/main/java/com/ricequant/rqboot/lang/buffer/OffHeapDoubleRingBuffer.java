@@ -0,0 +1,350 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A {@link DoubleRingBuffer} whose values live outside the Java heap, for deep-history windows of millions of points
+ * that would otherwise inflate the heap and the collector's marking work. The API matches {@link DoubleRingBuffer}.
+ * <p>
+ * {@link #allocate(int)} uses anonymous direct memory. {@link #map(Path, int)} maps a file instead, and keeps the
+ * buffer's position in a small header next to the values, so a restarted process that maps the same file gets its
+ * window back immediately, without replaying history. Values reach the file through the operating system's page cache;
+ * call {@link #force()} to write them to the device, e.g. at the end of a session.
+ * <p>
+ * The off-heap memory is released when the buffer becomes unreachable; {@link #close()} only closes the file. Not
+ * thread safe.
+ *
+ * @author kangol
+ */
+public class OffHeapDoubleRingBuffer implements AutoCloseable {
+
+  private static final long MAGIC = 0x5251_4452_4231_0001L;
+
+  private static final int SIZE_OFFSET = 8;
+
+  private static final int LAST_OFFSET = 12;
+
+  private static final int COUNT_OFFSET = 16;
+
+  private static final int HEADER_BYTES = 24;
+
+  private final int size;
+
+  private final ByteBuffer memory;
+
+  private final DoubleBuffer values;
+
+  private final FileChannel channel;
+
+  private int last;
+
+  private int count;
+
+  private OffHeapDoubleRingBuffer(int size, ByteBuffer memory, FileChannel channel, boolean restore) {
+    this.size = size;
+    this.memory = memory.order(ByteOrder.LITTLE_ENDIAN);
+    this.values = this.memory.slice(HEADER_BYTES, size * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    this.channel = channel;
+    if (restore) {
+      this.last = this.memory.getInt(LAST_OFFSET);
+      this.count = this.memory.getInt(COUNT_OFFSET);
+      if (last < -1 || last >= size || count < 0 || count > size) {
+        throw new IllegalStateException("Corrupt ring buffer header: last=" + last + ", count=" + count);
+      }
+    }
+    else {
+      this.memory.putLong(0, MAGIC);
+      this.memory.putInt(SIZE_OFFSET, size);
+      this.last = -1;
+      this.count = 0;
+      writePosition();
+    }
+  }
+
+  /**
+   * Creates a buffer in direct memory. All values are initialized to 0.0.
+   *
+   * @param size the capacity of the buffer, must be positive
+   */
+  public static OffHeapDoubleRingBuffer allocate(int size) {
+    checkSize(size);
+    return new OffHeapDoubleRingBuffer(size, ByteBuffer.allocateDirect(HEADER_BYTES + size * Double.BYTES), null,
+            false);
+  }
+
+  /**
+   * Maps a buffer onto {@code file}. An existing file written by this class is reopened with its values and position;
+   * a missing or empty file is created as an empty buffer.
+   *
+   * @param file the backing file
+   * @param size the capacity of the buffer, must match the size the file was created with
+   * @throws IOException if the file cannot be opened or mapped
+   * @throws IllegalArgumentException if the file was not written by this class or has a different size
+   */
+  public static OffHeapDoubleRingBuffer map(Path file, int size) throws IOException {
+    checkSize(size);
+    long bytes = HEADER_BYTES + (long) size * Double.BYTES;
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      long existing = channel.size();
+      if (existing != 0 && existing != bytes) {
+        throw new IllegalArgumentException(
+                "File " + file + " has " + existing + " bytes, a buffer of size " + size + " needs " + bytes);
+      }
+
+      MappedByteBuffer memory = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+      memory.order(ByteOrder.LITTLE_ENDIAN);
+      boolean restore = existing != 0;
+      if (restore && (memory.getLong(0) != MAGIC || memory.getInt(SIZE_OFFSET) != size)) {
+        throw new IllegalArgumentException("File " + file + " is not a ring buffer of size " + size);
+      }
+      return new OffHeapDoubleRingBuffer(size, memory, channel, restore);
+    }
+    catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Clears the buffer, resetting count to 0.
+   * All values are reset to 0.0.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      values.put(i, 0.0);
+    }
+    this.last = -1;
+    this.count = 0;
+    writePosition();
+  }
+
+  /**
+   * Returns the most recently added value.
+   *
+   * @return the latest value
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double getLatest() {
+    if (count == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+    return values.get(last);
+  }
+
+  /**
+   * Returns the oldest value in the buffer (first to be overwritten).
+   *
+   * @return the oldest value
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double getOldest() {
+    if (count == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+    if (count < size) {
+      return values.get(0);
+    }
+    int index = last + 1;
+    if (index >= size)
+      index -= size;
+    return values.get(index);
+  }
+
+  /**
+   * Appends a value to the buffer, overwriting the oldest value if full.
+   *
+   * @param value the value to append
+   * @return the old value that was overwritten, or 0.0 if buffer wasn't full
+   */
+  public double append(double value) {
+    last += 1;
+    if (last >= size)
+      last = last - size;
+
+    double oldValue = values.get(last);
+    values.put(last, value);
+
+    if (count < size)
+      count++;
+
+    writePosition();
+    return oldValue;
+  }
+
+  /**
+   * Appends {@code len} values from {@code src} in order, with the same result as appending them one by one, in at
+   * most two bulk copies.
+   *
+   * @param src the values to append
+   * @param off index of the first value in {@code src}
+   * @param len number of values to append
+   * @throws IndexOutOfBoundsException if the range is outside {@code src}
+   */
+  public void append(double[] src, int off, int len) {
+    Objects.checkFromIndexSize(off, len, src.length);
+    if (len == 0)
+      return;
+
+    int skipped = Math.max(0, len - size);
+    int start = (int) ((last + 1L + skipped) % size);
+    int copied = len - skipped;
+    int first = Math.min(copied, size - start);
+    values.put(start, src, off + skipped, first);
+    if (first < copied)
+      values.put(0, src, off + skipped + first, copied - first);
+
+    this.last = (int) ((last + (long) len) % size);
+    this.count = (int) Math.min(size, (long) count + len);
+    writePosition();
+  }
+
+  /**
+   * Returns the maximum capacity of the buffer.
+   *
+   * @return the buffer size
+   */
+  public final int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of elements actually added (0 to size).
+   *
+   * @return the count of elements in the buffer
+   */
+  public int count() {
+    return count;
+  }
+
+  /**
+   * Returns true if the buffer has been filled to capacity at least once.
+   *
+   * @return true if buffer is full
+   */
+  public boolean isFull() {
+    return count >= size;
+  }
+
+  /**
+   * Returns the nth most recent item.
+   *
+   * @param n position from latest (1 = latest, 2 = second latest, etc.)
+   * @return the value at position n
+   * @throws IllegalArgumentException if n is invalid
+   * @throws IndexOutOfBoundsException if n exceeds buffer size
+   */
+  public double getLatestNthItem(int n) {
+    checkLatestNInput(n);
+
+    int index = last - n + 1;
+    if (index < 0)
+      index += size;
+
+    return values.get(index);
+  }
+
+  /**
+   * Iterates over the latest n items in chronological order (oldest to newest).
+   *
+   * @param n number of items to iterate
+   * @param consumer the consumer to accept each value
+   * @throws IllegalArgumentException if n is invalid
+   */
+  public void forLatestNItems(int n, DoubleConsumer consumer) {
+    checkLatestNInput(n);
+
+    int startIndex = last - n + 1;
+    if (startIndex < 0)
+      startIndex += size;
+
+    int end = Math.min(size, startIndex + n);
+    for (int i = startIndex; i < end; i++)
+      consumer.accept(values.get(i));
+    for (int i = 0; i < n - (end - startIndex); i++)
+      consumer.accept(values.get(i));
+  }
+
+  /**
+   * Copies the latest n values to the provided array in chronological order.
+   *
+   * @param dest destination array (must be at least n elements)
+   * @param n number of values to copy
+   * @throws IllegalArgumentException if n is invalid or dest is too small
+   */
+  public void copyLatestN(double[] dest, int n) {
+    if (dest == null) {
+      throw new IllegalArgumentException("Destination array cannot be null");
+    }
+    if (dest.length < n) {
+      throw new IllegalArgumentException("Destination array too small: " + dest.length + " < " + n);
+    }
+
+    checkLatestNInput(n);
+
+    int startIndex = last - n + 1;
+    if (startIndex < 0)
+      startIndex += size;
+
+    int first = Math.min(n, size - startIndex);
+    values.get(startIndex, dest, 0, first);
+    if (first < n)
+      values.get(0, dest, first, n - first);
+  }
+
+  /**
+   * Writes the values and position of a file-backed buffer to the storage device. Does nothing for direct memory.
+   */
+  public void force() {
+    if (memory instanceof MappedByteBuffer mapped)
+      mapped.force();
+  }
+
+  /**
+   * Returns true if the buffer is backed by a file.
+   *
+   * @return true if created by {@link #map(Path, int)}
+   */
+  public boolean isMapped() {
+    return channel != null;
+  }
+
+  /**
+   * Closes the backing file, if any. The mapping itself stays valid until the buffer is garbage collected.
+   */
+  @Override
+  public void close() throws IOException {
+    if (channel != null)
+      channel.close();
+  }
+
+  private void writePosition() {
+    memory.putInt(LAST_OFFSET, last);
+    memory.putInt(COUNT_OFFSET, count);
+  }
+
+  private void checkLatestNInput(int n) {
+    if (n <= 0)
+      throw new IllegalArgumentException(
+              "n must be greater than 0. n=1 means \"the latest\", n=2 means \"the second latest\"");
+
+    if (n > count)
+      throw new IndexOutOfBoundsException("Only " + count + " elements in buffer, but wanted " + n + " items");
+  }
+
+  private static void checkSize(int size) {
+    if (size <= 0 || size > (Integer.MAX_VALUE - HEADER_BYTES) / Double.BYTES) {
+      throw new IllegalArgumentException("Size must be positive and fit in one mapping, got: " + size);
+    }
+  }
+}
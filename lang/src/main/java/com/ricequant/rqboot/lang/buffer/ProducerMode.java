@@ -0,0 +1,20 @@
+package com.ricequant.rqboot.lang.buffer;
+
+/**
+ * How many threads publish into an {@link EventRingBuffer}.
+ *
+ * @author chenfeng
+ */
+public enum ProducerMode {
+
+  /**
+   * One publishing thread. Claiming is a plain increment.
+   */
+  SINGLE,
+
+  /**
+   * Any number of publishing threads. Slots are claimed with a compare-and-set on the shared cursor and every slot
+   * records its own publication, so events published out of order are consumed in sequence.
+   */
+  MULTI
+}
@@ -0,0 +1,328 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A {@link DoubleRingBuffer} that maintains statistics over its window as values are appended, so the sum, mean,
+ * variance, standard deviation, minimum and maximum of the full window are all O(1) to read.
+ * <p>
+ * The sum is kept with Kahan compensation and the mean and variance with Welford's update, extended to replace the
+ * overwritten value in a full window. To bound the rounding error that still accumulates over a long stream, the
+ * statistics are recomputed exactly from the window once every {@code size} overwrites, which is O(1) amortized.
+ * Minimum and maximum are kept in monotonic deques, so each value is pushed and popped at most once.
+ * <p>
+ * Values must not be NaN.
+ *
+ * @author kangol
+ */
+public class RollingStatsRingBuffer extends DoubleRingBuffer {
+
+  private final MonotonicDeque minDeque;
+
+  private final MonotonicDeque maxDeque;
+
+  private final DoubleConsumer recomputer = this::accumulate;
+
+  private long sequence;
+
+  private int overwritesSinceRecompute;
+
+  private double sum;
+
+  private double sumCompensation;
+
+  private double mean;
+
+  private double m2;
+
+  private int accumulated;
+
+  /**
+   * Creates a new RollingStatsRingBuffer with the specified window size.
+   *
+   * @param size the capacity of the buffer, must be positive
+   */
+  public RollingStatsRingBuffer(int size) {
+    super(size);
+    this.minDeque = new MonotonicDeque(size, false);
+    this.maxDeque = new MonotonicDeque(size, true);
+  }
+
+  /**
+   * Clears the buffer and all statistics.
+   */
+  @Override
+  public void clear() {
+    super.clear();
+    minDeque.clear();
+    maxDeque.clear();
+    resetStats();
+    this.sequence = 0;
+    this.overwritesSinceRecompute = 0;
+  }
+
+  /**
+   * Appends a value and updates the statistics, overwriting the oldest value if full.
+   *
+   * @param value the value to append, must not be NaN
+   * @return the old value that was overwritten, or 0.0 if buffer wasn't full
+   */
+  @Override
+  public double append(double value) {
+    boolean overwriting = isFull();
+    double oldValue = super.append(value);
+    long seq = sequence++;
+
+    minDeque.push(seq, value, size());
+    maxDeque.push(seq, value, size());
+
+    if (!overwriting) {
+      addToSum(value);
+      int n = count();
+      double delta = value - mean;
+      mean += delta / n;
+      m2 += delta * (value - mean);
+      return oldValue;
+    }
+
+    if (++overwritesSinceRecompute >= size()) {
+      recompute();
+      return oldValue;
+    }
+
+    addToSum(value);
+    addToSum(-oldValue);
+    double delta = value - oldValue;
+    double oldMean = mean;
+    mean += delta / size();
+    m2 += delta * (value - mean + oldValue - oldMean);
+    return oldValue;
+  }
+
+  /**
+   * Appends {@code len} values from {@code src} one by one, updating the statistics for each.
+   *
+   * @throws IndexOutOfBoundsException if the range is outside {@code src}
+   */
+  @Override
+  public void append(double[] src, int off, int len) {
+    Objects.checkFromIndexSize(off, len, src.length);
+    for (int i = off; i < off + len; i++)
+      append(src[i]);
+  }
+
+  /**
+   * Replaces the latest value and updates the statistics. O(1), except that when the replaced value may have hidden
+   * an earlier minimum or maximum, that deque is rebuilt from the window in O(size).
+   *
+   * @param value the new latest value, must not be NaN
+   * @throws IllegalStateException if buffer is empty
+   */
+  @Override
+  public void setLatest(double value) {
+    double oldValue = getLatest();
+    super.setLatest(value);
+
+    addToSum(value);
+    addToSum(-oldValue);
+    double delta = value - oldValue;
+    double oldMean = mean;
+    mean += delta / count();
+    m2 += delta * (value - mean + oldValue - oldMean);
+
+    if (!minDeque.replaceBack(sequence - 1, value, size()))
+      rebuild(minDeque);
+    if (!maxDeque.replaceBack(sequence - 1, value, size()))
+      rebuild(maxDeque);
+  }
+
+  /**
+   * Returns the sum of the values in the window.
+   *
+   * @return the sum, or 0.0 if the buffer is empty
+   */
+  public double sum() {
+    return sum;
+  }
+
+  /**
+   * Returns the arithmetic mean of the values in the window.
+   *
+   * @return the mean
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double mean() {
+    checkNotEmpty();
+    return mean;
+  }
+
+  /**
+   * Returns the population variance of the values in the window.
+   *
+   * @return the variance
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double variance() {
+    checkNotEmpty();
+    return Math.max(0.0, m2 / count());
+  }
+
+  /**
+   * Returns the sample variance of the values in the window, dividing by {@code count - 1}.
+   *
+   * @return the sample variance, or 0.0 for a single value
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double sampleVariance() {
+    checkNotEmpty();
+    return count() == 1 ? 0.0 : Math.max(0.0, m2 / (count() - 1));
+  }
+
+  /**
+   * Returns the population standard deviation of the values in the window.
+   *
+   * @return the standard deviation
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double stddev() {
+    return Math.sqrt(variance());
+  }
+
+  /**
+   * Returns the smallest value in the window.
+   *
+   * @return the minimum
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double min() {
+    checkNotEmpty();
+    return minDeque.front();
+  }
+
+  /**
+   * Returns the largest value in the window.
+   *
+   * @return the maximum
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double max() {
+    checkNotEmpty();
+    return maxDeque.front();
+  }
+
+  private void addToSum(double value) {
+    double y = value - sumCompensation;
+    double t = sum + y;
+    sumCompensation = (t - sum) - y;
+    sum = t;
+  }
+
+  private void recompute() {
+    resetStats();
+    forLatestNItems(count(), recomputer);
+    this.overwritesSinceRecompute = 0;
+  }
+
+  private void accumulate(double value) {
+    addToSum(value);
+    accumulated++;
+    double delta = value - mean;
+    mean += delta / accumulated;
+    m2 += delta * (value - mean);
+  }
+
+  private void rebuild(MonotonicDeque deque) {
+    deque.clear();
+    int n = count();
+    for (int i = n; i >= 1; i--)
+      deque.push(sequence - i, getLatestNthItem(i), size());
+  }
+
+  private void resetStats() {
+    this.sum = 0.0;
+    this.sumCompensation = 0.0;
+    this.mean = 0.0;
+    this.m2 = 0.0;
+    this.accumulated = 0;
+  }
+
+  private void checkNotEmpty() {
+    if (count() == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+  }
+
+  /**
+   * Candidates for the window extreme in arrival order. A new value drops every candidate it dominates from the back,
+   * so the front is always the extreme of the window and values are strictly monotonic from front to back.
+   */
+  private static final class MonotonicDeque {
+
+    private final long[] sequences;
+
+    private final double[] values;
+
+    private final boolean max;
+
+    private int head;
+
+    private int length;
+
+    MonotonicDeque(int capacity, boolean max) {
+      this.sequences = new long[capacity];
+      this.values = new double[capacity];
+      this.max = max;
+    }
+
+    void push(long sequence, double value, int window) {
+      int capacity = values.length;
+      // expire the front once it falls out of the window
+      if (length > 0 && sequences[head] <= sequence - window) {
+        head = head + 1 == capacity ? 0 : head + 1;
+        length--;
+      }
+
+      while (length > 0) {
+        int back = head + length - 1;
+        if (back >= capacity)
+          back -= capacity;
+        if (max ? values[back] > value : values[back] < value)
+          break;
+        length--;
+      }
+
+      int tail = head + length;
+      if (tail >= capacity)
+        tail -= capacity;
+      sequences[tail] = sequence;
+      values[tail] = value;
+      length++;
+    }
+
+    /**
+     * Replaces the back, which always holds the latest value. Returns false, leaving the deque unchanged, if the new
+     * value is weaker than the old one: candidates the old value dropped may then be extremes again.
+     */
+    boolean replaceBack(long sequence, double value, int window) {
+      int back = head + length - 1;
+      if (back >= values.length)
+        back -= values.length;
+      if (max ? value < values[back] : value > values[back])
+        return false;
+
+      length--;
+      push(sequence, value, window);
+      return true;
+    }
+
+    double front() {
+      return values[head];
+    }
+
+    void clear() {
+      head = 0;
+      length = 0;
+    }
+  }
+}
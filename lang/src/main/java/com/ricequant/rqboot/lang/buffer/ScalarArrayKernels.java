@@ -0,0 +1,51 @@
+package com.ricequant.rqboot.lang.buffer;
+
+/**
+ * Plain loops, used when the Vector API is not available.
+ *
+ * @author chenfeng
+ */
+final class ScalarArrayKernels implements ArrayKernels {
+
+  @Override
+  public double sum(double[] a, int from, int len) {
+    double sum = 0;
+    for (int i = from; i < from + len; i++)
+      sum += a[i];
+    return sum;
+  }
+
+  @Override
+  public double dot(double[] a, int from, double[] w, int wFrom, int len) {
+    double sum = 0;
+    for (int i = 0; i < len; i++)
+      sum += a[from + i] * w[wFrom + i];
+    return sum;
+  }
+
+  @Override
+  public double min(double[] a, int from, int len) {
+    double min = Double.POSITIVE_INFINITY;
+    for (int i = from; i < from + len; i++)
+      min = Math.min(min, a[i]);
+    return min;
+  }
+
+  @Override
+  public double max(double[] a, int from, int len) {
+    double max = Double.NEGATIVE_INFINITY;
+    for (int i = from; i < from + len; i++)
+      max = Math.max(max, a[i]);
+    return max;
+  }
+
+  @Override
+  public int countAbove(double[] a, int from, int len, double threshold) {
+    int count = 0;
+    for (int i = from; i < from + len; i++) {
+      if (a[i] > threshold)
+        count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,132 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * An {@link ObjectRingBuffer} for one appending thread and any number of reading threads, e.g. a market-data thread
+ * writing snapshots that strategy threads read. Neither side locks: the writer publishes each append with a release
+ * store on a sequence, and readers retry a read that raced with the writer overwriting the slots they copied, see
+ * {@link AbstractSingleWriterRingBuffer}.
+ * <p>
+ * Reads retry only while the writer overwrites the slots being read, so keep the buffer comfortably larger than the
+ * largest n read; reading the whole buffer succeeds only between two appends. Only the references are published
+ * safely: appended elements should be immutable, or at least not modified after they are appended.
+ *
+ * @author chenfeng
+ */
+public class SingleWriterObjectRingBuffer<T> extends AbstractSingleWriterRingBuffer {
+
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  private final T[] buffer;
+
+  /**
+   * Creates a new SingleWriterObjectRingBuffer with the specified size.
+   *
+   * @param size the capacity of the buffer, must be positive
+   */
+  @SuppressWarnings("unchecked")
+  public SingleWriterObjectRingBuffer(int size) {
+    super(size);
+    this.buffer = (T[]) new Object[size];
+  }
+
+  /**
+   * Appends an element, overwriting the oldest value if full. Writer thread only.
+   *
+   * @param value the element to append
+   */
+  public void append(T value) {
+    long seq = beginWrite(1);
+    SLOTS.setOpaque(buffer, slotOf(seq), value);
+    endWrite(seq, 1);
+  }
+
+  /**
+   * Appends {@code len} values from {@code src} in order and publishes them together. Writer thread only.
+   *
+   * @param src the values to append
+   * @param off index of the first value in {@code src}
+   * @param len number of values to append
+   */
+  public void append(T[] src, int off, int len) {
+    Objects.checkFromIndexSize(off, len, src.length);
+    if (len == 0)
+      return;
+
+    long seq = beginWrite(len);
+    int skipped = Math.max(0, len - size);
+    int slot = slotOf(seq + skipped);
+    for (int i = off + skipped; i < off + len; i++) {
+      SLOTS.setOpaque(buffer, slot, src[i]);
+      if (++slot == size)
+        slot = 0;
+    }
+    endWrite(seq, len);
+  }
+
+  /**
+   * Returns the most recently added value.
+   *
+   * @return the latest value
+   * @throws IllegalStateException if buffer is empty
+   */
+  public T getLatest() {
+    if (sequence() == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+    return getLatestNthItem(1);
+  }
+
+  /**
+   * Returns the nth most recent item.
+   *
+   * @param n position from latest (1 = latest, 2 = second latest, etc.)
+   * @return the value at position n
+   * @throws IllegalArgumentException if n is invalid
+   * @throws IndexOutOfBoundsException if n exceeds the number of elements
+   */
+  @SuppressWarnings("unchecked")
+  public T getLatestNthItem(int n) {
+    while (true) {
+      long seq = acquirePublished();
+      checkLatestNInput(n, seq);
+      T value = (T) SLOTS.getOpaque(buffer, slotOf(seq - n));
+      if (validate(seq, n))
+        return value;
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Copies a consistent snapshot of the latest n values to the provided array in chronological order.
+   *
+   * @param dest destination array (must be at least n elements)
+   * @param n number of values to copy
+   * @return the sequence of the snapshot, i.e. {@code dest[n - 1]} is the value appended with sequence
+   * {@code returned - 1}
+   * @throws IllegalArgumentException if n is invalid or dest is too small
+   */
+  @SuppressWarnings("unchecked")
+  public long copyLatestN(T[] dest, int n) {
+    if (dest.length < n) {
+      throw new IllegalArgumentException("Destination array too small: " + dest.length + " < " + n);
+    }
+
+    while (true) {
+      long seq = acquirePublished();
+      checkLatestNInput(n, seq);
+      int slot = slotOf(seq - n);
+      for (int i = 0; i < n; i++) {
+        dest[i] = (T) SLOTS.getOpaque(buffer, slot);
+        if (++slot == size)
+          slot = 0;
+      }
+      if (validate(seq, n))
+        return seq;
+      Thread.onSpinWait();
+    }
+  }
+}
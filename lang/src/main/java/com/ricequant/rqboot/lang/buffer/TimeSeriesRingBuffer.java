@@ -0,0 +1,264 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import com.ricequant.rqboot.lang.lambda.LongDoubleConsumer;
+
+/**
+ * A fixed-size circular buffer of {@code (timestamp, value)} points in time order, kept in two parallel primitive
+ * arrays. Timestamps are RQ timestamps (microseconds since epoch, see
+ * {@link com.ricequant.rqboot.lang.DateTimeHelper#getCurrentMicros()}) and must not decrease from one append to the
+ * next, so lookups by time are binary searches over the window.
+ * <p>
+ * Points are evicted in two ways: when the buffer is full the oldest point is overwritten, and if the buffer was
+ * created with a retention period, every append also drops the points older than the new timestamp minus that period.
+ * {@link #evictBefore(long)} drops old points explicitly.
+ * <p>
+ * Indexes are logical: 0 is the oldest point in the buffer and {@code count() - 1} the latest. Not thread safe.
+ *
+ * @author chenfeng
+ */
+public class TimeSeriesRingBuffer {
+
+  private final int size;
+
+  private final long retentionMicros;
+
+  private final long[] timestamps;
+
+  private final double[] values;
+
+  // array index of the oldest point
+  private int head;
+
+  private int count;
+
+  /**
+   * Creates a buffer that only evicts by count.
+   *
+   * @param size the capacity of the buffer, must be positive
+   */
+  public TimeSeriesRingBuffer(int size) {
+    this(size, 0);
+  }
+
+  /**
+   * @param size            the capacity of the buffer, must be positive
+   * @param retentionMicros on every append, points older than the appended timestamp minus this many microseconds are
+   *                        evicted; 0 evicts by count only
+   */
+  public TimeSeriesRingBuffer(int size, long retentionMicros) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Size must be positive, got: " + size);
+    }
+    if (retentionMicros < 0) {
+      throw new IllegalArgumentException("Retention must not be negative, got: " + retentionMicros);
+    }
+    this.size = size;
+    this.retentionMicros = retentionMicros;
+    this.timestamps = new long[size];
+    this.values = new double[size];
+  }
+
+  /**
+   * Removes all points.
+   */
+  public void clear() {
+    this.head = 0;
+    this.count = 0;
+  }
+
+  /**
+   * Appends a point, overwriting the oldest point if the buffer is full.
+   *
+   * @param timestamp RQ timestamp of the point, not earlier than the latest timestamp in the buffer
+   * @param value     the value
+   * @throws IllegalArgumentException if {@code timestamp} is earlier than the latest timestamp
+   */
+  public void append(long timestamp, double value) {
+    if (count > 0 && timestamp < timestamps[physical(count - 1)]) {
+      throw new IllegalArgumentException(
+              "Timestamp " + timestamp + " is earlier than the latest " + timestamps[physical(count - 1)]);
+    }
+
+    if (retentionMicros > 0)
+      evictBefore(timestamp - retentionMicros);
+
+    int index;
+    if (count < size) {
+      index = physical(count);
+      count++;
+    }
+    else {
+      index = head;
+      head = head + 1 == size ? 0 : head + 1;
+    }
+    timestamps[index] = timestamp;
+    values[index] = value;
+  }
+
+  /**
+   * Evicts every point with a timestamp earlier than {@code timestamp}.
+   *
+   * @return the number of points evicted
+   */
+  public int evictBefore(long timestamp) {
+    int evicted = indexAtOrAfter(timestamp);
+    if (evicted == count) {
+      clear();
+    }
+    else {
+      head = physical(evicted);
+      count -= evicted;
+    }
+    return evicted;
+  }
+
+  /**
+   * Returns the maximum capacity of the buffer.
+   *
+   * @return the buffer size
+   */
+  public final int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of points in the buffer (0 to size).
+   *
+   * @return the count of points in the buffer
+   */
+  public int count() {
+    return count;
+  }
+
+  /**
+   * @return the retention period in microseconds, 0 if the buffer evicts by count only
+   */
+  public long retentionMicros() {
+    return retentionMicros;
+  }
+
+  /**
+   * @throws IllegalStateException if buffer is empty
+   */
+  public long getLatestTimestamp() {
+    checkNotEmpty();
+    return timestamps[physical(count - 1)];
+  }
+
+  /**
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double getLatestValue() {
+    checkNotEmpty();
+    return values[physical(count - 1)];
+  }
+
+  /**
+   * @throws IllegalStateException if buffer is empty
+   */
+  public long getOldestTimestamp() {
+    checkNotEmpty();
+    return timestamps[head];
+  }
+
+  /**
+   * @throws IllegalStateException if buffer is empty
+   */
+  public double getOldestValue() {
+    checkNotEmpty();
+    return values[head];
+  }
+
+  /**
+   * @param index logical index, 0 is the oldest point
+   * @throws IndexOutOfBoundsException if {@code index} is not in {@code [0, count())}
+   */
+  public long timestampAt(int index) {
+    checkIndex(index);
+    return timestamps[physical(index)];
+  }
+
+  /**
+   * @param index logical index, 0 is the oldest point
+   * @throws IndexOutOfBoundsException if {@code index} is not in {@code [0, count())}
+   */
+  public double valueAt(int index) {
+    checkIndex(index);
+    return values[physical(index)];
+  }
+
+  /**
+   * Finds the latest point at or before {@code timestamp}, i.e. the value in effect at that time. Runs in O(log n).
+   *
+   * @return the logical index of the point, or -1 if every point is later than {@code timestamp}
+   */
+  public int indexAtOrBefore(long timestamp) {
+    // first index with a later timestamp, minus one
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (timestamps[physical(mid)] <= timestamp)
+        low = mid + 1;
+      else
+        high = mid;
+    }
+    return low - 1;
+  }
+
+  /**
+   * Finds the earliest point at or after {@code timestamp}. Runs in O(log n).
+   *
+   * @return the logical index of the point, or {@code count()} if every point is earlier than {@code timestamp}
+   */
+  public int indexAtOrAfter(long timestamp) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (timestamps[physical(mid)] < timestamp)
+        low = mid + 1;
+      else
+        high = mid;
+    }
+    return low;
+  }
+
+  /**
+   * Passes every point with a timestamp in {@code [fromTimestamp, toTimestamp]} to {@code consumer}, oldest first.
+   *
+   * @return the number of points passed
+   */
+  public int forRange(long fromTimestamp, long toTimestamp, LongDoubleConsumer consumer) {
+    int from = indexAtOrAfter(fromTimestamp);
+    int to = indexAtOrBefore(toTimestamp) + 1;
+    if (from >= to)
+      return 0;
+
+    // the range covers at most two contiguous runs of the arrays
+    int start = physical(from);
+    int n = to - from;
+    int end = Math.min(size, start + n);
+    for (int i = start; i < end; i++)
+      consumer.accept(timestamps[i], values[i]);
+    for (int i = 0; i < n - (end - start); i++)
+      consumer.accept(timestamps[i], values[i]);
+    return n;
+  }
+
+  private int physical(int index) {
+    int i = head + index;
+    return i >= size ? i - size : i;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= count)
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + count + " points");
+  }
+
+  private void checkNotEmpty() {
+    if (count == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+  }
+}
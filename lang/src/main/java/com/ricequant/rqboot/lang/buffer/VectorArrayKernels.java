@@ -0,0 +1,84 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD loops over the widest vector shape the CPU supports, with a scalar tail. Only loaded when the
+ * {@code jdk.incubator.vector} module is present, see {@link WindowKernels}.
+ *
+ * @author chenfeng
+ */
+final class VectorArrayKernels implements ArrayKernels {
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  @Override
+  public double sum(double[] a, int from, int len) {
+    DoubleVector acc = DoubleVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length())
+      acc = acc.add(DoubleVector.fromArray(SPECIES, a, from + i));
+
+    double sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; i++)
+      sum += a[from + i];
+    return sum;
+  }
+
+  @Override
+  public double dot(double[] a, int from, double[] w, int wFrom, int len) {
+    DoubleVector acc = DoubleVector.zero(SPECIES);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+      DoubleVector values = DoubleVector.fromArray(SPECIES, a, from + i);
+      acc = values.fma(DoubleVector.fromArray(SPECIES, w, wFrom + i), acc);
+    }
+
+    double sum = acc.reduceLanes(VectorOperators.ADD);
+    for (; i < len; i++)
+      sum += a[from + i] * w[wFrom + i];
+    return sum;
+  }
+
+  @Override
+  public double min(double[] a, int from, int len) {
+    DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length())
+      acc = acc.min(DoubleVector.fromArray(SPECIES, a, from + i));
+
+    double min = acc.reduceLanes(VectorOperators.MIN);
+    for (; i < len; i++)
+      min = Math.min(min, a[from + i]);
+    return min;
+  }
+
+  @Override
+  public double max(double[] a, int from, int len) {
+    DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+    int i = 0;
+    for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length())
+      acc = acc.max(DoubleVector.fromArray(SPECIES, a, from + i));
+
+    double max = acc.reduceLanes(VectorOperators.MAX);
+    for (; i < len; i++)
+      max = Math.max(max, a[from + i]);
+    return max;
+  }
+
+  @Override
+  public int countAbove(double[] a, int from, int len, double threshold) {
+    int count = 0;
+    int i = 0;
+    for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length())
+      count += DoubleVector.fromArray(SPECIES, a, from + i).compare(VectorOperators.GT, threshold).trueCount();
+
+    for (; i < len; i++) {
+      if (a[from + i] > threshold)
+        count++;
+    }
+    return count;
+  }
+}
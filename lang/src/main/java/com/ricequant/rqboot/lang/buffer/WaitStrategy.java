@@ -0,0 +1,63 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread of an {@link EventRingBuffer} waits for the other side: a consumer for events to be published, a
+ * producer for a slot to be consumed. Trade-offs go from lowest latency to lowest CPU use.
+ *
+ * @author chenfeng
+ */
+public enum WaitStrategy {
+
+  /**
+   * Spins on the CPU. Lowest latency; burns a core per waiting thread, so use only with dedicated cores.
+   */
+  BUSY_SPIN {
+    @Override
+    void idle(int attempt) {
+      Thread.onSpinWait();
+    }
+  },
+
+  /**
+   * Spins briefly, then yields the CPU between checks. Low latency while leaving the core to other runnable threads.
+   */
+  YIELDING {
+    @Override
+    void idle(int attempt) {
+      if (attempt < SPIN_TRIES)
+        Thread.onSpinWait();
+      else
+        Thread.yield();
+    }
+  },
+
+  /**
+   * Spins, then yields, then parks for short intervals. Near zero CPU use when idle, at the cost of up to
+   * {@link #PARK_NANOS} latency on the first event after a quiet period.
+   */
+  PARKING {
+    @Override
+    void idle(int attempt) {
+      if (attempt < SPIN_TRIES)
+        Thread.onSpinWait();
+      else if (attempt < SPIN_TRIES + YIELD_TRIES)
+        Thread.yield();
+      else
+        LockSupport.parkNanos(PARK_NANOS);
+    }
+  };
+
+  static final int SPIN_TRIES = 100;
+
+  static final int YIELD_TRIES = 100;
+
+  static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  /**
+   * Waits once; called with the number of unsuccessful checks so far in the current wait.
+   */
+  abstract void idle(int attempt);
+}
@@ -0,0 +1,155 @@
+package com.ricequant.rqboot.lang.buffer;
+
+/**
+ * Aggregations over the latest n values of a {@link DoubleRingBuffer} or its read-only view, computed in place on the
+ * buffer's array. A window that wraps around the end of the array is processed as two contiguous segments, so the
+ * inner loops carry no wrap check and can be vectorized.
+ * <p>
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector} the kernels use the Vector API at the CPU's
+ * preferred vector width; otherwise, or with {@code -Drqboot.vector.disabled=true}, they use plain loops. Vectorized
+ * sums add in a different order than a sequential loop, so results may differ from it in the last bits.
+ *
+ * @author chenfeng
+ */
+public final class WindowKernels {
+
+  private static final ArrayKernels KERNELS = loadKernels();
+
+  private WindowKernels() {
+
+  }
+
+  /**
+   * Returns true if the kernels run on the Vector API.
+   *
+   * @return true if vectorized
+   */
+  public static boolean isVectorized() {
+    return !(KERNELS instanceof ScalarArrayKernels);
+  }
+
+  /**
+   * Returns the sum of the latest n values.
+   *
+   * @throws IllegalArgumentException if n is invalid
+   */
+  public static double sumLatestN(DoubleRingBuffer buffer, int n) {
+    int start = buffer.latestNStart(n);
+    int first = Math.min(n, buffer.size() - start);
+    double sum = KERNELS.sum(buffer.array(), start, first);
+    if (first < n)
+      sum += KERNELS.sum(buffer.array(), 0, n - first);
+    return sum;
+  }
+
+  /**
+   * Returns the dot product of the latest n values with {@code weights}, where {@code weights[0]} applies to the oldest
+   * of the n values and {@code weights[n - 1]} to the latest.
+   *
+   * @throws IllegalArgumentException if n is invalid or {@code weights} has fewer than n elements
+   */
+  public static double dotLatestN(DoubleRingBuffer buffer, double[] weights, int n) {
+    if (weights.length < n) {
+      throw new IllegalArgumentException("Weights array too small: " + weights.length + " < " + n);
+    }
+
+    int start = buffer.latestNStart(n);
+    int first = Math.min(n, buffer.size() - start);
+    double dot = KERNELS.dot(buffer.array(), start, weights, 0, first);
+    if (first < n)
+      dot += KERNELS.dot(buffer.array(), 0, weights, first, n - first);
+    return dot;
+  }
+
+  /**
+   * Returns the smallest of the latest n values.
+   *
+   * @throws IllegalArgumentException if n is invalid
+   */
+  public static double minLatestN(DoubleRingBuffer buffer, int n) {
+    int start = buffer.latestNStart(n);
+    int first = Math.min(n, buffer.size() - start);
+    double min = KERNELS.min(buffer.array(), start, first);
+    if (first < n)
+      min = Math.min(min, KERNELS.min(buffer.array(), 0, n - first));
+    return min;
+  }
+
+  /**
+   * Returns the largest of the latest n values.
+   *
+   * @throws IllegalArgumentException if n is invalid
+   */
+  public static double maxLatestN(DoubleRingBuffer buffer, int n) {
+    int start = buffer.latestNStart(n);
+    int first = Math.min(n, buffer.size() - start);
+    double max = KERNELS.max(buffer.array(), start, first);
+    if (first < n)
+      max = Math.max(max, KERNELS.max(buffer.array(), 0, n - first));
+    return max;
+  }
+
+  /**
+   * Returns how many of the latest n values are strictly greater than {@code threshold}.
+   *
+   * @throws IllegalArgumentException if n is invalid
+   */
+  public static int countLatestNAbove(DoubleRingBuffer buffer, int n, double threshold) {
+    int start = buffer.latestNStart(n);
+    int first = Math.min(n, buffer.size() - start);
+    int count = KERNELS.countAbove(buffer.array(), start, first, threshold);
+    if (first < n)
+      count += KERNELS.countAbove(buffer.array(), 0, n - first, threshold);
+    return count;
+  }
+
+  /**
+   * @see #sumLatestN(DoubleRingBuffer, int)
+   */
+  public static double sumLatestN(DoubleRingBuffer.ReadOnlyView view, int n) {
+    return sumLatestN(view.buffer, n);
+  }
+
+  /**
+   * @see #dotLatestN(DoubleRingBuffer, double[], int)
+   */
+  public static double dotLatestN(DoubleRingBuffer.ReadOnlyView view, double[] weights, int n) {
+    return dotLatestN(view.buffer, weights, n);
+  }
+
+  /**
+   * @see #minLatestN(DoubleRingBuffer, int)
+   */
+  public static double minLatestN(DoubleRingBuffer.ReadOnlyView view, int n) {
+    return minLatestN(view.buffer, n);
+  }
+
+  /**
+   * @see #maxLatestN(DoubleRingBuffer, int)
+   */
+  public static double maxLatestN(DoubleRingBuffer.ReadOnlyView view, int n) {
+    return maxLatestN(view.buffer, n);
+  }
+
+  /**
+   * @see #countLatestNAbove(DoubleRingBuffer, int, double)
+   */
+  public static int countLatestNAbove(DoubleRingBuffer.ReadOnlyView view, int n, double threshold) {
+    return countLatestNAbove(view.buffer, n, threshold);
+  }
+
+  private static ArrayKernels loadKernels() {
+    if (Boolean.getBoolean("rqboot.vector.disabled") || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+      return new ScalarArrayKernels();
+
+    try {
+      // loaded by name so this class never links against the incubator module when it is absent
+      return (ArrayKernels) Class.forName(WindowKernels.class.getPackageName() + ".VectorArrayKernels")
+              .getDeclaredConstructor()
+              .newInstance();
+    }
+    catch (ReflectiveOperationException | LinkageError e) {
+      return new ScalarArrayKernels();
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package com.ricequant.rqboot.lang.collection;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A growable list of primitive {@code double}s, replacing {@code List<Double>} in hot code. Elements are stored unboxed
+ * in one array; {@link #clear()} keeps the array so a list refilled every tick stops allocating once it has grown. Not
+ * thread safe.
+ *
+ * @author chenfeng
+ */
+public class DoubleArrayList {
+
+  private static final double[] EMPTY = {};
+
+  private double[] iElements;
+
+  private int iSize;
+
+  public DoubleArrayList() {
+    iElements = EMPTY;
+  }
+
+  public DoubleArrayList(int initialCapacity) {
+    if (initialCapacity < 0)
+      throw new IllegalArgumentException("Capacity must not be negative, got: " + initialCapacity);
+
+    iElements = initialCapacity == 0 ? EMPTY : new double[initialCapacity];
+  }
+
+  public void add(double value) {
+    if (iSize == iElements.length)
+      grow(iSize + 1);
+    iElements[iSize++] = value;
+  }
+
+  public void add(int index, double value) {
+    if (index < 0 || index > iSize)
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + iSize);
+
+    if (iSize == iElements.length)
+      grow(iSize + 1);
+    System.arraycopy(iElements, index, iElements, index + 1, iSize - index);
+    iElements[index] = value;
+    iSize++;
+  }
+
+  public void addAll(double[] values, int offset, int length) {
+    ensureCapacity(iSize + length);
+    System.arraycopy(values, offset, iElements, iSize, length);
+    iSize += length;
+  }
+
+  public double get(int index) {
+    checkIndex(index);
+    return iElements[index];
+  }
+
+  /**
+   * @return the value previously at {@code index}
+   */
+  public double set(int index, double value) {
+    checkIndex(index);
+    double previous = iElements[index];
+    iElements[index] = value;
+    return previous;
+  }
+
+  /**
+   * @return the removed value
+   */
+  public double removeAt(int index) {
+    checkIndex(index);
+    double removed = iElements[index];
+    System.arraycopy(iElements, index + 1, iElements, index, iSize - index - 1);
+    iSize--;
+    return removed;
+  }
+
+  /**
+   * Compares as {@link Double#equals} does, so NaN is found and 0.0 and -0.0 differ.
+   *
+   * @return the index of the first occurrence of {@code value}, or -1 if absent
+   */
+  public int indexOf(double value) {
+    long bits = Double.doubleToLongBits(value);
+    for (int i = 0; i < iSize; i++) {
+      if (Double.doubleToLongBits(iElements[i]) == bits)
+        return i;
+    }
+    return -1;
+  }
+
+  public boolean contains(double value) {
+    return indexOf(value) >= 0;
+  }
+
+  public int size() {
+    return iSize;
+  }
+
+  public boolean isEmpty() {
+    return iSize == 0;
+  }
+
+  /**
+   * Removes every element but keeps the backing array.
+   */
+  public void clear() {
+    iSize = 0;
+  }
+
+  public void ensureCapacity(int capacity) {
+    if (capacity > iElements.length)
+      grow(capacity);
+  }
+
+  public void sort() {
+    Arrays.sort(iElements, 0, iSize);
+  }
+
+  public double[] toArray() {
+    return Arrays.copyOf(iElements, iSize);
+  }
+
+  public void forEach(DoubleConsumer consumer) {
+    double[] elements = iElements;
+    for (int i = 0; i < iSize; i++)
+      consumer.accept(elements[i]);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= iSize)
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + iSize);
+  }
+
+  private void grow(int minCapacity) {
+    int capacity = Math.max(minCapacity, Math.max(10, iElements.length + (iElements.length >> 1)));
+    iElements = Arrays.copyOf(iElements, capacity);
+  }
+}
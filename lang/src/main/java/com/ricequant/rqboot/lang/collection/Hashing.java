@@ -0,0 +1,63 @@
+package com.ricequant.rqboot.lang.collection;
+
+/**
+ * Hashing and sizing shared by the open-addressing tables of the primitive collections and the primitive-keyed
+ * factories.
+ *
+ * @author chenfeng
+ */
+public final class Hashing {
+
+  public static final int MIN_CAPACITY = 16;
+
+  private Hashing() {
+
+  }
+
+  /**
+   * Spreads a key over all bits, so sequential ids do not cluster into long probe runs.
+   */
+  public static int mix(long key) {
+    long h = key * 0x9e3779b97f4a7c15L;
+    h ^= h >>> 32;
+    h ^= h >>> 16;
+    return (int) h;
+  }
+
+  public static int mix(int key) {
+    int h = key * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Spreads a composite key of two parts, so keys that differ in either part land apart.
+   */
+  public static int mix(long first, long second) {
+    long h = (first * 0x9e3779b97f4a7c15L + second) * 0xbf58476d1ce4e5b9L;
+    h ^= h >>> 32;
+    h ^= h >>> 16;
+    return (int) h;
+  }
+
+  /**
+   * @return the power of two table length that holds {@code expectedSize} entries below a 3/4 load factor
+   */
+  public static int capacityFor(int expectedSize) {
+    return powerOfTwoAtLeast((long) expectedSize * 4 / 3 + 1, expectedSize);
+  }
+
+  /**
+   * @return the power of two table length that holds {@code expectedSize} entries at no more than half load, for
+   * tables that are read without locking and never remove in place
+   */
+  public static int sparseCapacityFor(int expectedSize) {
+    return powerOfTwoAtLeast((long) expectedSize * 2, expectedSize);
+  }
+
+  private static int powerOfTwoAtLeast(long needed, int expectedSize) {
+    needed = Math.max(MIN_CAPACITY, needed);
+    if (needed > 1 << 30)
+      throw new IllegalArgumentException("Too many entries: " + expectedSize);
+    return Integer.highestOneBit((int) needed - 1) << 1;
+  }
+}
@@ -0,0 +1,144 @@
+package com.ricequant.rqboot.lang.collection;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A growable list of primitive {@code long}s, replacing {@code List<Long>} in hot code. Elements are stored unboxed in
+ * one array; {@link #clear()} keeps the array so a list refilled every tick stops allocating once it has grown. Not
+ * thread safe.
+ *
+ * @author chenfeng
+ */
+public class LongArrayList {
+
+  private static final long[] EMPTY = {};
+
+  private long[] iElements;
+
+  private int iSize;
+
+  public LongArrayList() {
+    iElements = EMPTY;
+  }
+
+  public LongArrayList(int initialCapacity) {
+    if (initialCapacity < 0)
+      throw new IllegalArgumentException("Capacity must not be negative, got: " + initialCapacity);
+
+    iElements = initialCapacity == 0 ? EMPTY : new long[initialCapacity];
+  }
+
+  public void add(long value) {
+    if (iSize == iElements.length)
+      grow(iSize + 1);
+    iElements[iSize++] = value;
+  }
+
+  public void add(int index, long value) {
+    if (index < 0 || index > iSize)
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + iSize);
+
+    if (iSize == iElements.length)
+      grow(iSize + 1);
+    System.arraycopy(iElements, index, iElements, index + 1, iSize - index);
+    iElements[index] = value;
+    iSize++;
+  }
+
+  public void addAll(long[] values, int offset, int length) {
+    ensureCapacity(iSize + length);
+    System.arraycopy(values, offset, iElements, iSize, length);
+    iSize += length;
+  }
+
+  public long get(int index) {
+    checkIndex(index);
+    return iElements[index];
+  }
+
+  /**
+   * @return the value previously at {@code index}
+   */
+  public long set(int index, long value) {
+    checkIndex(index);
+    long previous = iElements[index];
+    iElements[index] = value;
+    return previous;
+  }
+
+  /**
+   * @return the removed value
+   */
+  public long removeAt(int index) {
+    checkIndex(index);
+    long removed = iElements[index];
+    System.arraycopy(iElements, index + 1, iElements, index, iSize - index - 1);
+    iSize--;
+    return removed;
+  }
+
+  /**
+   * @return the index of the first occurrence of {@code value}, or -1 if absent
+   */
+  public int indexOf(long value) {
+    for (int i = 0; i < iSize; i++) {
+      if (iElements[i] == value)
+        return i;
+    }
+    return -1;
+  }
+
+  public boolean contains(long value) {
+    return indexOf(value) >= 0;
+  }
+
+  public int size() {
+    return iSize;
+  }
+
+  public boolean isEmpty() {
+    return iSize == 0;
+  }
+
+  /**
+   * Removes every element but keeps the backing array.
+   */
+  public void clear() {
+    iSize = 0;
+  }
+
+  public void ensureCapacity(int capacity) {
+    if (capacity > iElements.length)
+      grow(capacity);
+  }
+
+  public void sort() {
+    Arrays.sort(iElements, 0, iSize);
+  }
+
+  public long[] toArray() {
+    return Arrays.copyOf(iElements, iSize);
+  }
+
+  public void forEach(LongConsumer consumer) {
+    long[] elements = iElements;
+    for (int i = 0; i < iSize; i++)
+      consumer.accept(elements[i]);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= iSize)
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + iSize);
+  }
+
+  private void grow(int minCapacity) {
+    int capacity = Math.max(minCapacity, Math.max(10, iElements.length + (iElements.length >> 1)));
+    iElements = Arrays.copyOf(iElements, capacity);
+  }
+}
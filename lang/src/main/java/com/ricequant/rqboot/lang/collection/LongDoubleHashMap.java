@@ -0,0 +1,236 @@
+package com.ricequant.rqboot.lang.collection;
+
+import com.ricequant.rqboot.lang.lambda.LongDoubleConsumer;
+
+import java.util.Arrays;
+
+/**
+ * A {@code long} to {@code double} hash map with open addressing and linear probing, replacing
+ * {@code Map<Long, Double>} in hot code. Neither keys nor values are boxed and no entry objects exist. Removal shifts
+ * the following entries back instead of leaving tombstones, so the table never degrades under churn.
+ * <p>
+ * Absent keys read as the map's missing value, 0 unless given. Key 0 marks free slots, so its entry is kept outside
+ * the table. {@link #clear()} keeps the allocated table for reuse. Not thread safe.
+ *
+ * @author chenfeng
+ */
+public class LongDoubleHashMap {
+
+  private final double iMissingValue;
+
+  private long[] iKeys;
+
+  private double[] iValues;
+
+  private int iSize;
+
+  private boolean iHasZeroKey;
+
+  private double iZeroValue;
+
+  public LongDoubleHashMap() {
+    this(Hashing.MIN_CAPACITY);
+  }
+
+  public LongDoubleHashMap(int expectedSize) {
+    this(expectedSize, 0);
+  }
+
+  /**
+   * @param missingValue
+   *         returned by {@link #get}, {@link #put} and {@link #remove} when the key is absent
+   */
+  public LongDoubleHashMap(int expectedSize, double missingValue) {
+    iMissingValue = missingValue;
+    int capacity = Hashing.capacityFor(expectedSize);
+    iKeys = new long[capacity];
+    iValues = new double[capacity];
+  }
+
+  public double get(long key) {
+    if (key == 0)
+      return iHasZeroKey ? iZeroValue : iMissingValue;
+
+    long[] keys = iKeys;
+    int mask = keys.length - 1;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      long k = keys[i];
+      if (k == key)
+        return iValues[i];
+      if (k == 0)
+        return iMissingValue;
+    }
+  }
+
+  public boolean containsKey(long key) {
+    if (key == 0)
+      return iHasZeroKey;
+
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * @return the previous value, or the missing value if there was none
+   */
+  public double put(long key, double value) {
+    if (key == 0) {
+      double previous = iHasZeroKey ? iZeroValue : iMissingValue;
+      if (!iHasZeroKey) {
+        iHasZeroKey = true;
+        iSize++;
+      }
+      iZeroValue = value;
+      return previous;
+    }
+
+    int mask = iKeys.length - 1;
+    int i = Hashing.mix(key) & mask;
+    for (; iKeys[i] != 0; i = (i + 1) & mask) {
+      if (iKeys[i] == key) {
+        double previous = iValues[i];
+        iValues[i] = value;
+        return previous;
+      }
+    }
+
+    iKeys[i] = key;
+    iValues[i] = value;
+    if (++iSize > iKeys.length * 3 / 4)
+      rehash(iKeys.length << 1);
+    return iMissingValue;
+  }
+
+  /**
+   * Adds {@code delta} to the key's value, starting from 0 if the key is absent.
+   *
+   * @return the new value
+   */
+  public double addTo(long key, double delta) {
+    int i = key == 0 ? -1 : indexOf(key);
+    if (i >= 0)
+      return iValues[i] += delta;
+
+    double value = (key == 0 && iHasZeroKey ? iZeroValue : 0) + delta;
+    put(key, value);
+    return value;
+  }
+
+  /**
+   * @return the removed value, or the missing value if there was none
+   */
+  public double remove(long key) {
+    if (key == 0) {
+      if (!iHasZeroKey)
+        return iMissingValue;
+
+      iHasZeroKey = false;
+      iSize--;
+      return iZeroValue;
+    }
+
+    int i = indexOf(key);
+    if (i < 0)
+      return iMissingValue;
+
+    double previous = iValues[i];
+    shiftKeys(i);
+    iSize--;
+    return previous;
+  }
+
+  public int size() {
+    return iSize;
+  }
+
+  public boolean isEmpty() {
+    return iSize == 0;
+  }
+
+  public double missingValue() {
+    return iMissingValue;
+  }
+
+  /**
+   * Removes every entry but keeps the table, so refilling a map of the same size does not allocate.
+   */
+  public void clear() {
+    if (iSize == 0)
+      return;
+
+    Arrays.fill(iKeys, 0);
+    iHasZeroKey = false;
+    iSize = 0;
+  }
+
+  public void forEach(LongDoubleConsumer consumer) {
+    if (iHasZeroKey)
+      consumer.accept(0, iZeroValue);
+
+    long[] keys = iKeys;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0)
+        consumer.accept(keys[i], iValues[i]);
+    }
+  }
+
+  private int indexOf(long key) {
+    long[] keys = iKeys;
+    int mask = keys.length - 1;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      long k = keys[i];
+      if (k == key)
+        return i;
+      if (k == 0)
+        return -1;
+    }
+  }
+
+  /**
+   * Empties slot {@code pos} and moves back any later entry of the probe run whose home slot is not between the gap and
+   * itself, so lookups never need tombstones.
+   */
+  private void shiftKeys(int pos) {
+    long[] keys = iKeys;
+    int mask = keys.length - 1;
+    while (true) {
+      int last = pos;
+      pos = (pos + 1) & mask;
+      long k;
+      while (true) {
+        k = keys[pos];
+        if (k == 0) {
+          keys[last] = 0;
+          return;
+        }
+
+        int home = Hashing.mix(k) & mask;
+        if (last <= pos ? last >= home || home > pos : last >= home && home > pos)
+          break;
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = k;
+      iValues[last] = iValues[pos];
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = iKeys;
+    double[] oldValues = iValues;
+    long[] keys = new long[capacity];
+    double[] values = new double[capacity];
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      long k = oldKeys[j];
+      if (k == 0)
+        continue;
+
+      int i = Hashing.mix(k) & mask;
+      while (keys[i] != 0)
+        i = (i + 1) & mask;
+      keys[i] = k;
+      values[i] = oldValues[j];
+    }
+    iKeys = keys;
+    iValues = values;
+  }
+}
@@ -0,0 +1,230 @@
+package com.ricequant.rqboot.lang.collection;
+
+import com.ricequant.rqboot.lang.lambda.LongBiConsumer;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * A {@code long} to object hash map with open addressing and linear probing, replacing {@code Map<Long, V>} in hot
+ * code. Keys are not boxed and no entry objects exist. Removal shifts the following entries back
+ * instead of leaving tombstones, so the table never degrades under churn.
+ * <p>
+ * Absent keys read as null, and null values are not allowed. Key 0 marks free slots, so its entry is kept outside the
+ * table. {@link #clear()} keeps the allocated table for reuse. Not thread safe.
+ *
+ * @author chenfeng
+ */
+public class LongObjectHashMap<ValueType> {
+
+  private long[] iKeys;
+
+  private Object[] iValues;
+
+  private int iSize;
+
+  private boolean iHasZeroKey;
+
+  private ValueType iZeroValue;
+
+  public LongObjectHashMap() {
+    this(Hashing.MIN_CAPACITY);
+  }
+
+  public LongObjectHashMap(int expectedSize) {
+    int capacity = Hashing.capacityFor(expectedSize);
+    iKeys = new long[capacity];
+    iValues = new Object[capacity];
+  }
+
+  @SuppressWarnings("unchecked")
+  public ValueType get(long key) {
+    if (key == 0)
+      return iHasZeroKey ? iZeroValue : null;
+
+    long[] keys = iKeys;
+    int mask = keys.length - 1;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      long k = keys[i];
+      if (k == key)
+        return (ValueType) iValues[i];
+      if (k == 0)
+        return null;
+    }
+  }
+
+  public boolean containsKey(long key) {
+    if (key == 0)
+      return iHasZeroKey;
+
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * @return the previous value, or null if there was none
+   */
+  @SuppressWarnings("unchecked")
+  public ValueType put(long key, ValueType value) {
+    if (value == null)
+      throw new NullPointerException("Value must not be null");
+
+    if (key == 0) {
+      ValueType previous = iZeroValue;
+      if (!iHasZeroKey) {
+        iHasZeroKey = true;
+        iSize++;
+      }
+      iZeroValue = value;
+      return previous;
+    }
+
+    int mask = iKeys.length - 1;
+    int i = Hashing.mix(key) & mask;
+    for (; iKeys[i] != 0; i = (i + 1) & mask) {
+      if (iKeys[i] == key) {
+        ValueType previous = (ValueType) iValues[i];
+        iValues[i] = value;
+        return previous;
+      }
+    }
+
+    iKeys[i] = key;
+    iValues[i] = value;
+    if (++iSize > iKeys.length * 3 / 4)
+      rehash(iKeys.length << 1);
+    return null;
+  }
+
+  /**
+   * @return the key's value, created by {@code creator} and stored first if the key is absent
+   */
+  public ValueType computeIfAbsent(long key, LongFunction<? extends ValueType> creator) {
+    ValueType value = get(key);
+    if (value == null) {
+      value = creator.apply(key);
+      put(key, value);
+    }
+    return value;
+  }
+
+  /**
+   * @return the removed value, or null if there was none
+   */
+  @SuppressWarnings("unchecked")
+  public ValueType remove(long key) {
+    if (key == 0) {
+      ValueType previous = iZeroValue;
+      if (iHasZeroKey) {
+        iHasZeroKey = false;
+        iZeroValue = null;
+        iSize--;
+      }
+      return previous;
+    }
+
+    int i = indexOf(key);
+    if (i < 0)
+      return null;
+
+    ValueType previous = (ValueType) iValues[i];
+    shiftKeys(i);
+    iSize--;
+    return previous;
+  }
+
+  public int size() {
+    return iSize;
+  }
+
+  public boolean isEmpty() {
+    return iSize == 0;
+  }
+
+  /**
+   * Removes every entry but keeps the table, so refilling a map of the same size does not allocate.
+   */
+  public void clear() {
+    if (iSize == 0)
+      return;
+
+    Arrays.fill(iKeys, 0);
+    Arrays.fill(iValues, null);
+    iHasZeroKey = false;
+    iZeroValue = null;
+    iSize = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(LongBiConsumer<ValueType> consumer) {
+    if (iHasZeroKey)
+      consumer.accept(0, iZeroValue);
+
+    long[] keys = iKeys;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0)
+        consumer.accept(keys[i], (ValueType) iValues[i]);
+    }
+  }
+
+  private int indexOf(long key) {
+    long[] keys = iKeys;
+    int mask = keys.length - 1;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      long k = keys[i];
+      if (k == key)
+        return i;
+      if (k == 0)
+        return -1;
+    }
+  }
+
+  /**
+   * Empties slot {@code pos} and moves back any later entry of the probe run whose home slot is not between the gap and
+   * itself, so lookups never need tombstones.
+   */
+  private void shiftKeys(int pos) {
+    long[] keys = iKeys;
+    int mask = keys.length - 1;
+    while (true) {
+      int last = pos;
+      pos = (pos + 1) & mask;
+      long k;
+      while (true) {
+        k = keys[pos];
+        if (k == 0) {
+          keys[last] = 0;
+          iValues[last] = null;
+          return;
+        }
+
+        int home = Hashing.mix(k) & mask;
+        if (last <= pos ? last >= home || home > pos : last >= home && home > pos)
+          break;
+        pos = (pos + 1) & mask;
+      }
+      keys[last] = k;
+      iValues[last] = iValues[pos];
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = iKeys;
+    Object[] oldValues = iValues;
+    long[] keys = new long[capacity];
+    Object[] values = new Object[capacity];
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      long k = oldKeys[j];
+      if (k == 0)
+        continue;
+
+      int i = Hashing.mix(k) & mask;
+      while (keys[i] != 0)
+        i = (i + 1) & mask;
+      keys[i] = k;
+      values[i] = oldValues[j];
+    }
+    iKeys = keys;
+    iValues = values;
+  }
+}
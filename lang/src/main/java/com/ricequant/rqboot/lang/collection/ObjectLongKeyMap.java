@@ -0,0 +1,183 @@
+package com.ricequant.rqboot.lang.collection;
+
+import com.ricequant.rqboot.lang.lambda.ObjectLongObjectConsumer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A map keyed by an (object, {@code long}) pair, such as (account, instrument id), stored as two parallel key arrays in
+ * an open-addressing table. Lookups take the two components directly, so no key object is allocated.
+ * <p>
+ * Writers must be serialized externally; any number of readers may run concurrently with the writer without locking.
+ * A slot's keys are written before its value is published with release semantics, removed slots become tombstones
+ * that are only dropped when the table is rebuilt, and a rebuilt or cleared table is published as a new array, so a
+ * reader never pairs a key with another key's value. A put over an existing key swaps the value in its slot, so
+ * readers never miss the key meanwhile. Null keys and values are not allowed.
+ *
+ * @author chenfeng
+ */
+public class ObjectLongKeyMap<KeyType, ValueType> {
+
+  private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  private static final Object TOMBSTONE = new Object();
+
+  private volatile Table iTable;
+
+  private volatile int iSize;
+
+  private int iTombstones;
+
+  public ObjectLongKeyMap() {
+    this(Hashing.MIN_CAPACITY);
+  }
+
+  public ObjectLongKeyMap(int expectedSize) {
+    iTable = new Table(Hashing.sparseCapacityFor(expectedSize));
+  }
+
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType first, long second) {
+    Table table = iTable;
+    int mask = table.values.length - 1;
+    for (int i = Hashing.mix(first.hashCode(), second) & mask; ; i = (i + 1) & mask) {
+      Object value = VALUES.getAcquire(table.values, i);
+      if (value == null)
+        return null;
+      if (value != TOMBSTONE && first.equals(table.firstKeys[i]) && table.secondKeys[i] == second)
+        return (ValueType) value;
+    }
+  }
+
+  public boolean containsKey(KeyType first, long second) {
+    return get(first, second) != null;
+  }
+
+  /**
+   * @return the previous value, or null if there was none
+   */
+  public ValueType put(KeyType first, long second, ValueType value) {
+    if (first == null || value == null)
+      throw new NullPointerException("Key and value must not be null");
+
+    ValueType previous = replace(first, second, value);
+    if (previous == null)
+      insert(first, second, value);
+    return previous;
+  }
+
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType first, long second) {
+    Table table = iTable;
+    int mask = table.values.length - 1;
+    for (int i = Hashing.mix(first.hashCode(), second) & mask; ; i = (i + 1) & mask) {
+      Object value = table.values[i];
+      if (value == null)
+        return null;
+      if (value != TOMBSTONE && first.equals(table.firstKeys[i]) && table.secondKeys[i] == second) {
+        VALUES.setRelease(table.values, i, TOMBSTONE);
+        iSize--;
+        iTombstones++;
+        return (ValueType) value;
+      }
+    }
+  }
+
+  public int size() {
+    return iSize;
+  }
+
+  public boolean isEmpty() {
+    return iSize == 0;
+  }
+
+  public void clear() {
+    iTable = new Table(Hashing.MIN_CAPACITY);
+    iSize = 0;
+    iTombstones = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(ObjectLongObjectConsumer<KeyType, ValueType> consumer) {
+    Table table = iTable;
+    for (int i = 0; i < table.values.length; i++) {
+      Object value = VALUES.getAcquire(table.values, i);
+      if (value != null && value != TOMBSTONE)
+        consumer.accept((KeyType) table.firstKeys[i], table.secondKeys[i], (ValueType) value);
+    }
+  }
+
+  /**
+   * Swaps the value of an existing key in place, so a concurrent reader sees the old or the new value but never a
+   * missing key.
+   *
+   * @return the previous value, or null if the key is absent
+   */
+  @SuppressWarnings("unchecked")
+  private ValueType replace(KeyType first, long second, ValueType value) {
+    Table table = iTable;
+    int mask = table.values.length - 1;
+    for (int i = Hashing.mix(first.hashCode(), second) & mask; ; i = (i + 1) & mask) {
+      Object previous = table.values[i];
+      if (previous == null)
+        return null;
+      if (previous != TOMBSTONE && first.equals(table.firstKeys[i]) && table.secondKeys[i] == second) {
+        VALUES.setRelease(table.values, i, value);
+        return (ValueType) previous;
+      }
+    }
+  }
+
+  private void insert(KeyType first, long second, ValueType value) {
+    Table table = iTable;
+    if ((iSize + iTombstones + 1) * 4L > table.values.length * 3L) {
+      table = rebuild(table, Hashing.sparseCapacityFor(iSize + 1));
+      iTable = table;
+      iTombstones = 0;
+    }
+
+    int mask = table.values.length - 1;
+    int i = Hashing.mix(first.hashCode(), second) & mask;
+    while (table.values[i] != null)
+      i = (i + 1) & mask;
+
+    table.firstKeys[i] = first;
+    table.secondKeys[i] = second;
+    VALUES.setRelease(table.values, i, value);
+    iSize++;
+  }
+
+  private static Table rebuild(Table old, int capacity) {
+    Table table = new Table(capacity);
+    int mask = capacity - 1;
+    for (int j = 0; j < old.values.length; j++) {
+      Object value = old.values[j];
+      if (value == null || value == TOMBSTONE)
+        continue;
+
+      int i = Hashing.mix(old.firstKeys[j].hashCode(), old.secondKeys[j]) & mask;
+      while (table.values[i] != null)
+        i = (i + 1) & mask;
+      table.firstKeys[i] = old.firstKeys[j];
+      table.secondKeys[i] = old.secondKeys[j];
+      table.values[i] = value;
+    }
+    return table;
+  }
+
+  private static final class Table {
+
+    final Object[] firstKeys;
+
+    final long[] secondKeys;
+
+    final Object[] values;
+
+    Table(int capacity) {
+      firstKeys = new Object[capacity];
+      secondKeys = new long[capacity];
+      values = new Object[capacity];
+    }
+  }
+}
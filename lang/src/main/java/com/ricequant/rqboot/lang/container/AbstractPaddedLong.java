@@ -0,0 +1,17 @@
+package com.ricequant.rqboot.lang.container;
+
+/**
+ * A {@code long} padded with 56 bytes on each side, so it never shares a 64 byte cache line with another hot field and
+ * writers of neighbouring values do not invalidate each other's line.
+ *
+ * @author chenfeng
+ */
+@SuppressWarnings("unused")
+abstract class AbstractPaddedLong extends PaddedValue implements ILongContainer {
+
+  protected long p9, p10, p11, p12, p13, p14, p15;
+
+  AbstractPaddedLong(long initialValue) {
+    VALUE.setRelease(this, initialValue);
+  }
+}
@@ -1,6 +1,9 @@
 package com.ricequant.rqboot.lang.container;
 
 /**
+ * A mutable {@code long}. {@link NaiveContainer} is a plain field for single-threaded use; share values between
+ * threads with {@link PaddedAtomicLong}, {@link SingleWriterSequence} or {@link StripedLongCounter}.
+ *
  * @author chenfeng
  */
 public interface ILongContainer {
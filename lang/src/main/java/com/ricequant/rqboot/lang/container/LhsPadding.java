@@ -0,0 +1,13 @@
+package com.ricequant.rqboot.lang.container;
+
+/**
+ * Cache line padding laid out before {@link PaddedValue#iValue}. Superclass fields are placed first, so these sit
+ * between the value and whatever precedes the object in memory.
+ *
+ * @author chenfeng
+ */
+@SuppressWarnings("unused")
+abstract class LhsPadding {
+
+  protected long p1, p2, p3, p4, p5, p6, p7;
+}
@@ -0,0 +1,83 @@
+package com.ricequant.rqboot.lang.container;
+
+/**
+ * A cache-line padded atomic {@code long} for sequences and counters shared between threads. {@link #get()} and
+ * {@link #set(long)} are volatile; the weaker modes let a caller pay only for the ordering it needs:
+ * <ul>
+ * <li>plain: no ordering, for values only this thread reads or that are published by a later release</li>
+ * <li>opaque: no reordering of accesses to this value alone, e.g. a progress counter polled by a monitor</li>
+ * <li>acquire/release: a release write publishes every write made before it to a thread that reads it with
+ * acquire</li>
+ * </ul>
+ *
+ * @author chenfeng
+ */
+public class PaddedAtomicLong extends AbstractPaddedLong {
+
+  public PaddedAtomicLong() {
+    this(0);
+  }
+
+  public PaddedAtomicLong(long initialValue) {
+    super(initialValue);
+  }
+
+  @Override
+  public long get() {
+    return iValue;
+  }
+
+  @Override
+  public void set(long value) {
+    iValue = value;
+  }
+
+  public long getPlain() {
+    return (long) VALUE.get(this);
+  }
+
+  public void setPlain(long value) {
+    VALUE.set(this, value);
+  }
+
+  public long getOpaque() {
+    return (long) VALUE.getOpaque(this);
+  }
+
+  public void setOpaque(long value) {
+    VALUE.setOpaque(this, value);
+  }
+
+  public long getAcquire() {
+    return (long) VALUE.getAcquire(this);
+  }
+
+  public void setRelease(long value) {
+    VALUE.setRelease(this, value);
+  }
+
+  public boolean compareAndSet(long expected, long value) {
+    return VALUE.compareAndSet(this, expected, value);
+  }
+
+  public long getAndSet(long value) {
+    return (long) VALUE.getAndSet(this, value);
+  }
+
+  public long getAndAdd(long delta) {
+    return (long) VALUE.getAndAdd(this, delta);
+  }
+
+  public long addAndGet(long delta) {
+    return (long) VALUE.getAndAdd(this, delta) + delta;
+  }
+
+  public long incrementAndGet() {
+    return addAndGet(1);
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(get());
+  }
+}
@@ -0,0 +1,23 @@
+package com.ricequant.rqboot.lang.container;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @author chenfeng
+ */
+abstract class PaddedValue extends LhsPadding {
+
+  protected static final VarHandle VALUE;
+
+  static {
+    try {
+      VALUE = MethodHandles.lookup().findVarHandle(PaddedValue.class, "iValue", long.class);
+    }
+    catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  protected volatile long iValue;
+}
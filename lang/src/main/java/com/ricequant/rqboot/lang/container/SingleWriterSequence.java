@@ -0,0 +1,64 @@
+package com.ricequant.rqboot.lang.container;
+
+/**
+ * A cache-line padded cursor owned by one writer thread, e.g. the position a producer has published up to or a
+ * consumer has processed up to. Only the owning thread may call {@link #set(long)} or {@link #increment()}; any thread
+ * may {@link #get()}.
+ * <p>
+ * Because there is a single writer, advancing needs no compare-and-set: the writer reads its own value plainly and
+ * publishes the new one with a release store, which is much cheaper than a volatile write. A reader that sees a value
+ * also sees every write the owner made before publishing it.
+ *
+ * @author chenfeng
+ */
+public class SingleWriterSequence extends AbstractPaddedLong {
+
+  public SingleWriterSequence() {
+    this(0);
+  }
+
+  public SingleWriterSequence(long initialValue) {
+    super(initialValue);
+  }
+
+  /**
+   * Reads with acquire semantics.
+   */
+  @Override
+  public long get() {
+    return (long) VALUE.getAcquire(this);
+  }
+
+  /**
+   * Publishes with release semantics. Owner thread only.
+   */
+  @Override
+  public void set(long value) {
+    VALUE.setRelease(this, value);
+  }
+
+  /**
+   * Owner thread only.
+   *
+   * @return the new value
+   */
+  public long increment() {
+    return add(1);
+  }
+
+  /**
+   * Owner thread only.
+   *
+   * @return the new value
+   */
+  public long add(long delta) {
+    long value = (long) VALUE.get(this) + delta;
+    VALUE.setRelease(this, value);
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(get());
+  }
+}
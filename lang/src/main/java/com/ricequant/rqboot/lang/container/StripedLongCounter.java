@@ -0,0 +1,57 @@
+package com.ricequant.rqboot.lang.container;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter that many threads add to but that is read rarely, such as a hit or message count. Updates are spread over
+ * the padded cells of a {@link LongAdder} by thread, so concurrent writers do not contend on one cache line; reading
+ * sums the cells.
+ * <p>
+ * {@link #get()} is not an atomic snapshot while updates are in flight, and {@link #set(long)} is only exact when no
+ * other thread is adding at the same time.
+ *
+ * @author chenfeng
+ */
+public class StripedLongCounter implements ILongContainer {
+
+  private final LongAdder iAdder = new LongAdder();
+
+  public StripedLongCounter() {
+
+  }
+
+  public StripedLongCounter(long initialValue) {
+    iAdder.add(initialValue);
+  }
+
+  public void increment() {
+    iAdder.increment();
+  }
+
+  public void add(long delta) {
+    iAdder.add(delta);
+  }
+
+  @Override
+  public long get() {
+    return iAdder.sum();
+  }
+
+  @Override
+  public void set(long value) {
+    iAdder.reset();
+    iAdder.add(value);
+  }
+
+  /**
+   * @return the count before the reset, e.g. the number of events in the interval that just ended
+   */
+  public long getAndReset() {
+    return iAdder.sumThenReset();
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(get());
+  }
+}
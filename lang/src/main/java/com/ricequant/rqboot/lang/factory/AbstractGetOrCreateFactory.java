@@ -1,9 +1,13 @@
 package com.ricequant.rqboot.lang.factory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -17,15 +21,124 @@ public abstract class AbstractGetOrCreateFactory<KeyType, ObjectType> {
 
   private final ReentrantLock lock = new ReentrantLock();
 
+  private final ConcurrencyMode iConcurrencyMode;
+
+  private final LockStripes iStripes;
+
+  private volatile FactoryStats iStats;
+
   public AbstractGetOrCreateFactory() {
-    iMap = new ConcurrentHashMap<>();
+    this(new ConcurrentHashMap<>(), ConcurrencyMode.GLOBAL_LOCK);
   }
 
   public AbstractGetOrCreateFactory(Map<KeyType, ObjectType> map) {
+    this(map, ConcurrencyMode.GLOBAL_LOCK);
+  }
+
+  public AbstractGetOrCreateFactory(ConcurrencyMode concurrencyMode) {
+    this(new ConcurrentHashMap<>(), concurrencyMode);
+  }
+
+  /**
+   * @param map
+   *         the backing map. In {@link ConcurrencyMode#STRIPED} mode readers access it without locking, so it must be a
+   *         {@link ConcurrentMap}.
+   * @param concurrencyMode
+   *         how readers and creators are coordinated. Creators must not call back into the factory under
+   *         {@link ConcurrencyMode#STRIPED}, see there.
+   */
+  public AbstractGetOrCreateFactory(Map<KeyType, ObjectType> map, ConcurrencyMode concurrencyMode) {
+    if (concurrencyMode == ConcurrencyMode.STRIPED && !(map instanceof ConcurrentMap))
+      throw new IllegalArgumentException(
+              "Striped concurrency requires a ConcurrentMap, got: " + map.getClass().getName());
+
     iMap = map;
+    iConcurrencyMode = concurrencyMode;
+    iStripes = concurrencyMode == ConcurrencyMode.STRIPED ? new LockStripes(LockStripes.DEFAULT_STRIPES) : null;
+  }
+
+  public final ConcurrencyMode concurrencyMode() {
+    return iConcurrencyMode;
+  }
+
+  /**
+   * Starts recording hits, misses, creator time and evictions. Recording is off by default; once on, it costs a few
+   * striped counter increments per call, plus two {@link System#nanoTime()} calls per creation.
+   *
+   * @return the statistics of this factory
+   */
+  public final synchronized FactoryStats enableStats() {
+    if (iStats == null)
+      iStats = new FactoryStats();
+    return iStats;
+  }
+
+  /**
+   * @return the statistics of this factory, or null if {@link #enableStats()} was never called
+   */
+  public final FactoryStats stats() {
+    return iStats;
+  }
+
+  protected final void recordHit() {
+    FactoryStats stats = iStats;
+    if (stats != null)
+      stats.recordHit();
+  }
+
+  /**
+   * Records a call that found no value but waited for a creation already started by another caller.
+   */
+  protected final void recordCoalesced() {
+    FactoryStats stats = iStats;
+    if (stats != null)
+      stats.recordCoalesced();
+  }
+
+  /**
+   * @return the start time to pass to {@link #recordCreation(long)} or {@link #recordFailedCreation(long)}, or 0 when
+   * statistics are off
+   */
+  protected final long creationStart() {
+    return iStats == null ? 0L : System.nanoTime();
+  }
+
+  protected final void recordCreation(long startNanos) {
+    FactoryStats stats = iStats;
+    if (stats != null)
+      stats.recordCreation(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Records a creator run that threw, as a miss and as a failure.
+   */
+  protected final void recordFailedCreation(long startNanos) {
+    FactoryStats stats = iStats;
+    if (stats != null)
+      stats.recordFailure(System.nanoTime() - startNanos);
+  }
+
+  protected final void recordEviction() {
+    FactoryStats stats = iStats;
+    if (stats != null)
+      stats.recordEviction();
+  }
+
+  /**
+   * Returns the lock that guards creation of the given key: the factory lock in {@link ConcurrencyMode#GLOBAL_LOCK}
+   * mode, or the key's stripe in {@link ConcurrencyMode#STRIPED} mode.
+   */
+  protected final Lock lockFor(KeyType key) {
+    if (iStripes == null)
+      return lock;
+
+    return iStripes.lockFor(key);
   }
 
   public Set<KeyType> keySet() {
+    if (iStripes != null)
+      return iMap.keySet();
+
     try {
       lock.lock();
       return iMap.keySet();
@@ -36,6 +149,9 @@ public abstract class AbstractGetOrCreateFactory<KeyType, ObjectType> {
   }
 
   public ObjectType get(KeyType key) {
+    if (iStripes != null)
+      return iMap.get(key);
+
     try {
       lock.lock();
       return iMap.get(key);
@@ -45,35 +161,58 @@ public abstract class AbstractGetOrCreateFactory<KeyType, ObjectType> {
     }
   }
 
+  /**
+   * Takes exclusive control of the factory. In {@link ConcurrencyMode#STRIPED} mode this acquires every stripe, which
+   * blocks creators and writers but not readers.
+   */
   public void lock() {
-    lock.lock();
+    if (iStripes == null) {
+      lock.lock();
+      return;
+    }
+
+    iStripes.lockAll();
   }
 
   public void unlock() {
-    lock.unlock();
+    if (iStripes == null) {
+      lock.unlock();
+      return;
+    }
+
+    iStripes.unlockAll();
   }
 
   public final ObjectType put(KeyType key, ObjectType object) {
+    Lock keyLock = lockFor(key);
     try {
-      lock.lock();
-      return iMap.put(key, object);
+      keyLock.lock();
+      ObjectType previous = iMap.put(key, object);
+      afterPut(key, previous);
+      return previous;
     }
     finally {
-      lock.unlock();
+      keyLock.unlock();
     }
   }
 
   public final ObjectType remove(KeyType key) {
+    Lock keyLock = lockFor(key);
     try {
-      lock.lock();
-      return iMap.remove(key);
+      keyLock.lock();
+      ObjectType removed = iMap.remove(key);
+      afterRemove(key, removed);
+      return removed;
     }
     finally {
-      lock.unlock();
+      keyLock.unlock();
     }
   }
 
   public final boolean contains(KeyType key) {
+    if (iStripes != null)
+      return iMap.containsKey(key);
+
     try {
       lock.lock();
       return iMap.containsKey(key);
@@ -85,25 +224,28 @@ public abstract class AbstractGetOrCreateFactory<KeyType, ObjectType> {
 
   public void forAllValues(Consumer<ObjectType> consumer) {
     try {
-      lock.lock();
+      lock();
       iMap.values().forEach(consumer::accept);
     }
     finally {
-      lock.unlock();
+      unlock();
     }
   }
 
   public void forAllKeys(Consumer<KeyType> consumer) {
     try {
-      lock.lock();
+      lock();
       iMap.keySet().forEach(consumer);
     }
     finally {
-      lock.unlock();
+      unlock();
     }
   }
 
   public int size() {
+    if (iStripes != null)
+      return iMap.size();
+
     try {
       lock.lock();
       return iMap.size();
@@ -115,17 +257,87 @@ public abstract class AbstractGetOrCreateFactory<KeyType, ObjectType> {
 
   public void forAllEntries(BiConsumer<KeyType, ObjectType> consumer) {
     try {
-      lock.lock();
+      lock();
       iMap.entrySet().forEach((entry -> {
         consumer.accept(entry.getKey(), entry.getValue());
       }));
     }
     finally {
-      lock.unlock();
+      unlock();
+    }
+  }
+
+  public void forAllValues(Consumer<ObjectType> consumer, TraversalMode mode) {
+    if (mode == TraversalMode.LOCKED)
+      forAllValues(consumer);
+    else if (mode == TraversalMode.WEAKLY_CONSISTENT && iMap instanceof ConcurrentMap)
+      iMap.values().forEach(consumer);
+    else
+      snapshot().values().forEach(consumer);
+  }
+
+  public void forAllKeys(Consumer<KeyType> consumer, TraversalMode mode) {
+    if (mode == TraversalMode.LOCKED)
+      forAllKeys(consumer);
+    else if (mode == TraversalMode.WEAKLY_CONSISTENT && iMap instanceof ConcurrentMap)
+      iMap.keySet().forEach(consumer);
+    else
+      snapshot().keySet().forEach(consumer);
+  }
+
+  public void forAllEntries(BiConsumer<KeyType, ObjectType> consumer, TraversalMode mode) {
+    if (mode == TraversalMode.LOCKED)
+      forAllEntries(consumer);
+    else if (mode == TraversalMode.WEAKLY_CONSISTENT && iMap instanceof ConcurrentMap)
+      iMap.forEach(consumer);
+    else
+      snapshot().forEach(consumer);
+  }
+
+  /**
+   * Runs the consumer on every value in parallel on the common {@link java.util.concurrent.ForkJoinPool}, without
+   * holding the factory lock. Meant for CPU-heavy per-entry work; the consumer must be thread-safe. Traversal of a
+   * concurrent map is weakly consistent as in {@link TraversalMode#WEAKLY_CONSISTENT}, otherwise it runs on a
+   * snapshot.
+   */
+  public void forAllValuesParallel(Consumer<ObjectType> consumer) {
+    forAllValuesParallel(consumer, 1);
+  }
+
+  /**
+   * @param parallelismThreshold
+   *         the estimated number of entries below which the traversal runs sequentially on the calling thread
+   */
+  public void forAllValuesParallel(Consumer<ObjectType> consumer, long parallelismThreshold) {
+    if (iMap instanceof ConcurrentHashMap) {
+      ((ConcurrentHashMap<KeyType, ObjectType>) iMap).forEachValue(parallelismThreshold, consumer);
+      return;
+    }
+
+    Collection<ObjectType> values = snapshot().values();
+    if (values.size() < parallelismThreshold)
+      values.forEach(consumer);
+    else
+      new ArrayList<>(values).parallelStream().forEach(consumer);
+  }
+
+  /**
+   * @return a point-in-time copy of the entries, taken under the factory lock
+   */
+  public Map<KeyType, ObjectType> snapshot() {
+    try {
+      lock();
+      return new HashMap<>(iMap);
+    }
+    finally {
+      unlock();
     }
   }
 
   public Set<Map.Entry<KeyType, ObjectType>> entries() {
+    if (iStripes != null)
+      return iMap.entrySet();
+
     try {
       lock.lock();
       return iMap.entrySet();
@@ -137,15 +349,19 @@ public abstract class AbstractGetOrCreateFactory<KeyType, ObjectType> {
 
   public final void clear() {
     try {
-      lock.lock();
+      lock();
       iMap.clear();
+      afterClear();
     }
     finally {
-      lock.unlock();
+      unlock();
     }
   }
 
   public Collection<ObjectType> values() {
+    if (iStripes != null)
+      return iMap.values();
+
     try {
       lock.lock();
       return iMap.values();
@@ -154,4 +370,31 @@ public abstract class AbstractGetOrCreateFactory<KeyType, ObjectType> {
       lock.unlock();
     }
   }
+
+  /**
+   * Called by {@link #put} after the mapping is stored, while the key's lock is held.
+   *
+   * @param previous
+   *         the value replaced by the put, or null if the key was absent
+   */
+  protected void afterPut(KeyType key, ObjectType previous) {
+
+  }
+
+  /**
+   * Called by {@link #remove} after the key is removed, while the key's lock is held.
+   *
+   * @param removed
+   *         the value removed, or null if the key was absent
+   */
+  protected void afterRemove(KeyType key, ObjectType removed) {
+
+  }
+
+  /**
+   * Called by {@link #clear} after the map is cleared, while the factory is locked.
+   */
+  protected void afterClear() {
+
+  }
 }
@@ -0,0 +1,169 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * A get-or-create factory for slow creators. Creators run on an executor instead of the calling thread, and no lock is
+ * held while they run, so a slow key never blocks other keys.
+ * <p>
+ * Concurrent requests for a key that is being loaded share the same in-flight future, so the creator runs at most once
+ * per key. A load that fails is not cached: its future completes exceptionally and the next request loads again.
+ * <p>
+ * A finished load stores its value under the key's stripe and only if the key is still absent, so a {@link #put}
+ * made meanwhile wins and the future completes with that value. {@link #remove} and {@link #clear} detach the loads
+ * in flight for their keys: those futures still complete with the loaded value, but it is not stored.
+ *
+ * @author chenfeng
+ */
+public class AsyncGetOrCreateFactory<KeyType, ObjectType> extends AbstractGetOrCreateFactory<KeyType, ObjectType> {
+
+  private static final Executor DEFAULT_EXECUTOR =
+          Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("get-or-create-loader-", 0).factory());
+
+  private final Function<KeyType, ObjectType> iCreator;
+
+  private final Executor iExecutor;
+
+  private final Map<KeyType, CompletableFuture<ObjectType>> iLoading = new ConcurrentHashMap<>();
+
+  /**
+   * Runs the creator on a new virtual thread per load.
+   */
+  public AsyncGetOrCreateFactory(Function<KeyType, ObjectType> creator) {
+    this(creator, DEFAULT_EXECUTOR);
+  }
+
+  public AsyncGetOrCreateFactory(Function<KeyType, ObjectType> creator, Executor executor) {
+    super(ConcurrencyMode.STRIPED);
+    iCreator = creator;
+    iExecutor = executor;
+  }
+
+  /**
+   * @return a completed future if the value exists, the in-flight future if another caller is already loading the key,
+   * or a new future completed by the executor once the creator returns
+   */
+  public final CompletableFuture<ObjectType> getOrCreateAsync(KeyType key) {
+    ObjectType value = iMap.get(key);
+    if (value != null) {
+      recordHit();
+      return CompletableFuture.completedFuture(value);
+    }
+
+    CompletableFuture<ObjectType> future = iLoading.get(key);
+    if (future != null) {
+      recordCoalesced();
+      return future;
+    }
+
+    CompletableFuture<ObjectType> created = new CompletableFuture<>();
+    future = iLoading.putIfAbsent(key, created);
+    if (future != null) {
+      recordCoalesced();
+      return future;
+    }
+
+    // a load may have finished between the first lookup and claiming the key
+    value = iMap.get(key);
+    if (value != null) {
+      recordHit();
+      iLoading.remove(key, created);
+      created.complete(value);
+      return created;
+    }
+
+    try {
+      iExecutor.execute(() -> load(key, created));
+    }
+    catch (RejectedExecutionException e) {
+      iLoading.remove(key, created);
+      created.completeExceptionally(e);
+    }
+    return created;
+  }
+
+  /**
+   * Blocking convenience over {@link #getOrCreateAsync}. The creator still runs on the executor.
+   */
+  public final ObjectType getOrCreate(KeyType key) {
+    ObjectType value = iMap.get(key);
+    if (value != null) {
+      recordHit();
+      return value;
+    }
+
+    return getOrCreateAsync(key).join();
+  }
+
+  /**
+   * Requests every key at once, so misses load in parallel on the executor.
+   *
+   * @return a future of the values in the iteration order of {@code keys}; it completes exceptionally if any load fails
+   */
+  public final CompletableFuture<Map<KeyType, ObjectType>> getOrCreateAll(Iterable<? extends KeyType> keys) {
+    Map<KeyType, CompletableFuture<ObjectType>> futures = new LinkedHashMap<>();
+    for (KeyType key : keys)
+      futures.computeIfAbsent(key, this::getOrCreateAsync);
+
+    return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+      Map<KeyType, ObjectType> result = new LinkedHashMap<>();
+      futures.forEach((key, future) -> result.put(key, future.join()));
+      return result;
+    });
+  }
+
+  /**
+   * @return the number of keys whose creator is currently running or queued
+   */
+  public final int loadingCount() {
+    return iLoading.size();
+  }
+
+  private void load(KeyType key, CompletableFuture<ObjectType> future) {
+    long start = creationStart();
+    ObjectType value;
+    try {
+      value = iCreator.apply(key);
+      if (value == null)
+        throw new NullPointerException("Creator returned null for key: " + key);
+    }
+    catch (Throwable t) {
+      recordFailedCreation(start);
+      iLoading.remove(key, future);
+      future.completeExceptionally(t);
+      return;
+    }
+
+    recordCreation(start);
+    ObjectType existing = null;
+    Lock keyLock = lockFor(key);
+    keyLock.lock();
+    try {
+      // a load detached by remove or clear must not bring the key back
+      if (iLoading.remove(key, future))
+        existing = iMap.putIfAbsent(key, value);
+    }
+    finally {
+      keyLock.unlock();
+    }
+    future.complete(existing != null ? existing : value);
+  }
+
+  @Override
+  protected void afterRemove(KeyType key, ObjectType removed) {
+    iLoading.remove(key);
+  }
+
+  @Override
+  protected void afterClear() {
+    iLoading.clear();
+  }
+}
@@ -0,0 +1,25 @@
+package com.ricequant.rqboot.lang.factory;
+
+/**
+ * How a get-or-create factory coordinates readers and creators.
+ *
+ * @author chenfeng
+ */
+public enum ConcurrencyMode {
+
+  /**
+   * Every read and every creation goes through the single factory lock. Misses on different keys are serialized.
+   */
+  GLOBAL_LOCK,
+
+  /**
+   * Reads go straight to the backing concurrent map without locking. Creation is serialized per lock stripe, so the
+   * creator still runs at most once per key while misses on keys in different stripes proceed in parallel.
+   * <p>
+   * The creator runs while its key's stripe is held. A creator that calls back into the same factory for another key
+   * is safe under {@link #GLOBAL_LOCK}, whose lock is reentrant, but can deadlock here: two such creations whose keys
+   * sit on different stripes may take the stripes in opposite order. Use {@link #GLOBAL_LOCK} for creators that
+   * depend on other entries of the same factory.
+   */
+  STRIPED
+}
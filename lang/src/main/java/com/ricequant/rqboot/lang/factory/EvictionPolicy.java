@@ -0,0 +1,26 @@
+package com.ricequant.rqboot.lang.factory;
+
+/**
+ * Decides which entry a size-limited factory gives up when it is full.
+ *
+ * @author chenfeng
+ */
+public enum EvictionPolicy {
+
+  /**
+   * Evicts the entry that was created first, regardless of how often it is read.
+   */
+  FIFO,
+
+  /**
+   * Evicts the least recently read or created entry.
+   */
+  LRU,
+
+  /**
+   * Window TinyLFU: new entries enter a small LRU window, and an entry leaving the window is only admitted to the main
+   * segmented-LRU space if a frequency sketch estimates it is read more often than the main space's victim. One-off
+   * keys therefore cannot flush out hot ones.
+   */
+  TINY_LFU
+}
@@ -0,0 +1,325 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bookkeeping of an {@link EvictionPolicy}: tracks which keys a size-limited factory holds and picks the victim when
+ * it overflows. Every operation is amortized O(1).
+ * <p>
+ * Not thread-safe; the owning factory calls it under its policy lock.
+ *
+ * @author chenfeng
+ */
+abstract class EvictionQueue<KeyType> {
+
+  static <KeyType> EvictionQueue<KeyType> create(EvictionPolicy policy, int capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("Capacity must be positive, got: " + capacity);
+
+    switch (policy) {
+      case FIFO:
+        return new LinkedEvictionQueue<>(capacity, false);
+      case LRU:
+        return new LinkedEvictionQueue<>(capacity, true);
+      case TINY_LFU:
+        return new TinyLfuEvictionQueue<>(capacity);
+      default:
+        throw new IllegalArgumentException("Unsupported eviction policy: " + policy);
+    }
+  }
+
+  /**
+   * Records a read of the key. Keys that are not tracked are ignored.
+   */
+  abstract void recordAccess(KeyType key);
+
+  /**
+   * Starts tracking a newly stored key. Adding a key that is already tracked counts as an access.
+   *
+   * @return the key that must be removed to stay within capacity, which may be the added key itself if the policy
+   * declined to admit it, or null if nothing needs to go
+   */
+  abstract KeyType add(KeyType key);
+
+  abstract void remove(KeyType key);
+
+  abstract void clear();
+
+  abstract int size();
+
+  static final class Node<KeyType> {
+
+    final KeyType key;
+
+    Node<KeyType> prev;
+
+    Node<KeyType> next;
+
+    int segment;
+
+    Node(KeyType key) {
+      this.key = key;
+    }
+  }
+
+  /**
+   * Intrusive doubly-linked list of nodes, oldest first.
+   */
+  static final class NodeList<KeyType> {
+
+    private Node<KeyType> head;
+
+    private Node<KeyType> tail;
+
+    private int size;
+
+    void addLast(Node<KeyType> node) {
+      node.prev = tail;
+      node.next = null;
+      if (tail == null)
+        head = node;
+      else
+        tail.next = node;
+      tail = node;
+      size++;
+    }
+
+    void unlink(Node<KeyType> node) {
+      if (node.prev == null)
+        head = node.next;
+      else
+        node.prev.next = node.next;
+
+      if (node.next == null)
+        tail = node.prev;
+      else
+        node.next.prev = node.prev;
+
+      node.prev = null;
+      node.next = null;
+      size--;
+    }
+
+    void moveToLast(Node<KeyType> node) {
+      if (node != tail) {
+        unlink(node);
+        addLast(node);
+      }
+    }
+
+    Node<KeyType> first() {
+      return head;
+    }
+
+    int size() {
+      return size;
+    }
+
+    void clear() {
+      head = null;
+      tail = null;
+      size = 0;
+    }
+  }
+
+  /**
+   * FIFO or LRU order over a single list.
+   */
+  private static final class LinkedEvictionQueue<KeyType> extends EvictionQueue<KeyType> {
+
+    private final int iCapacity;
+
+    private final boolean iAccessOrder;
+
+    private final Map<KeyType, Node<KeyType>> iNodes = new HashMap<>();
+
+    private final NodeList<KeyType> iList = new NodeList<>();
+
+    LinkedEvictionQueue(int capacity, boolean accessOrder) {
+      iCapacity = capacity;
+      iAccessOrder = accessOrder;
+    }
+
+    @Override
+    void recordAccess(KeyType key) {
+      if (!iAccessOrder)
+        return;
+
+      Node<KeyType> node = iNodes.get(key);
+      if (node != null)
+        iList.moveToLast(node);
+    }
+
+    @Override
+    KeyType add(KeyType key) {
+      if (iNodes.containsKey(key)) {
+        recordAccess(key);
+        return null;
+      }
+
+      Node<KeyType> node = new Node<>(key);
+      iNodes.put(key, node);
+      iList.addLast(node);
+
+      if (iList.size() <= iCapacity)
+        return null;
+
+      Node<KeyType> victim = iList.first();
+      iList.unlink(victim);
+      iNodes.remove(victim.key);
+      return victim.key;
+    }
+
+    @Override
+    void remove(KeyType key) {
+      Node<KeyType> node = iNodes.remove(key);
+      if (node != null)
+        iList.unlink(node);
+    }
+
+    @Override
+    void clear() {
+      iNodes.clear();
+      iList.clear();
+    }
+
+    @Override
+    int size() {
+      return iList.size();
+    }
+  }
+
+  /**
+   * Window TinyLFU: an LRU admission window of 1% of the capacity in front of a segmented LRU main space split 20/80
+   * into probation and protected segments.
+   */
+  private static final class TinyLfuEvictionQueue<KeyType> extends EvictionQueue<KeyType> {
+
+    private static final int WINDOW = 0;
+
+    private static final int PROBATION = 1;
+
+    private static final int PROTECTED = 2;
+
+    private final int iWindowCapacity;
+
+    private final int iMainCapacity;
+
+    private final int iProtectedCapacity;
+
+    private final FrequencySketch iSketch;
+
+    private final Map<KeyType, Node<KeyType>> iNodes = new HashMap<>();
+
+    private final NodeList<KeyType> iWindow = new NodeList<>();
+
+    private final NodeList<KeyType> iProbation = new NodeList<>();
+
+    private final NodeList<KeyType> iProtected = new NodeList<>();
+
+    TinyLfuEvictionQueue(int capacity) {
+      iWindowCapacity = Math.max(1, capacity / 100);
+      iMainCapacity = capacity - iWindowCapacity;
+      iProtectedCapacity = (int) (iMainCapacity * 0.8);
+      iSketch = new FrequencySketch(capacity);
+    }
+
+    @Override
+    void recordAccess(KeyType key) {
+      Node<KeyType> node = iNodes.get(key);
+      if (node == null)
+        return;
+
+      iSketch.increment(key);
+      switch (node.segment) {
+        case WINDOW:
+          iWindow.moveToLast(node);
+          break;
+        case PROBATION:
+          iProbation.unlink(node);
+          node.segment = PROTECTED;
+          iProtected.addLast(node);
+          if (iProtected.size() > iProtectedCapacity) {
+            Node<KeyType> demoted = iProtected.first();
+            iProtected.unlink(demoted);
+            demoted.segment = PROBATION;
+            iProbation.addLast(demoted);
+          }
+          break;
+        default:
+          iProtected.moveToLast(node);
+          break;
+      }
+    }
+
+    @Override
+    KeyType add(KeyType key) {
+      if (iNodes.containsKey(key)) {
+        recordAccess(key);
+        return null;
+      }
+
+      iSketch.increment(key);
+      Node<KeyType> node = new Node<>(key);
+      node.segment = WINDOW;
+      iNodes.put(key, node);
+      iWindow.addLast(node);
+
+      if (iWindow.size() <= iWindowCapacity)
+        return null;
+
+      Node<KeyType> candidate = iWindow.first();
+      iWindow.unlink(candidate);
+      if (iMainCapacity == 0) {
+        iNodes.remove(candidate.key);
+        return candidate.key;
+      }
+
+      candidate.segment = PROBATION;
+      iProbation.addLast(candidate);
+      if (iProbation.size() + iProtected.size() <= iMainCapacity)
+        return null;
+
+      Node<KeyType> victim = iProbation.first();
+      Node<KeyType> evicted =
+              iSketch.frequency(candidate.key) > iSketch.frequency(victim.key) ? victim : candidate;
+      iProbation.unlink(evicted);
+      iNodes.remove(evicted.key);
+      return evicted.key;
+    }
+
+    @Override
+    void remove(KeyType key) {
+      Node<KeyType> node = iNodes.remove(key);
+      if (node == null)
+        return;
+
+      switch (node.segment) {
+        case WINDOW:
+          iWindow.unlink(node);
+          break;
+        case PROBATION:
+          iProbation.unlink(node);
+          break;
+        default:
+          iProtected.unlink(node);
+          break;
+      }
+    }
+
+    @Override
+    void clear() {
+      iNodes.clear();
+      iWindow.clear();
+      iProbation.clear();
+      iProtected.clear();
+      iSketch.clear();
+    }
+
+    @Override
+    int size() {
+      return iNodes.size();
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A get-or-create factory whose entries expire a fixed duration after they were written or last accessed, see
+ * {@link ExpiryMode}. An expired entry is never returned by {@link #get} or {@link #getOrCreate}; the latter creates a
+ * fresh value in its place.
+ * <p>
+ * Expired entries are purged by a {@link TimingWheel} that is advanced from the factory's own operations, so there is
+ * no timer thread and no per-entry scheduled task. Purging happens at most one wheel tick (1/64 of the duration) after
+ * the deadline, or when {@link #cleanUp()} is called. Until then {@link #contains}, {@link #size} and the bulk
+ * accessors may still see the stale entry.
+ * <p>
+ * Reads do not lock; creation is serialized per key stripe as in {@link ConcurrencyMode#STRIPED}, so a creator must
+ * not call back into the factory for another key.
+ *
+ * @author chenfeng
+ */
+public class ExpiringGetOrCreateFactory<KeyType, ObjectType> extends AbstractGetOrCreateFactory<KeyType, ObjectType> {
+
+  private static final int WHEEL_BUCKETS = 512;
+
+  private static final int TICKS_PER_DURATION = 64;
+
+  private static final long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Function<KeyType, ObjectType> iCreator;
+
+  private final ExpiryMode iExpiryMode;
+
+  private final long iDurationNanos;
+
+  private final IEvictionListener<KeyType, ObjectType> iExpiryListener;
+
+  private final LongSupplier iTicker;
+
+  private final long iOrigin;
+
+  private final Map<KeyType, TimingWheel.Timer<KeyType, ObjectType>> iTimers = new ConcurrentHashMap<>();
+
+  private final TimingWheel<KeyType, ObjectType> iWheel;
+
+  private final ReentrantLock iWheelLock = new ReentrantLock();
+
+  public ExpiringGetOrCreateFactory(Function<KeyType, ObjectType> creator, ExpiryMode expiryMode, long duration,
+          TimeUnit unit) {
+    this(creator, expiryMode, duration, unit, null);
+  }
+
+  /**
+   * @param expiryListener
+   *         notified of every entry purged because it expired, may be null
+   */
+  public ExpiringGetOrCreateFactory(Function<KeyType, ObjectType> creator, ExpiryMode expiryMode, long duration,
+          TimeUnit unit, IEvictionListener<KeyType, ObjectType> expiryListener) {
+    this(creator, expiryMode, duration, unit, expiryListener, System::nanoTime);
+  }
+
+  ExpiringGetOrCreateFactory(Function<KeyType, ObjectType> creator, ExpiryMode expiryMode, long duration,
+          TimeUnit unit, IEvictionListener<KeyType, ObjectType> expiryListener, LongSupplier nanoTicker) {
+    super(ConcurrencyMode.STRIPED);
+    if (duration <= 0)
+      throw new IllegalArgumentException("Duration must be positive, got: " + duration);
+
+    iCreator = creator;
+    iExpiryMode = expiryMode;
+    iDurationNanos = unit.toNanos(duration);
+    iExpiryListener = expiryListener;
+    iTicker = nanoTicker;
+    iOrigin = nanoTicker.getAsLong();
+    iWheel = new TimingWheel<>(Math.max(MIN_TICK_NANOS, iDurationNanos / TICKS_PER_DURATION), WHEEL_BUCKETS, 0);
+  }
+
+  public final ObjectType getOrCreate(KeyType key) {
+    long now = now();
+    ObjectType value = liveValue(key, now);
+    if (value != null) {
+      recordHit();
+      return value;
+    }
+
+    Lock keyLock = lockFor(key);
+    keyLock.lock();
+    try {
+      // the clock is read again after waiting for the lock and after creating, so neither shortens the new entry's life
+      value = liveValue(key, now());
+      if (value == null) {
+        long start = creationStart();
+        try {
+          value = iCreator.apply(key);
+        }
+        catch (RuntimeException | Error e) {
+          recordFailedCreation(start);
+          throw e;
+        }
+        recordCreation(start);
+        iMap.put(key, value);
+        replaceTimer(key, value, now());
+      }
+      else {
+        recordHit();
+      }
+    }
+    finally {
+      keyLock.unlock();
+    }
+
+    return value;
+  }
+
+  @Override
+  public ObjectType get(KeyType key) {
+    return liveValue(key, now());
+  }
+
+  public final ExpiryMode expiryMode() {
+    return iExpiryMode;
+  }
+
+  public final long durationNanos() {
+    return iDurationNanos;
+  }
+
+  /**
+   * Purges every entry whose deadline has passed. Not required for correctness; useful for applications that want
+   * expired state released while the factory is otherwise idle.
+   */
+  public final void cleanUp() {
+    List<TimingWheel.Timer<KeyType, ObjectType>> expired;
+    iWheelLock.lock();
+    try {
+      expired = advance(now());
+    }
+    finally {
+      iWheelLock.unlock();
+    }
+    notifyExpired(expired);
+  }
+
+  @Override
+  protected void afterPut(KeyType key, ObjectType previous) {
+    replaceTimer(key, iMap.get(key), now());
+  }
+
+  @Override
+  protected void afterRemove(KeyType key, ObjectType removed) {
+    TimingWheel.Timer<KeyType, ObjectType> timer = iTimers.remove(key);
+    if (timer == null)
+      return;
+
+    iWheelLock.lock();
+    try {
+      iWheel.cancel(timer);
+    }
+    finally {
+      iWheelLock.unlock();
+    }
+  }
+
+  @Override
+  protected void afterClear() {
+    iWheelLock.lock();
+    try {
+      iTimers.clear();
+      iWheel.clear();
+    }
+    finally {
+      iWheelLock.unlock();
+    }
+  }
+
+  private long now() {
+    return iTicker.getAsLong() - iOrigin;
+  }
+
+  private ObjectType liveValue(KeyType key, long now) {
+    if (now / iWheel.tickNanos() > iWheel.currentTick() && iWheelLock.tryLock()) {
+      List<TimingWheel.Timer<KeyType, ObjectType>> expired;
+      try {
+        expired = advance(now);
+      }
+      finally {
+        iWheelLock.unlock();
+      }
+      notifyExpired(expired);
+    }
+
+    TimingWheel.Timer<KeyType, ObjectType> timer = iTimers.get(key);
+    if (timer == null || timer.deadline <= now)
+      return null;
+
+    if (iExpiryMode == ExpiryMode.AFTER_ACCESS) {
+      // skip the shared write while the deadline is still within a tick of the latest one
+      long deadline = now + iDurationNanos;
+      if (deadline - timer.deadline >= iWheel.tickNanos())
+        timer.deadline = deadline;
+    }
+    return timer.value;
+  }
+
+  private void replaceTimer(KeyType key, ObjectType value, long now) {
+    TimingWheel.Timer<KeyType, ObjectType> timer = new TimingWheel.Timer<>(key, value, now + iDurationNanos);
+    TimingWheel.Timer<KeyType, ObjectType> previous = iTimers.put(key, timer);
+
+    iWheelLock.lock();
+    try {
+      if (previous != null)
+        iWheel.cancel(previous);
+      iWheel.schedule(timer);
+    }
+    finally {
+      iWheelLock.unlock();
+    }
+  }
+
+  /**
+   * Advances the wheel. Must be called holding the wheel lock.
+   *
+   * @return the purged timers to pass to {@link #notifyExpired} once the lock is released, or null without a listener
+   */
+  private List<TimingWheel.Timer<KeyType, ObjectType>> advance(long now) {
+    List<TimingWheel.Timer<KeyType, ObjectType>> expired = iExpiryListener == null ? null : new ArrayList<>();
+    iWheel.advance(now, timer -> expire(timer, expired));
+    return expired;
+  }
+
+  private void notifyExpired(List<TimingWheel.Timer<KeyType, ObjectType>> expired) {
+    if (expired == null)
+      return;
+
+    for (TimingWheel.Timer<KeyType, ObjectType> timer : expired)
+      iExpiryListener.onEvicted(timer.key, timer.value);
+  }
+
+  private boolean expire(TimingWheel.Timer<KeyType, ObjectType> timer,
+          List<TimingWheel.Timer<KeyType, ObjectType>> expired) {
+    // the wheel lock is held here; only try the key lock so the stripe -> wheel lock order is never inverted
+    Lock keyLock = lockFor(timer.key);
+    if (!keyLock.tryLock())
+      return false;
+
+    try {
+      if (iTimers.get(timer.key) == timer) {
+        iTimers.remove(timer.key);
+        iMap.remove(timer.key);
+        recordEviction();
+        if (expired != null)
+          expired.add(timer);
+      }
+      return true;
+    }
+    finally {
+      keyLock.unlock();
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.ricequant.rqboot.lang.factory;
+
+/**
+ * When an entry of an {@link ExpiringGetOrCreateFactory} becomes stale.
+ *
+ * @author chenfeng
+ */
+public enum ExpiryMode {
+
+  /**
+   * The entry expires a fixed duration after it was created or put.
+   */
+  AFTER_WRITE,
+
+  /**
+   * The entry expires a fixed duration after it was last created, put or read.
+   */
+  AFTER_ACCESS
+}
@@ -11,4 +11,14 @@ public class ExternalMapGetOrCreateFactory<KeyType, ValueType> extends GetOrCrea
   public ExternalMapGetOrCreateFactory(Function<KeyType, ValueType> creator, Map<KeyType, ValueType> map) {
     super(creator, map);
   }
+
+  /**
+   * @param map
+   *         the external map; must be a {@link java.util.concurrent.ConcurrentMap} when {@code concurrencyMode} is
+   *         {@link ConcurrencyMode#STRIPED}, in which case the creator must not call back into this factory
+   */
+  public ExternalMapGetOrCreateFactory(Function<KeyType, ValueType> creator, Map<KeyType, ValueType> map,
+          ConcurrencyMode concurrencyMode) {
+    super(creator, map, concurrencyMode);
+  }
 }
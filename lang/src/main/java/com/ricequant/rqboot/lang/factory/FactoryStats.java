@@ -0,0 +1,126 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a get-or-create factory: hits, misses and coalesced waits of {@code getOrCreate}, creator time and
+ * evictions. Every
+ * counter is a {@link LongAdder}, so concurrent recorders do not contend; reads sum the stripes and are only
+ * approximately consistent with each other.
+ *
+ * @author chenfeng
+ */
+public final class FactoryStats {
+
+  private final LongAdder iHits = new LongAdder();
+
+  private final LongAdder iMisses = new LongAdder();
+
+  private final LongAdder iFailures = new LongAdder();
+
+  private final LongAdder iCoalesced = new LongAdder();
+
+  private final LongAdder iCreationNanos = new LongAdder();
+
+  private final LongAdder iEvictions = new LongAdder();
+
+  private final LatencyHistogram iCreationLatency = new LatencyHistogram();
+
+  void recordHit() {
+    iHits.increment();
+  }
+
+  void recordCreation(long nanos) {
+    iMisses.increment();
+    iCreationNanos.add(nanos);
+    iCreationLatency.record(nanos);
+  }
+
+  void recordFailure(long nanos) {
+    iFailures.increment();
+    recordCreation(nanos);
+  }
+
+  void recordCoalesced() {
+    iCoalesced.increment();
+  }
+
+  void recordEviction() {
+    iEvictions.increment();
+  }
+
+  public long hitCount() {
+    return iHits.sum();
+  }
+
+  /**
+   * @return the number of {@code getOrCreate} calls that ran the creator, including those where it threw
+   */
+  public long missCount() {
+    return iMisses.sum();
+  }
+
+  /**
+   * @return the number of creator runs that threw; they count as misses and their time as creator time
+   */
+  public long failureCount() {
+    return iFailures.sum();
+  }
+
+  /**
+   * @return the number of {@code getOrCreate} calls that found no value and waited for a creator run started by another
+   * call instead of running their own; neither hits nor misses
+   */
+  public long coalescedCount() {
+    return iCoalesced.sum();
+  }
+
+  /**
+   * @return hits over all calls, counting coalesced waits as calls that were not hits
+   */
+  public double hitRatio() {
+    long hits = hitCount();
+    long total = hits + missCount() + coalescedCount();
+    return total == 0 ? 1.0 : (double) hits / total;
+  }
+
+  public long evictionCount() {
+    return iEvictions.sum();
+  }
+
+  public long totalCreationNanos() {
+    return iCreationNanos.sum();
+  }
+
+  public double averageCreationNanos() {
+    long misses = missCount();
+    return misses == 0 ? 0.0 : (double) totalCreationNanos() / misses;
+  }
+
+  /**
+   * @param quantile
+   *         between 0 and 1, e.g. 0.99
+   *
+   * @return an upper bound of the creator time at the quantile, accurate to within a factor of two
+   */
+  public long creationNanosQuantile(double quantile) {
+    return iCreationLatency.quantileUpperBound(quantile);
+  }
+
+  public void reset() {
+    iHits.reset();
+    iMisses.reset();
+    iFailures.reset();
+    iCoalesced.reset();
+    iCreationNanos.reset();
+    iEvictions.reset();
+    iCreationLatency.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "hits=" + hitCount() + ", misses=" + missCount() + ", failures=" + failureCount() + ", coalesced="
+            + coalescedCount() + ", hitRatio=" + hitRatio() + ", evictions=" + evictionCount() + ", avgCreationNanos="
+            + averageCreationNanos() + ", p99CreationNanos=" + creationNanosQuantile(0.99);
+  }
+}
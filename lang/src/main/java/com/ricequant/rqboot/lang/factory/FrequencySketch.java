@@ -0,0 +1,101 @@
+package com.ricequant.rqboot.lang.factory;
+
+/**
+ * A 4-bit count-min sketch estimating how often keys were seen. Each key maps to four counters spread over the table;
+ * its estimate is the minimum of them. Once the number of increments reaches ten times the capacity, every counter is
+ * halved so the estimates follow recent popularity rather than all-time history.
+ * <p>
+ * Not thread-safe; the owner serializes access.
+ *
+ * @author chenfeng
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+          0xcbf29ce484222325L};
+
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private final long[] iTable;
+
+  private final int iTableMask;
+
+  private final int iSampleSize;
+
+  private int iSize;
+
+  FrequencySketch(int capacity) {
+    int tableSize = Math.max(8, ceilingPowerOfTwo(capacity));
+    iTable = new long[tableSize];
+    iTableMask = tableSize - 1;
+    iSampleSize = capacity > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : Math.max(10, 10 * capacity);
+  }
+
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = 15;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((iTable[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++)
+      added |= incrementAt(indexOf(hash, i), start + i);
+
+    if (added && ++iSize == iSampleSize)
+      reset();
+  }
+
+  void clear() {
+    for (int i = 0; i < iTable.length; i++)
+      iTable[i] = 0L;
+    iSize = 0;
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((iTable[index] & mask) != mask) {
+      iTable[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private void reset() {
+    int odd = 0;
+    for (int i = 0; i < iTable.length; i++) {
+      odd += Long.bitCount(iTable[i] & ONE_MASK);
+      iTable[i] = (iTable[i] >>> 1) & RESET_MASK;
+    }
+    iSize = (iSize >>> 1) - (odd >>> 2);
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return ((int) h) & iTableMask;
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    if (x >= 1 << 30)
+      return 1 << 30;
+    return x <= 1 ? 1 : Integer.highestOneBit(x - 1) << 1;
+  }
+}
@@ -1,6 +1,7 @@
 package com.ricequant.rqboot.lang.factory;
 
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Function;
 
 /**
@@ -14,21 +15,61 @@ public class GetOrCreateFactory<KeyType, ObjectType> extends AbstractGetOrCreate
     iCreator = creator;
   }
 
+  /**
+   * @param concurrencyMode
+   *         under {@link ConcurrencyMode#STRIPED} the creator must not call {@link #getOrCreate} on this factory, see
+   *         there
+   */
+  public GetOrCreateFactory(Function<KeyType, ObjectType> creator, ConcurrencyMode concurrencyMode) {
+    super(concurrencyMode);
+    iCreator = creator;
+  }
+
   public GetOrCreateFactory(Function<KeyType, ObjectType> creator, Map<KeyType, ObjectType> map) {
     super(map);
     iCreator = creator;
   }
 
+  /**
+   * @param concurrencyMode
+   *         under {@link ConcurrencyMode#STRIPED} the creator must not call {@link #getOrCreate} on this factory, see
+   *         there
+   */
+  public GetOrCreateFactory(Function<KeyType, ObjectType> creator, Map<KeyType, ObjectType> map,
+          ConcurrencyMode concurrencyMode) {
+    super(map, concurrencyMode);
+    iCreator = creator;
+  }
+
   public final ObjectType getOrCreate(KeyType key) {
     ObjectType value = iMap.get(key);
     if (value == null) {
-      lock();
-      value = iMap.get(key);
-      if (value == null) {
-        value = iCreator.apply(key);
-        iMap.put(key, value);
+      Lock keyLock = lockFor(key);
+      keyLock.lock();
+      try {
+        value = iMap.get(key);
+        if (value == null) {
+          long start = creationStart();
+          try {
+            value = iCreator.apply(key);
+          }
+          catch (RuntimeException | Error e) {
+            recordFailedCreation(start);
+            throw e;
+          }
+          recordCreation(start);
+          iMap.put(key, value);
+        }
+        else {
+          recordHit();
+        }
       }
-      unlock();
+      finally {
+        keyLock.unlock();
+      }
+    }
+    else {
+      recordHit();
     }
 
     return value;
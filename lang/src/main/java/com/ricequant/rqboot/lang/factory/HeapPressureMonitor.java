@@ -0,0 +1,135 @@
+package com.ricequant.rqboot.lang.factory;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sheds registered {@link IMemorySensitive} caches when the heap stays nearly full after garbage collection.
+ * <p>
+ * The monitor sets a collection usage threshold on every long-lived heap pool (old generation, tenured or single
+ * region pools) and listens for the JVM's threshold notifications, so it needs no polling thread: it only runs when a
+ * collection finished and the pool was still above the threshold. Each registered cache then sheds its configured
+ * fraction.
+ *
+ * @author chenfeng
+ */
+public final class HeapPressureMonitor {
+
+  private final List<Registration> iRegistrations = new CopyOnWriteArrayList<>();
+
+  private final List<MemoryPoolMXBean> iPools = new ArrayList<>();
+
+  // the thresholds the pools had before, in the order of iPools
+  private final List<Long> iPreviousThresholds = new ArrayList<>();
+
+  private final NotificationListener iListener = this::onNotification;
+
+  private final NotificationEmitter iEmitter;
+
+  /**
+   * @param usageFraction
+   *         the share of a pool's maximum size that, if still in use after a collection, triggers shedding, e.g. 0.85
+   */
+  public HeapPressureMonitor(double usageFraction) {
+    if (usageFraction <= 0 || usageFraction > 1)
+      throw new IllegalArgumentException("Usage fraction must be in (0, 1], got: " + usageFraction);
+
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (!isLongLivedHeapPool(pool))
+        continue;
+
+      long max = pool.getUsage().getMax();
+      iPreviousThresholds.add(pool.getCollectionUsageThreshold());
+      pool.setCollectionUsageThreshold((long) (max * usageFraction));
+      iPools.add(pool);
+    }
+
+    iEmitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+    iEmitter.addNotificationListener(iListener, null, null);
+  }
+
+  /**
+   * @param fraction
+   *         share of the cache's entries to drop each time the heap is found under pressure
+   */
+  public void register(IMemorySensitive target, double fraction) {
+    iRegistrations.add(new Registration(target, fraction));
+  }
+
+  public void deregister(IMemorySensitive target) {
+    iRegistrations.removeIf(registration -> registration.target == target);
+  }
+
+  /**
+   * Sheds every registered cache now, as if the heap had been found under pressure.
+   *
+   * @return the total number of entries dropped
+   */
+  public int shedAll() {
+    int shed = 0;
+    for (Registration registration : iRegistrations)
+      shed += registration.target.shed(registration.fraction);
+    return shed;
+  }
+
+  /**
+   * @return the names of the memory pools being watched
+   */
+  public List<String> monitoredPools() {
+    List<String> names = new ArrayList<>();
+    for (MemoryPoolMXBean pool : iPools)
+      names.add(pool.getName());
+    return names;
+  }
+
+  /**
+   * Stops listening and restores the collection usage thresholds the pools had before this monitor set them.
+   */
+  public void close() {
+    try {
+      iEmitter.removeNotificationListener(iListener);
+    }
+    catch (Exception e) {
+      // already removed
+    }
+
+    for (int i = 0; i < iPools.size(); i++)
+      iPools.get(i).setCollectionUsageThreshold(iPreviousThresholds.get(i));
+  }
+
+  private void onNotification(Notification notification, Object handback) {
+    if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()))
+      shedAll();
+  }
+
+  private static boolean isLongLivedHeapPool(MemoryPoolMXBean pool) {
+    if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported())
+      return false;
+
+    if (pool.getUsage().getMax() <= 0)
+      return false;
+
+    String name = pool.getName();
+    return !name.contains("Eden") && !name.contains("Survivor") && !name.contains("Young");
+  }
+
+  private static final class Registration {
+
+    final IMemorySensitive target;
+
+    final double fraction;
+
+    Registration(IMemorySensitive target, double fraction) {
+      this.target = target;
+      this.fraction = fraction;
+    }
+  }
+}
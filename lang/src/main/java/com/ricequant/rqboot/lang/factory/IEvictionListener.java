@@ -0,0 +1,13 @@
+package com.ricequant.rqboot.lang.factory;
+
+/**
+ * Receives entries that a factory dropped to stay within its capacity, so the application can release resources held
+ * by them. Called on the thread whose operation caused the eviction, outside the factory's eviction bookkeeping lock.
+ *
+ * @author chenfeng
+ */
+@FunctionalInterface
+public interface IEvictionListener<KeyType, ObjectType> {
+
+  void onEvicted(KeyType key, ObjectType value);
+}
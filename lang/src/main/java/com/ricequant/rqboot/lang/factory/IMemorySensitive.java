@@ -0,0 +1,19 @@
+package com.ricequant.rqboot.lang.factory;
+
+/**
+ * A cache that can give memory back on request, typically registered with a {@link HeapPressureMonitor}.
+ *
+ * @author chenfeng
+ */
+public interface IMemorySensitive {
+
+  /**
+   * Drops the coldest part of the cached state.
+   *
+   * @param fraction
+   *         share of the entries to drop, between 0 and 1
+   *
+   * @return the number of entries dropped
+   */
+  int shed(double fraction);
+}
@@ -0,0 +1,112 @@
+package com.ricequant.rqboot.lang.factory;
+
+import com.ricequant.rqboot.lang.collection.IntLongKeyMap;
+import com.ricequant.rqboot.lang.lambda.IntLongFunction;
+import com.ricequant.rqboot.lang.lambda.IntLongObjectConsumer;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A get-or-create factory keyed by an ({@code int}, {@code long}) pair, backed by an {@link IntLongKeyMap}. Unlike a
+ * factory keyed by {@link com.ricequant.rqboot.lang.HashMapHelper#twoObjectsKey}, a lookup allocates no key object, and
+ * the hit path takes no lock.
+ * <p>
+ * Writers (creation, put, remove) are serialized by the factory lock, so the creator runs at most once per key pair.
+ *
+ * @author chenfeng
+ */
+public class IntLongGetOrCreateFactory<ObjectType> {
+
+  private final IntLongFunction<ObjectType> iCreator;
+
+  private final IntLongKeyMap<ObjectType> iMap;
+
+  private final ReentrantLock iLock = new ReentrantLock();
+
+  public IntLongGetOrCreateFactory(IntLongFunction<ObjectType> creator) {
+    this(creator, 16);
+  }
+
+  public IntLongGetOrCreateFactory(IntLongFunction<ObjectType> creator, int expectedSize) {
+    iCreator = creator;
+    iMap = new IntLongKeyMap<>(expectedSize);
+  }
+
+  public final ObjectType getOrCreate(int first, long second) {
+    ObjectType value = iMap.get(first, second);
+    if (value == null) {
+      iLock.lock();
+      try {
+        value = iMap.get(first, second);
+        if (value == null) {
+          value = iCreator.apply(first, second);
+          iMap.put(first, second, value);
+        }
+      }
+      finally {
+        iLock.unlock();
+      }
+    }
+
+    return value;
+  }
+
+  public ObjectType get(int first, long second) {
+    return iMap.get(first, second);
+  }
+
+  public final boolean contains(int first, long second) {
+    return iMap.containsKey(first, second);
+  }
+
+  public final ObjectType put(int first, long second, ObjectType value) {
+    iLock.lock();
+    try {
+      return iMap.put(first, second, value);
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public final ObjectType remove(int first, long second) {
+    iLock.lock();
+    try {
+      return iMap.remove(first, second);
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public int size() {
+    return iMap.size();
+  }
+
+  public final void clear() {
+    iLock.lock();
+    try {
+      iMap.clear();
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public void lock() {
+    iLock.lock();
+  }
+
+  public void unlock() {
+    iLock.unlock();
+  }
+
+  public void forAllEntries(IntLongObjectConsumer<ObjectType> consumer) {
+    iMap.forEach(consumer);
+  }
+
+  public void forAllValues(Consumer<ObjectType> consumer) {
+    iMap.forEach((first, second, value) -> consumer.accept(value));
+  }
+}
@@ -0,0 +1,65 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of nanosecond latencies with power-of-two buckets: bucket {@code i} counts values in
+ * {@code [2^(i-1), 2^i)}. Recording is one {@link LongAdder} increment, so contended recorders do not share a cache
+ * line; percentiles are accurate to within a factor of two, which is enough to tell microseconds from milliseconds.
+ *
+ * @author chenfeng
+ */
+final class LatencyHistogram {
+
+  private static final int BUCKETS = 64;
+
+  private final LongAdder[] iBuckets = new LongAdder[BUCKETS];
+
+  LatencyHistogram() {
+    for (int i = 0; i < BUCKETS; i++)
+      iBuckets[i] = new LongAdder();
+  }
+
+  void record(long nanos) {
+    iBuckets[bucketOf(nanos)].increment();
+  }
+
+  /**
+   * @param quantile
+   *         between 0 and 1, e.g. 0.99
+   *
+   * @return the upper bound of the bucket holding the quantile, or 0 if nothing was recorded
+   */
+  long quantileUpperBound(double quantile) {
+    long[] counts = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = iBuckets[i].sum();
+      total += counts[i];
+    }
+    if (total == 0)
+      return 0;
+
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0)
+        return upperBound(i);
+    }
+    return upperBound(BUCKETS - 1);
+  }
+
+  void reset() {
+    for (LongAdder bucket : iBuckets)
+      bucket.reset();
+  }
+
+  private static int bucketOf(long nanos) {
+    return nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+  }
+
+  private static long upperBound(int bucket) {
+    return bucket >= 63 ? Long.MAX_VALUE : 1L << bucket;
+  }
+}
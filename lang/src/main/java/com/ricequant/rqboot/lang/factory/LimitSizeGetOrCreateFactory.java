@@ -1,10 +1,18 @@
 package com.ricequant.rqboot.lang.factory;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
+ * A get-or-create factory holding at most {@code capacity} entries. When a creation overflows the capacity, the
+ * configured {@link EvictionPolicy} picks an entry to drop and the optional {@link IEvictionListener} is told about it.
+ * <p>
+ * Reads never lock: hits are recorded in a lossy read buffer that is replayed into the eviction order whenever the
+ * policy lock is taken, so LRU and TinyLFU bookkeeping does not serialize readers. Creation is serialized per key
+ * stripe as in {@link ConcurrencyMode#STRIPED}, so a creator must not call back into the factory for another key.
+ *
  * @author Jeffery
  */
 public final class LimitSizeGetOrCreateFactory<KeyType, ObjectType>
@@ -14,39 +22,194 @@ public final class LimitSizeGetOrCreateFactory<KeyType, ObjectType>
 
   private final int iCapacity;
 
-  private final Deque<KeyType> iKeyArray;
+  private final EvictionPolicy iEvictionPolicy;
+
+  private final EvictionQueue<KeyType> iEvictionQueue;
+
+  private final ReadBuffer<KeyType> iReadBuffer;
+
+  private final Consumer<KeyType> iAccessRecorder;
+
+  private final IEvictionListener<KeyType, ObjectType> iEvictionListener;
+
+  private final ReentrantLock iPolicyLock = new ReentrantLock();
 
   public LimitSizeGetOrCreateFactory(Function<KeyType, ObjectType> creator, int capacity) {
+    this(creator, capacity, EvictionPolicy.FIFO, null);
+  }
+
+  public LimitSizeGetOrCreateFactory(Function<KeyType, ObjectType> creator, int capacity,
+          EvictionPolicy evictionPolicy) {
+    this(creator, capacity, evictionPolicy, null);
+  }
+
+  /**
+   * @param evictionListener
+   *         notified of every entry dropped to stay within capacity, may be null
+   */
+  public LimitSizeGetOrCreateFactory(Function<KeyType, ObjectType> creator, int capacity,
+          EvictionPolicy evictionPolicy, IEvictionListener<KeyType, ObjectType> evictionListener) {
+    super(ConcurrencyMode.STRIPED);
     iCreator = creator;
     iCapacity = capacity;
-    iKeyArray = new ArrayDeque<>();
+    iEvictionPolicy = evictionPolicy;
+    iEvictionQueue = EvictionQueue.create(evictionPolicy, capacity);
+    iReadBuffer = evictionPolicy == EvictionPolicy.FIFO ? null : new ReadBuffer<>();
+    iAccessRecorder = iEvictionQueue::recordAccess;
+    iEvictionListener = evictionListener;
   }
 
   public final ObjectType getOrCreate(KeyType key) {
     ObjectType value = iMap.get(key);
-    if (value == null) {
-      lock();
+    if (value != null) {
+      recordRead(key);
+      recordHit();
+      return value;
+    }
+
+    KeyType evictedKey = null;
+    ObjectType evictedValue = null;
+    // the key's stripe, as in put, so a concurrent put of the same key is never lost or misreported
+    Lock keyLock = lockFor(key);
+    keyLock.lock();
+    try {
       value = iMap.get(key);
-      if (value == null) {
-        if (iKeyArray.size() >= iCapacity) {
-          remove(iKeyArray.getFirst());
-          iKeyArray.removeFirst();
-        }
+      if (value != null) {
+        recordHit();
+        return value;
+      }
 
+      long start = creationStart();
+      try {
         value = iCreator.apply(key);
+      }
+      catch (RuntimeException | Error e) {
+        recordFailedCreation(start);
+        throw e;
+      }
+      recordCreation(start);
+      iPolicyLock.lock();
+      try {
+        drainReads();
         iMap.put(key, value);
-        iKeyArray.addLast(key);
+        evictedKey = iEvictionQueue.add(key);
+        if (evictedKey != null)
+          evictedValue = iMap.remove(evictedKey);
+      }
+      finally {
+        iPolicyLock.unlock();
       }
-      unlock();
+    }
+    finally {
+      keyLock.unlock();
     }
 
+    notifyEvicted(evictedKey, evictedValue);
+    return value;
+  }
+
+  @Override
+  public ObjectType get(KeyType key) {
+    ObjectType value = iMap.get(key);
+    if (value != null)
+      recordRead(key);
     return value;
   }
 
+  public final int capacity() {
+    return iCapacity;
+  }
+
+  public final EvictionPolicy evictionPolicy() {
+    return iEvictionPolicy;
+  }
+
+  /**
+   * Takes exclusive control of the factory, blocking creators, writers and evictions but not readers.
+   */
+  @Override
+  public void lock() {
+    super.lock();
+    iPolicyLock.lock();
+  }
+
+  @Override
+  public void unlock() {
+    iPolicyLock.unlock();
+    super.unlock();
+  }
+
   public final void clearAll() {
-    lock();
-    iMap.clear();
-    iKeyArray.clear();
-    unlock();
+    clear();
+  }
+
+  @Override
+  protected void afterPut(KeyType key, ObjectType previous) {
+    if (previous != null)
+      return;
+
+    KeyType evictedKey;
+    ObjectType evictedValue = null;
+    iPolicyLock.lock();
+    try {
+      evictedKey = iEvictionQueue.add(key);
+      if (evictedKey != null)
+        evictedValue = iMap.remove(evictedKey);
+    }
+    finally {
+      iPolicyLock.unlock();
+    }
+
+    notifyEvicted(evictedKey, evictedValue);
+  }
+
+  @Override
+  protected void afterRemove(KeyType key, ObjectType removed) {
+    if (removed == null)
+      return;
+
+    iPolicyLock.lock();
+    try {
+      iEvictionQueue.remove(key);
+    }
+    finally {
+      iPolicyLock.unlock();
+    }
+  }
+
+  @Override
+  protected void afterClear() {
+    if (iReadBuffer != null)
+      iReadBuffer.drainTo(k -> {
+      });
+    iEvictionQueue.clear();
+  }
+
+  private void recordRead(KeyType key) {
+    if (iReadBuffer == null)
+      return;
+
+    if (iReadBuffer.offer(key) && iPolicyLock.tryLock()) {
+      try {
+        drainReads();
+      }
+      finally {
+        iPolicyLock.unlock();
+      }
+    }
+  }
+
+  private void drainReads() {
+    if (iReadBuffer != null)
+      iReadBuffer.drainTo(iAccessRecorder);
+  }
+
+  private void notifyEvicted(KeyType key, ObjectType value) {
+    if (key == null || value == null)
+      return;
+
+    recordEviction();
+    if (iEvictionListener != null)
+      iEvictionListener.onEvicted(key, value);
   }
 }
@@ -0,0 +1,44 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks that keys hash onto, so operations on different keys mostly take different locks while the
+ * same key always takes the same one.
+ *
+ * @author chenfeng
+ */
+final class LockStripes {
+
+  static final int DEFAULT_STRIPES = 64;
+
+  private final ReentrantLock[] iLocks;
+
+  LockStripes(int count) {
+    int stripes = count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    iLocks = new ReentrantLock[stripes];
+    for (int i = 0; i < stripes; i++)
+      iLocks[i] = new ReentrantLock();
+  }
+
+  Lock lockFor(Object key) {
+    int h = Objects.hashCode(key);
+    h ^= (h >>> 16);
+    return iLocks[h & (iLocks.length - 1)];
+  }
+
+  /**
+   * Acquires every stripe in index order, so two threads locking all stripes cannot deadlock.
+   */
+  void lockAll() {
+    for (ReentrantLock lock : iLocks)
+      lock.lock();
+  }
+
+  void unlockAll() {
+    for (int i = iLocks.length - 1; i >= 0; i--)
+      iLocks[i].unlock();
+  }
+}
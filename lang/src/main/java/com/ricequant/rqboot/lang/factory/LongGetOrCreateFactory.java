@@ -0,0 +1,242 @@
+package com.ricequant.rqboot.lang.factory;
+
+import com.ricequant.rqboot.lang.collection.Hashing;
+import com.ricequant.rqboot.lang.lambda.LongBiConsumer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * A get-or-create factory keyed by primitive {@code long}, backed by an open-addressing table with linear probing. A
+ * lookup neither boxes the key nor allocates a map node, and the hit path takes no lock.
+ * <p>
+ * Writers (creation, put, remove) are serialized by the factory lock, so the creator runs at most once per key.
+ * Readers see a slot only after its value is published with release semantics. Removed slots become tombstones that
+ * are never reused in place, only dropped when the table is rebuilt, so a reader can never pair a key with another
+ * key's value. A put over an existing key swaps the value in its slot, so readers never miss the key meanwhile and
+ * overwrites leave no tombstones.
+ *
+ * @author chenfeng
+ */
+public class LongGetOrCreateFactory<ObjectType> {
+
+  private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  private static final Object TOMBSTONE = new Object();
+
+  private final LongFunction<ObjectType> iCreator;
+
+  private final ReentrantLock iLock = new ReentrantLock();
+
+  private volatile Table iTable;
+
+  private volatile int iSize;
+
+  private int iTombstones;
+
+  public LongGetOrCreateFactory(LongFunction<ObjectType> creator) {
+    this(creator, Hashing.MIN_CAPACITY);
+  }
+
+  public LongGetOrCreateFactory(LongFunction<ObjectType> creator, int expectedSize) {
+    iCreator = creator;
+    iTable = new Table(Hashing.sparseCapacityFor(expectedSize));
+  }
+
+  public final ObjectType getOrCreate(long key) {
+    ObjectType value = get(key);
+    if (value == null) {
+      iLock.lock();
+      try {
+        value = get(key);
+        if (value == null) {
+          value = iCreator.apply(key);
+          insert(key, value);
+        }
+      }
+      finally {
+        iLock.unlock();
+      }
+    }
+
+    return value;
+  }
+
+  @SuppressWarnings("unchecked")
+  public ObjectType get(long key) {
+    Table table = iTable;
+    int mask = table.keys.length - 1;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      Object value = VALUES.getAcquire(table.values, i);
+      if (value == null)
+        return null;
+      if (value != TOMBSTONE && table.keys[i] == key)
+        return (ObjectType) value;
+    }
+  }
+
+  public final boolean contains(long key) {
+    return get(key) != null;
+  }
+
+  public final ObjectType put(long key, ObjectType value) {
+    if (value == null)
+      throw new NullPointerException("Value must not be null");
+
+    iLock.lock();
+    try {
+      ObjectType previous = replaceLocked(key, value);
+      if (previous == null)
+        insert(key, value);
+      return previous;
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public final ObjectType remove(long key) {
+    iLock.lock();
+    try {
+      return removeLocked(key);
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public int size() {
+    return iSize;
+  }
+
+  public final void clear() {
+    iLock.lock();
+    try {
+      iTable = new Table(Hashing.MIN_CAPACITY);
+      iSize = 0;
+      iTombstones = 0;
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public void lock() {
+    iLock.lock();
+  }
+
+  public void unlock() {
+    iLock.unlock();
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forAllEntries(LongBiConsumer<ObjectType> consumer) {
+    Table table = iTable;
+    for (int i = 0; i < table.keys.length; i++) {
+      Object value = VALUES.getAcquire(table.values, i);
+      if (value != null && value != TOMBSTONE)
+        consumer.accept(table.keys[i], (ObjectType) value);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forAllValues(Consumer<ObjectType> consumer) {
+    Table table = iTable;
+    for (int i = 0; i < table.keys.length; i++) {
+      Object value = VALUES.getAcquire(table.values, i);
+      if (value != null && value != TOMBSTONE)
+        consumer.accept((ObjectType) value);
+    }
+  }
+
+  /**
+   * Swaps the value of an existing key in place, so a concurrent reader sees the old or the new value but never a
+   * missing key.
+   *
+   * @return the previous value, or null if the key is absent
+   */
+  @SuppressWarnings("unchecked")
+  private ObjectType replaceLocked(long key, ObjectType value) {
+    Table table = iTable;
+    int mask = table.keys.length - 1;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      Object previous = table.values[i];
+      if (previous == null)
+        return null;
+      if (previous != TOMBSTONE && table.keys[i] == key) {
+        VALUES.setRelease(table.values, i, value);
+        return (ObjectType) previous;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private ObjectType removeLocked(long key) {
+    Table table = iTable;
+    int mask = table.keys.length - 1;
+    for (int i = Hashing.mix(key) & mask; ; i = (i + 1) & mask) {
+      Object value = table.values[i];
+      if (value == null)
+        return null;
+      if (value != TOMBSTONE && table.keys[i] == key) {
+        VALUES.setRelease(table.values, i, TOMBSTONE);
+        iSize--;
+        iTombstones++;
+        return (ObjectType) value;
+      }
+    }
+  }
+
+  private void insert(long key, ObjectType value) {
+    if (value == null)
+      throw new NullPointerException("Creator returned null for key: " + key);
+
+    Table table = iTable;
+    if ((iSize + iTombstones + 1) * 4L > table.keys.length * 3L) {
+      table = rebuild(table, Hashing.sparseCapacityFor(iSize + 1));
+      iTable = table;
+      iTombstones = 0;
+    }
+
+    int mask = table.keys.length - 1;
+    int i = Hashing.mix(key) & mask;
+    while (table.values[i] != null)
+      i = (i + 1) & mask;
+
+    table.keys[i] = key;
+    VALUES.setRelease(table.values, i, value);
+    iSize++;
+  }
+
+  private static Table rebuild(Table old, int capacity) {
+    Table table = new Table(capacity);
+    int mask = capacity - 1;
+    for (int j = 0; j < old.keys.length; j++) {
+      Object value = old.values[j];
+      if (value == null || value == TOMBSTONE)
+        continue;
+
+      int i = Hashing.mix(old.keys[j]) & mask;
+      while (table.values[i] != null)
+        i = (i + 1) & mask;
+      table.keys[i] = old.keys[j];
+      table.values[i] = value;
+    }
+    return table;
+  }
+
+  private static final class Table {
+
+    final long[] keys;
+
+    final Object[] values;
+
+    Table(int capacity) {
+      keys = new long[capacity];
+      values = new Object[capacity];
+    }
+  }
+}
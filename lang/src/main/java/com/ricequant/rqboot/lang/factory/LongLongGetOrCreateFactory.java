@@ -0,0 +1,112 @@
+package com.ricequant.rqboot.lang.factory;
+
+import com.ricequant.rqboot.lang.collection.LongLongKeyMap;
+import com.ricequant.rqboot.lang.lambda.LongLongFunction;
+import com.ricequant.rqboot.lang.lambda.LongLongObjectConsumer;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A get-or-create factory keyed by a pair of {@code long}s, backed by a {@link LongLongKeyMap}. Unlike a factory keyed
+ * by {@link com.ricequant.rqboot.lang.HashMapHelper#twoObjectsKey}, a lookup allocates no key object, and the hit path
+ * takes no lock.
+ * <p>
+ * Writers (creation, put, remove) are serialized by the factory lock, so the creator runs at most once per key pair.
+ *
+ * @author chenfeng
+ */
+public class LongLongGetOrCreateFactory<ObjectType> {
+
+  private final LongLongFunction<ObjectType> iCreator;
+
+  private final LongLongKeyMap<ObjectType> iMap;
+
+  private final ReentrantLock iLock = new ReentrantLock();
+
+  public LongLongGetOrCreateFactory(LongLongFunction<ObjectType> creator) {
+    this(creator, 16);
+  }
+
+  public LongLongGetOrCreateFactory(LongLongFunction<ObjectType> creator, int expectedSize) {
+    iCreator = creator;
+    iMap = new LongLongKeyMap<>(expectedSize);
+  }
+
+  public final ObjectType getOrCreate(long first, long second) {
+    ObjectType value = iMap.get(first, second);
+    if (value == null) {
+      iLock.lock();
+      try {
+        value = iMap.get(first, second);
+        if (value == null) {
+          value = iCreator.apply(first, second);
+          iMap.put(first, second, value);
+        }
+      }
+      finally {
+        iLock.unlock();
+      }
+    }
+
+    return value;
+  }
+
+  public ObjectType get(long first, long second) {
+    return iMap.get(first, second);
+  }
+
+  public final boolean contains(long first, long second) {
+    return iMap.containsKey(first, second);
+  }
+
+  public final ObjectType put(long first, long second, ObjectType value) {
+    iLock.lock();
+    try {
+      return iMap.put(first, second, value);
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public final ObjectType remove(long first, long second) {
+    iLock.lock();
+    try {
+      return iMap.remove(first, second);
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public int size() {
+    return iMap.size();
+  }
+
+  public final void clear() {
+    iLock.lock();
+    try {
+      iMap.clear();
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public void lock() {
+    iLock.lock();
+  }
+
+  public void unlock() {
+    iLock.unlock();
+  }
+
+  public void forAllEntries(LongLongObjectConsumer<ObjectType> consumer) {
+    iMap.forEach(consumer);
+  }
+
+  public void forAllValues(Consumer<ObjectType> consumer) {
+    iMap.forEach((first, second, value) -> consumer.accept(value));
+  }
+}
@@ -0,0 +1,112 @@
+package com.ricequant.rqboot.lang.factory;
+
+import com.ricequant.rqboot.lang.collection.ObjectLongKeyMap;
+import com.ricequant.rqboot.lang.lambda.ObjectLongFunction;
+import com.ricequant.rqboot.lang.lambda.ObjectLongObjectConsumer;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A get-or-create factory keyed by an (object, {@code long}) pair, backed by an {@link ObjectLongKeyMap}. Unlike a
+ * factory keyed by {@link com.ricequant.rqboot.lang.HashMapHelper#twoObjectsKey}, a lookup allocates no key object, and
+ * the hit path takes no lock.
+ * <p>
+ * Writers (creation, put, remove) are serialized by the factory lock, so the creator runs at most once per key pair.
+ *
+ * @author chenfeng
+ */
+public class ObjectLongGetOrCreateFactory<KeyType, ObjectType> {
+
+  private final ObjectLongFunction<KeyType, ObjectType> iCreator;
+
+  private final ObjectLongKeyMap<KeyType, ObjectType> iMap;
+
+  private final ReentrantLock iLock = new ReentrantLock();
+
+  public ObjectLongGetOrCreateFactory(ObjectLongFunction<KeyType, ObjectType> creator) {
+    this(creator, 16);
+  }
+
+  public ObjectLongGetOrCreateFactory(ObjectLongFunction<KeyType, ObjectType> creator, int expectedSize) {
+    iCreator = creator;
+    iMap = new ObjectLongKeyMap<>(expectedSize);
+  }
+
+  public final ObjectType getOrCreate(KeyType first, long second) {
+    ObjectType value = iMap.get(first, second);
+    if (value == null) {
+      iLock.lock();
+      try {
+        value = iMap.get(first, second);
+        if (value == null) {
+          value = iCreator.apply(first, second);
+          iMap.put(first, second, value);
+        }
+      }
+      finally {
+        iLock.unlock();
+      }
+    }
+
+    return value;
+  }
+
+  public ObjectType get(KeyType first, long second) {
+    return iMap.get(first, second);
+  }
+
+  public final boolean contains(KeyType first, long second) {
+    return iMap.containsKey(first, second);
+  }
+
+  public final ObjectType put(KeyType first, long second, ObjectType value) {
+    iLock.lock();
+    try {
+      return iMap.put(first, second, value);
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public final ObjectType remove(KeyType first, long second) {
+    iLock.lock();
+    try {
+      return iMap.remove(first, second);
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public int size() {
+    return iMap.size();
+  }
+
+  public final void clear() {
+    iLock.lock();
+    try {
+      iMap.clear();
+    }
+    finally {
+      iLock.unlock();
+    }
+  }
+
+  public void lock() {
+    iLock.lock();
+  }
+
+  public void unlock() {
+    iLock.unlock();
+  }
+
+  public void forAllEntries(ObjectLongObjectConsumer<KeyType, ObjectType> consumer) {
+    iMap.forEach(consumer);
+  }
+
+  public void forAllValues(Consumer<ObjectType> consumer) {
+    iMap.forEach((first, second, value) -> consumer.accept(value));
+  }
+}
@@ -1,5 +1,6 @@
 package com.ricequant.rqboot.lang.factory;
 
+import java.util.concurrent.locks.Lock;
 import java.util.function.BiFunction;
 
 /**
@@ -14,16 +15,46 @@ public final class OneParameterGetOrCreateFactory<KeyType, ObjectType, Parameter
     iCreator = creator;
   }
 
+  /**
+   * @param concurrencyMode
+   *         under {@link ConcurrencyMode#STRIPED} the creator must not call {@link #getOrCreate} on this factory, see
+   *         there
+   */
+  public OneParameterGetOrCreateFactory(BiFunction<KeyType, ParameterType, ObjectType> creator,
+          ConcurrencyMode concurrencyMode) {
+    super(concurrencyMode);
+    iCreator = creator;
+  }
+
   public final ObjectType getOrCreate(KeyType key, ParameterType param) {
     ObjectType value = iMap.get(key);
     if (value == null) {
-      lock();
-      value = iMap.get(key);
-      if (value == null) {
-        value = iCreator.apply(key, param);
-        iMap.put(key, value);
+      Lock keyLock = lockFor(key);
+      keyLock.lock();
+      try {
+        value = iMap.get(key);
+        if (value == null) {
+          long start = creationStart();
+          try {
+            value = iCreator.apply(key, param);
+          }
+          catch (RuntimeException | Error e) {
+            recordFailedCreation(start);
+            throw e;
+          }
+          recordCreation(start);
+          iMap.put(key, value);
+        }
+        else {
+          recordHit();
+        }
       }
-      unlock();
+      finally {
+        keyLock.unlock();
+      }
+    }
+    else {
+      recordHit();
     }
 
     return value;
@@ -0,0 +1,56 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy, striped buffer of recent reads. Readers record a key with one atomic increment and a lazy store, without
+ * taking any lock; the policy owner replays the buffered keys into its eviction order when it holds its lock. When
+ * readers outrun the drains, older reads are overwritten, which only makes the recency information approximate.
+ *
+ * @author chenfeng
+ */
+final class ReadBuffer<KeyType> {
+
+  private static final int STRIPE_SIZE = 32;
+
+  private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+  private static final int DRAIN_THRESHOLD_MASK = STRIPE_SIZE / 2 - 1;
+
+  private final AtomicLong[] iCounters;
+
+  private final AtomicReferenceArray<KeyType>[] iStripes;
+
+  @SuppressWarnings("unchecked")
+  ReadBuffer() {
+    int stripes = Math.min(16, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors())));
+    iCounters = new AtomicLong[stripes];
+    iStripes = new AtomicReferenceArray[stripes];
+    for (int i = 0; i < stripes; i++) {
+      iCounters[i] = new AtomicLong();
+      iStripes[i] = new AtomicReferenceArray<>(STRIPE_SIZE);
+    }
+  }
+
+  /**
+   * @return true if enough reads have accumulated in this stripe that the caller should try to drain
+   */
+  boolean offer(KeyType key) {
+    int stripe = (int) Thread.currentThread().threadId() & (iStripes.length - 1);
+    long index = iCounters[stripe].getAndIncrement();
+    iStripes[stripe].lazySet((int) index & STRIPE_MASK, key);
+    return (index & DRAIN_THRESHOLD_MASK) == DRAIN_THRESHOLD_MASK;
+  }
+
+  void drainTo(Consumer<KeyType> consumer) {
+    for (AtomicReferenceArray<KeyType> stripe : iStripes) {
+      for (int i = 0; i < STRIPE_SIZE; i++) {
+        KeyType key = stripe.getAndSet(i, null);
+        if (key != null)
+          consumer.accept(key);
+      }
+    }
+  }
+}
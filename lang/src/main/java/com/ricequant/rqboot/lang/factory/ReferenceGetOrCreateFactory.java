@@ -0,0 +1,356 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A get-or-create factory for large derived objects that may be dropped and recreated when memory runs short. Values
+ * can be held softly or weakly (see {@link ValueStrength}); entries whose values the collector cleared are purged
+ * through a reference queue drained on every creation and by {@link #cleanUp()}, and are recreated on the next
+ * {@link #getOrCreate}.
+ * <p>
+ * {@link #shed(double)} drops the coldest entries explicitly, cold meaning not read while the most other entries were
+ * created. Register the factory with a {@link HeapPressureMonitor} to shed automatically when the old generation is
+ * still nearly full after a collection, before the process falls into back-to-back full collections.
+ * <p>
+ * Reads do not lock; creation is serialized per key stripe as in {@link ConcurrencyMode#STRIPED}, so a creator must
+ * not call back into the factory for another key.
+ *
+ * @author chenfeng
+ */
+public class ReferenceGetOrCreateFactory<KeyType, ObjectType> implements IMemorySensitive {
+
+  private final Function<KeyType, ObjectType> iCreator;
+
+  private final ValueStrength iValueStrength;
+
+  private final ConcurrentHashMap<KeyType, ValueHolder<KeyType, ObjectType>> iMap = new ConcurrentHashMap<>();
+
+  private final ReferenceQueue<ObjectType> iQueue = new ReferenceQueue<>();
+
+  private final LockStripes iStripes = new LockStripes(LockStripes.DEFAULT_STRIPES);
+
+  // advances on every creation; an entry's last access is the creation count when it was last read
+  private final AtomicLong iAccessClock = new AtomicLong();
+
+  public ReferenceGetOrCreateFactory(Function<KeyType, ObjectType> creator, ValueStrength valueStrength) {
+    iCreator = creator;
+    iValueStrength = valueStrength;
+  }
+
+  public final ObjectType getOrCreate(KeyType key) {
+    ObjectType value = get(key);
+    if (value != null)
+      return value;
+
+    Lock keyLock = iStripes.lockFor(key);
+    keyLock.lock();
+    try {
+      drainQueue();
+      value = get(key);
+      if (value == null) {
+        value = iCreator.apply(key);
+        iMap.put(key, newHolder(key, value, iAccessClock.incrementAndGet()));
+      }
+    }
+    finally {
+      keyLock.unlock();
+    }
+
+    return value;
+  }
+
+  public ObjectType get(KeyType key) {
+    ValueHolder<KeyType, ObjectType> holder = iMap.get(key);
+    if (holder == null)
+      return null;
+
+    ObjectType value = holder.value();
+    if (value != null)
+      holder.touch(iAccessClock.get());
+    return value;
+  }
+
+  public final boolean contains(KeyType key) {
+    return get(key) != null;
+  }
+
+  public final ObjectType remove(KeyType key) {
+    Lock keyLock = iStripes.lockFor(key);
+    keyLock.lock();
+    try {
+      ValueHolder<KeyType, ObjectType> holder = iMap.remove(key);
+      return holder == null ? null : holder.value();
+    }
+    finally {
+      keyLock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of entries, including those whose values were cleared but not purged yet
+   */
+  public int size() {
+    return iMap.size();
+  }
+
+  public final void clear() {
+    iStripes.lockAll();
+    try {
+      iMap.clear();
+      drainQueue();
+    }
+    finally {
+      iStripes.unlockAll();
+    }
+  }
+
+  public final ValueStrength valueStrength() {
+    return iValueStrength;
+  }
+
+  /**
+   * Weakly consistent traversal of the values still reachable.
+   */
+  public void forAllValues(Consumer<ObjectType> consumer) {
+    iMap.values().forEach(holder -> {
+      ObjectType value = holder.value();
+      if (value != null)
+        consumer.accept(value);
+    });
+  }
+
+  /**
+   * Purges entries whose values were cleared by the collector.
+   */
+  public final void cleanUp() {
+    drainQueue();
+  }
+
+  @Override
+  public int shed(double fraction) {
+    if (fraction <= 0)
+      return 0;
+
+    drainQueue();
+    int size = iMap.size();
+    int target = fraction >= 1 ? size : (int) Math.ceil(size * fraction);
+    if (target == 0)
+      return 0;
+
+    // runs on the notification thread while the heap is nearly full, so keep only the target coldest holders
+    ColdestHolders<KeyType, ObjectType> coldest = new ColdestHolders<>(target);
+    for (ValueHolder<KeyType, ObjectType> holder : iMap.values())
+      coldest.offer(holder);
+
+    int shed = 0;
+    for (int i = 0; i < coldest.iCount; i++) {
+      ValueHolder<KeyType, ObjectType> holder = coldest.iHolders[i];
+      if (iMap.remove(holder.key(), holder))
+        shed++;
+    }
+    return shed;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void drainQueue() {
+    Reference<? extends ObjectType> reference;
+    while ((reference = iQueue.poll()) != null) {
+      ValueHolder<KeyType, ObjectType> holder = (ValueHolder<KeyType, ObjectType>) reference;
+      iMap.remove(holder.key(), holder);
+    }
+  }
+
+  private ValueHolder<KeyType, ObjectType> newHolder(KeyType key, ObjectType value, long now) {
+    switch (iValueStrength) {
+      case SOFT:
+        return new SoftValue<>(key, value, iQueue, now);
+      case WEAK:
+        return new WeakValue<>(key, value, iQueue, now);
+      default:
+        return new StrongValue<>(key, value, now);
+    }
+  }
+
+  private interface ValueHolder<KeyType, ObjectType> {
+
+    KeyType key();
+
+    ObjectType value();
+
+    long lastAccess();
+
+    void touch(long now);
+  }
+
+  private static final class StrongValue<KeyType, ObjectType> implements ValueHolder<KeyType, ObjectType> {
+
+    private final KeyType iKey;
+
+    private final ObjectType iValue;
+
+    private long iLastAccess;
+
+    StrongValue(KeyType key, ObjectType value, long now) {
+      iKey = key;
+      iValue = value;
+      iLastAccess = now;
+    }
+
+    @Override
+    public KeyType key() {
+      return iKey;
+    }
+
+    @Override
+    public ObjectType value() {
+      return iValue;
+    }
+
+    @Override
+    public long lastAccess() {
+      return iLastAccess;
+    }
+
+    @Override
+    public void touch(long now) {
+      // racy by design: a lost update only makes the entry look slightly colder
+      if (iLastAccess != now)
+        iLastAccess = now;
+    }
+  }
+
+  private static final class SoftValue<KeyType, ObjectType> extends SoftReference<ObjectType>
+          implements ValueHolder<KeyType, ObjectType> {
+
+    private final KeyType iKey;
+
+    private long iLastAccess;
+
+    SoftValue(KeyType key, ObjectType value, ReferenceQueue<ObjectType> queue, long now) {
+      super(value, queue);
+      iKey = key;
+      iLastAccess = now;
+    }
+
+    @Override
+    public KeyType key() {
+      return iKey;
+    }
+
+    @Override
+    public ObjectType value() {
+      return get();
+    }
+
+    @Override
+    public long lastAccess() {
+      return iLastAccess;
+    }
+
+    @Override
+    public void touch(long now) {
+      if (iLastAccess != now)
+        iLastAccess = now;
+    }
+  }
+
+  private static final class WeakValue<KeyType, ObjectType> extends WeakReference<ObjectType>
+          implements ValueHolder<KeyType, ObjectType> {
+
+    private final KeyType iKey;
+
+    private long iLastAccess;
+
+    WeakValue(KeyType key, ObjectType value, ReferenceQueue<ObjectType> queue, long now) {
+      super(value, queue);
+      iKey = key;
+      iLastAccess = now;
+    }
+
+    @Override
+    public KeyType key() {
+      return iKey;
+    }
+
+    @Override
+    public ObjectType value() {
+      return get();
+    }
+
+    @Override
+    public long lastAccess() {
+      return iLastAccess;
+    }
+
+    @Override
+    public void touch(long now) {
+      if (iLastAccess != now)
+        iLastAccess = now;
+    }
+  }
+
+  /**
+   * A max-heap on last access of at most {@code capacity} holders, keeping the least recently accessed ones seen. The
+   * access times are copied in as offered, since readers keep touching the live holders.
+   */
+  private static final class ColdestHolders<KeyType, ObjectType> {
+
+    private final long[] iAccesses;
+
+    private final ValueHolder<KeyType, ObjectType>[] iHolders;
+
+    private int iCount;
+
+    @SuppressWarnings("unchecked")
+    ColdestHolders(int capacity) {
+      iAccesses = new long[capacity];
+      iHolders = new ValueHolder[capacity];
+    }
+
+    void offer(ValueHolder<KeyType, ObjectType> holder) {
+      long access = holder.lastAccess();
+      if (iCount < iAccesses.length) {
+        int i = iCount++;
+        while (i > 0) {
+          int parent = (i - 1) >>> 1;
+          if (iAccesses[parent] >= access)
+            break;
+          set(i, iAccesses[parent], iHolders[parent]);
+          i = parent;
+        }
+        set(i, access, holder);
+        return;
+      }
+
+      if (access >= iAccesses[0])
+        return;
+
+      int i = 0;
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= iCount)
+          break;
+        if (child + 1 < iCount && iAccesses[child + 1] > iAccesses[child])
+          child++;
+        if (iAccesses[child] <= access)
+          break;
+        set(i, iAccesses[child], iHolders[child]);
+        i = child;
+      }
+      set(i, access, holder);
+    }
+
+    private void set(int i, long access, ValueHolder<KeyType, ObjectType> holder) {
+      iAccesses[i] = access;
+      iHolders[i] = holder;
+    }
+  }
+}
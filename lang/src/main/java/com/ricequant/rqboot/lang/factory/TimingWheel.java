@@ -0,0 +1,158 @@
+package com.ricequant.rqboot.lang.factory;
+
+import java.util.function.Predicate;
+
+/**
+ * A hashed timing wheel: timers are hashed by deadline tick into a fixed ring of buckets, scheduling and cancelling
+ * are O(1), and advancing the wheel only visits the buckets whose ticks have passed. The wheel has no thread of its
+ * own; the owner advances it from its regular operations, so an idle wheel costs nothing.
+ * <p>
+ * A timer's deadline may be pushed back without rescheduling it (expire-after-access); when its bucket comes around
+ * and the deadline is still in the future, it is re-hashed into the bucket of its new deadline.
+ * <p>
+ * Not thread-safe except for {@link #currentTick()} and {@link Timer#deadline}; the owner serializes the rest.
+ *
+ * @author chenfeng
+ */
+final class TimingWheel<KeyType, ObjectType> {
+
+  static final class Timer<KeyType, ObjectType> {
+
+    final KeyType key;
+
+    final ObjectType value;
+
+    volatile long deadline;
+
+    private Timer<KeyType, ObjectType> prev;
+
+    private Timer<KeyType, ObjectType> next;
+
+    private int bucket = -1;
+
+    Timer(KeyType key, ObjectType value, long deadline) {
+      this.key = key;
+      this.value = value;
+      this.deadline = deadline;
+    }
+  }
+
+  private final Timer<KeyType, ObjectType>[] iHeads;
+
+  private final long iTickNanos;
+
+  private final int iMask;
+
+  private volatile long iCurrentTick;
+
+  /**
+   * @param tickNanos
+   *         the duration one bucket covers; timers fire at most one tick late
+   * @param bucketCount
+   *         number of buckets, rounded up to a power of two
+   * @param now
+   *         the current time, in the same non-negative nanosecond scale as the deadlines
+   */
+  @SuppressWarnings("unchecked")
+  TimingWheel(long tickNanos, int bucketCount, long now) {
+    if (tickNanos <= 0)
+      throw new IllegalArgumentException("Tick must be positive, got: " + tickNanos);
+
+    int buckets = bucketCount <= 1 ? 1 : Integer.highestOneBit(bucketCount - 1) << 1;
+    iHeads = new Timer[buckets];
+    iTickNanos = tickNanos;
+    iMask = buckets - 1;
+    iCurrentTick = now / tickNanos;
+  }
+
+  long tickNanos() {
+    return iTickNanos;
+  }
+
+  long currentTick() {
+    return iCurrentTick;
+  }
+
+  void schedule(Timer<KeyType, ObjectType> timer) {
+    long tick = Math.max(timer.deadline / iTickNanos, iCurrentTick + 1);
+    link(timer, (int) (tick & iMask));
+  }
+
+  void cancel(Timer<KeyType, ObjectType> timer) {
+    if (timer.bucket >= 0)
+      unlink(timer);
+  }
+
+  /**
+   * Moves the wheel to {@code now} and hands every timer whose deadline has passed to {@code expirer}. A timer for
+   * which the expirer returns false is retried on the next tick.
+   */
+  void advance(long now, Predicate<Timer<KeyType, ObjectType>> expirer) {
+    long targetTick = now / iTickNanos;
+    long current = iCurrentTick;
+    if (targetTick <= current)
+      return;
+
+    long steps = Math.min(targetTick - current, iHeads.length);
+    iCurrentTick = targetTick;
+    for (long i = 1; i <= steps; i++) {
+      int bucket = (int) ((current + i) & iMask);
+      Timer<KeyType, ObjectType> timer = iHeads[bucket];
+      while (timer != null) {
+        Timer<KeyType, ObjectType> next = timer.next;
+        long deadline = timer.deadline;
+        if (deadline <= now) {
+          unlink(timer);
+          if (!expirer.test(timer))
+            link(timer, (int) ((targetTick + 1) & iMask));
+        }
+        else {
+          int due = (int) (Math.max(deadline / iTickNanos, targetTick + 1) & iMask);
+          if (due != bucket) {
+            unlink(timer);
+            link(timer, due);
+          }
+        }
+        timer = next;
+      }
+    }
+  }
+
+  void clear() {
+    for (int i = 0; i < iHeads.length; i++) {
+      Timer<KeyType, ObjectType> timer = iHeads[i];
+      while (timer != null) {
+        Timer<KeyType, ObjectType> next = timer.next;
+        timer.prev = null;
+        timer.next = null;
+        timer.bucket = -1;
+        timer = next;
+      }
+      iHeads[i] = null;
+    }
+  }
+
+  private void link(Timer<KeyType, ObjectType> timer, int bucket) {
+    Timer<KeyType, ObjectType> head = iHeads[bucket];
+    timer.prev = null;
+    timer.next = head;
+    if (head != null)
+      head.prev = timer;
+    iHeads[bucket] = timer;
+    timer.bucket = bucket;
+  }
+
+  private void unlink(Timer<KeyType, ObjectType> timer) {
+    if (timer.prev == null)
+      iHeads[timer.bucket] = timer.next;
+    else
+      timer.prev.next = timer.next;
+
+    if (timer.next != null)
+      timer.next.prev = timer.prev;
+
+    timer.prev = null;
+    timer.next = null;
+    timer.bucket = -1;
+  }
+}
@@ -0,0 +1,28 @@
+package com.ricequant.rqboot.lang.factory;
+
+/**
+ * How the bulk {@code forAll*} operations of a get-or-create factory walk its entries.
+ *
+ * @author chenfeng
+ */
+public enum TraversalMode {
+
+  /**
+   * Holds the factory lock for the whole traversal. The consumer sees a stable view, but creators and writers wait
+   * until it returns.
+   */
+  LOCKED,
+
+  /**
+   * Walks the backing concurrent map without locking. Writers proceed during the traversal; each entry is seen at most
+   * once, and changes made during the traversal may or may not be seen. Factories backed by a map that is not
+   * concurrent fall back to {@link #SNAPSHOT}.
+   */
+  WEAKLY_CONSISTENT,
+
+  /**
+   * Copies the entries under the factory lock, then runs the consumer on the copy without the lock. The consumer sees
+   * a point-in-time view and writers are only blocked for the copy.
+   */
+  SNAPSHOT
+}
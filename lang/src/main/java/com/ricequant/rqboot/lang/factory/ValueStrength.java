@@ -0,0 +1,25 @@
+package com.ricequant.rqboot.lang.factory;
+
+/**
+ * How a {@link ReferenceGetOrCreateFactory} holds its values.
+ *
+ * @author chenfeng
+ */
+public enum ValueStrength {
+
+  /**
+   * Values are held strongly and only dropped by {@link IMemorySensitive#shed(double)} or removal.
+   */
+  STRONG,
+
+  /**
+   * Values are held through {@link java.lang.ref.SoftReference}s, which the collector clears, least recently used
+   * first, before it would throw {@link OutOfMemoryError}.
+   */
+  SOFT,
+
+  /**
+   * Values are held through {@link java.lang.ref.WeakReference}s and dropped as soon as nothing else references them.
+   */
+  WEAK
+}
@@ -0,0 +1,9 @@
+package com.ricequant.rqboot.lang.lambda;
+
+/**
+ * @author chenfeng
+ */
+public interface IntLongFunction<R> {
+
+  R apply(int first, long second);
+}
@@ -0,0 +1,9 @@
+package com.ricequant.rqboot.lang.lambda;
+
+/**
+ * @author chenfeng
+ */
+public interface IntLongObjectConsumer<T> {
+
+  void accept(int first, long second, T value);
+}
@@ -0,0 +1,9 @@
+package com.ricequant.rqboot.lang.lambda;
+
+/**
+ * @author chenfeng
+ */
+public interface LongDoubleConsumer {
+
+  void accept(long key, double value);
+}
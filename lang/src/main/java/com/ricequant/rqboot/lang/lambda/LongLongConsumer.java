@@ -0,0 +1,9 @@
+package com.ricequant.rqboot.lang.lambda;
+
+/**
+ * @author chenfeng
+ */
+public interface LongLongConsumer {
+
+  void accept(long key, long value);
+}
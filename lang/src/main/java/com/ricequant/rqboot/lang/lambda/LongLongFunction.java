@@ -0,0 +1,9 @@
+package com.ricequant.rqboot.lang.lambda;
+
+/**
+ * @author chenfeng
+ */
+public interface LongLongFunction<R> {
+
+  R apply(long first, long second);
+}
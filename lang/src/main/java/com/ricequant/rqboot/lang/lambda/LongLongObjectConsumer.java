@@ -0,0 +1,9 @@
+package com.ricequant.rqboot.lang.lambda;
+
+/**
+ * @author chenfeng
+ */
+public interface LongLongObjectConsumer<T> {
+
+  void accept(long first, long second, T value);
+}
@@ -0,0 +1,9 @@
+package com.ricequant.rqboot.lang.lambda;
+
+/**
+ * @author chenfeng
+ */
+public interface ObjectLongFunction<T, R> {
+
+  R apply(T first, long second);
+}
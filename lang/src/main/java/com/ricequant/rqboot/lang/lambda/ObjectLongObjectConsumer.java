@@ -0,0 +1,9 @@
+package com.ricequant.rqboot.lang.lambda;
+
+/**
+ * @author chenfeng
+ */
+public interface ObjectLongObjectConsumer<K, T> {
+
+  void accept(K first, long second, T value);
+}
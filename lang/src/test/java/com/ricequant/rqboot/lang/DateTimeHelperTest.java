@@ -3,9 +3,18 @@ package com.ricequant.rqboot.lang;
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -459,4 +468,289 @@ class DateTimeHelperTest {
         assertTrue(currentMinuteTime >= 0);
         assertTrue(currentMinuteTime < 240000000); // Less than 24:00:00.000
     }
+
+    // ==================== Calendar-Free Fast Path Tests ====================
+
+    // 1970-01-02, the existing conversions reject the first hours of 1970 in Shanghai as negative
+    private static final long MILLIS_1970 = 86_400_000L;
+
+    private static final long MILLIS_2100 = 4102444800000L;
+
+    private static long calendarReadable(Calendar c, long millis) {
+        c.setTimeInMillis(millis);
+        return c.get(Calendar.YEAR) * 10000000000000L + (1 + c.get(Calendar.MONTH)) * 100000000000L
+                + c.get(Calendar.DAY_OF_MONTH) * 1000000000L + c.get(Calendar.HOUR_OF_DAY) * 10000000L
+                + c.get(Calendar.MINUTE) * 100000 + c.get(Calendar.SECOND) * 1000 + c.get(Calendar.MILLISECOND);
+    }
+
+    @Test
+    void testFastPathMatchesCalendarFrom1970To2100() {
+        Calendar c = Calendar.getInstance(TimeZone.getTimeZone("Asia/Shanghai"));
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long millis = MILLIS_1970 + (long) (random.nextDouble() * (MILLIS_2100 - MILLIS_1970));
+            long micros = millis * 1000 + random.nextInt(1000);
+            long expected = calendarReadable(c, millis);
+
+            assertEquals(expected, DateTimeHelper.toReadableTimestamp(micros));
+            assertEquals((int) (expected / 1000000000L), DateTimeHelper.getIntDateFromRQTimestamp(micros));
+
+            // not a plain round trip: in a daylight saving overlap Calendar resolves to the later instant
+            int year = (int) (expected / 10000000000000L);
+            int month = (int) (expected / 100000000000L % 100);
+            int day = (int) (expected / 1000000000L % 100);
+            int hour = (int) (expected / 10000000L % 100);
+            int minute = (int) (expected / 100000L % 100);
+            int second = (int) (expected / 1000L % 100);
+            c.clear();
+            c.set(year, month - 1, day, hour, minute, second);
+            long wallMillis = c.getTimeInMillis();
+            assertEquals((wallMillis + expected % 1000) * 1000, DateTimeHelper.toRQEpochTimestamp(expected));
+            assertEquals(wallMillis * 1000, DateTimeHelper.toRQTimestamp(year, month, day, hour, minute, second, 0));
+        }
+    }
+
+    @Test
+    void testFastPathMatchesLenientCalendarAcrossOffsetTransitions() {
+        // Shanghai observed daylight saving 1986-1991; New York has gaps and overlaps every year
+        for (String zone : new String[]{"Asia/Shanghai", "America/New_York", "Europe/London", "Australia/Sydney"}) {
+            Calendar c = Calendar.getInstance(TimeZone.getTimeZone(zone));
+            CivilCalendar civil = CivilCalendar.of(ZoneId.of(zone));
+            for (int year : new int[]{1970, 1986, 1988, 1991, 2023, 2037, 2038, 2099}) {
+                for (int day = 1; day <= 366; day++) {
+                    for (int minute = 0; minute < 24 * 60; minute += 15) {
+                        c.clear();
+                        c.set(year, Calendar.JANUARY, day, 0, minute, 0);
+                        long expected = c.getTimeInMillis();
+                        assertEquals(expected, civil.toEpochMillis(year, 1, day, 0, minute, 0, 0),
+                                () -> zone + " " + c.getTime());
+                        assertEquals(calendarReadable(c, expected), civil.toReadableTimestamp(expected));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCivilDayArithmetic() {
+        for (long day = CivilCalendar.daysFromCivil(1900, 1, 1); day < CivilCalendar.daysFromCivil(2200, 1, 1);
+                day++) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            int expected = date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+            assertEquals(expected, CivilCalendar.civilFromDays(day));
+            assertEquals(day, CivilCalendar.daysFromCivil(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+        // lenient fields roll over like Calendar
+        assertEquals(CivilCalendar.toLocalMillis(2024, 1, 1, 0, 0, 0, 0),
+                CivilCalendar.toLocalMillis(2023, 12, 31, 24, 0, 0, 0));
+        assertEquals(CivilCalendar.toLocalMillis(2024, 1, 31, 0, 0, 0, 0),
+                CivilCalendar.toLocalMillis(2023, 13, 31, 0, 0, 0, 0));
+    }
+
+    // ==================== Batch Conversion Tests ====================
+
+    @Test
+    void testBatchConversionsMatchSingleCalls() {
+        Random random = new Random(5);
+        int n = 300_000;
+        long[] micros = new long[n];
+        // mostly sorted ticks, with jumps across days, daylight saving years and the edges of the fast path
+        long t = 500_000_000_000_000L;
+        for (int i = 0; i < n; i++) {
+            if (i % 50_000 == 0)
+                t = random.nextInt(3) == 0 ? 1_000_000_000_000L : (long) (random.nextDouble() * 4e15);
+            if (i == 100_000)
+                t = 527_000_000_000_000L; // the 1986-09-14 daylight saving end in Shanghai
+            t += random.nextInt(5_000_000);
+            micros[i] = t;
+        }
+        micros[7] = -2_300_000_000_000_000L;
+        micros[8] = 7_300_000_000_000_000L;
+
+        long[] readable = new long[n];
+        int[] dates = new int[n];
+        int[] times = new int[n];
+        int[] seconds = new int[n];
+        for (ForkJoinPool pool : new ForkJoinPool[]{null, ForkJoinPool.commonPool()}) {
+            Arrays.fill(readable, 0);
+            Arrays.fill(dates, 0);
+            if (pool == null) {
+                DateTimeBatchHelper.toReadableTimestamps(micros, readable, 0, n);
+                DateTimeBatchHelper.toIntDates(micros, dates, 0, n);
+            }
+            else {
+                DateTimeBatchHelper.toReadableTimestamps(micros, readable, 0, n, pool);
+                DateTimeBatchHelper.toIntDates(micros, dates, 0, n, pool);
+            }
+            for (int i = 0; i < n; i++) {
+                assertEquals(DateTimeHelper.toReadableTimestamp(micros[i]), readable[i]);
+                assertEquals(DateTimeHelper.getIntDateFromRQTimestamp(micros[i]), dates[i]);
+            }
+        }
+
+        DateTimeBatchHelper.splitDateTime(readable, dates, times);
+        DateTimeBatchHelper.toSecondsOfDay(readable, seconds, 0, n, ForkJoinPool.commonPool());
+        for (int i = 0; i < n; i++) {
+            assertEquals(DateTimeHelper.getDate(readable[i]), dates[i]);
+            assertEquals(DateTimeHelper.getTime(readable[i]), times[i]);
+            assertEquals(DateTimeHelper.toSecondOfDay(readable[i]), seconds[i]);
+        }
+
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> DateTimeBatchHelper.toReadableTimestamps(micros, new long[10], 5, 10));
+    }
+
+    // ==================== Clock Tests ====================
+
+    @Test
+    void testHighResolutionClockSlewsToWallClockMonotonically() {
+        AtomicLong nanoTime = new AtomicLong(5_000_000_000L);
+        AtomicLong wall = new AtomicLong(1_700_000_000_000_000_000L);
+        long second = 1_000_000_000L;
+        HighResolutionClock clock = new HighResolutionClock(second, nanoTime::get, wall::get);
+        assertEquals(wall.get(), clock.currentNanos());
+
+        long previous = clock.currentNanos();
+        // the wall clock is stepped forward 10ms, then back 30ms
+        for (long step : new long[]{10_000_000L, -30_000_000L}) {
+            wall.addAndGet(step);
+            for (int i = 0; i < 100_000; i++) {
+                nanoTime.addAndGet(997_000);
+                wall.addAndGet(997_000);
+                long now = clock.currentNanos();
+                assertTrue(now >= previous, "clock went backwards");
+                previous = now;
+            }
+            // slewing at 1000 ppm takes 1000 times the step
+            assertEquals(wall.get(), clock.currentNanos(), 1_000_000);
+        }
+        // converged: the last recalibration found almost nothing left to correct
+        assertEquals(0, clock.lastOffsetNanos(), 1_000_000);
+    }
+
+    @Test
+    void testSharedClocksTrackWallClock() throws InterruptedException {
+        assertEquals(HighResolutionClock.instantMicros(), DateTimeHelper.getCurrentMicros(), 50_000);
+
+        try (CoarseClock coarse = new CoarseClock(HighResolutionClock.shared(), CivilCalendar.shanghai(), 1_000_000)) {
+            long first = coarse.micros();
+            Thread.sleep(20);
+            long micros = coarse.micros();
+            assertTrue(micros > first);
+            assertEquals(DateTimeHelper.getCurrentMicros(), micros, 50_000);
+
+            int date = coarse.dateInt();
+            int time = coarse.timeInt();
+            long readable = DateTimeHelper.toReadableTimestamp(micros);
+            // the date and time come from the same tick, at most one tick after micros was read
+            assertEquals(DateTimeHelper.getDate(readable) * 1_000_000L + DateTimeHelper.getTime(readable) / 1000,
+                    date * 1_000_000L + time, 1);
+        }
+        assertTrue(DateTimeHelper.isDateFormatValid(DateTimeHelper.getCoarseDateInt()));
+        assertTrue(DateTimeHelper.getCoarseTimeInt() < 240000);
+
+        // even a cleanup that reaches the clock behind the read-only view leaves it ticking
+        ((CoarseClock) CoarseClock.shared()).close();
+        long before = CoarseClock.shared().micros();
+        Thread.sleep(20);
+        assertTrue(CoarseClock.shared().micros() > before);
+    }
+
+    // ==================== Codec Tests ====================
+
+    @Test
+    void testCodecMatchesStringMethods() {
+        Random random = new Random(17);
+        StringBuilder sb = new StringBuilder();
+        byte[] bytes = new byte[64];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        for (int i = 0; i < 20_000; i++) {
+            int date = (1990 + random.nextInt(100)) * 10000 + (1 + random.nextInt(12)) * 100 + 1 + random.nextInt(28);
+            int time = random.nextInt(24) * 10000 + random.nextInt(60) * 100 + random.nextInt(60);
+
+            String python = DateTimeHelper.toPythonDateTime(date, time);
+            sb.setLength(0);
+            assertEquals(python, DateTimeCodec.formatPythonDateTime(date, time, sb).toString());
+            int end = DateTimeCodec.formatPythonDateTime(date, time, bytes, 3);
+            assertEquals(python, new String(bytes, 3, end - 3, StandardCharsets.US_ASCII));
+            buffer.clear().position(5);
+            DateTimeCodec.formatPythonDateTime(date, time, buffer);
+            assertEquals(python, StandardCharsets.US_ASCII.decode(buffer.flip().position(5)).toString());
+
+            String timeText = DateTimeHelper.intTimeToString(time);
+            assertEquals(time, DateTimeCodec.parseIntTime(timeText, 0));
+            assertEquals(time, DateTimeCodec.parseIntTime(bytes, end - 8));
+
+            sb.setLength(0);
+            DateTimeCodec.formatIntDate(date, '/', sb);
+            assertEquals(DateTimeHelper.intDateToString(date, "/"), sb.toString());
+
+            long rqTimestamp = DateTimeHelper.toRQTimestamp(date / 10000, date / 100 % 100, date % 100, time / 10000,
+                    time / 100 % 100, time % 100, 0);
+            sb.setLength(0);
+            String text = DateTimeCodec.formatRQTimestamp(rqTimestamp, sb).toString();
+            assertEquals(rqTimestamp, DateTimeHelper.toRQTimestamp(text));
+            assertEquals(rqTimestamp, DateTimeCodec.parseRQTimestamp("x" + text, 1));
+            end = DateTimeCodec.formatRQTimestamp(rqTimestamp, bytes, 0);
+            assertEquals(text, new String(bytes, 0, end, StandardCharsets.US_ASCII));
+            assertEquals(rqTimestamp, DateTimeCodec.parseRQTimestamp(bytes, 0));
+            buffer.clear();
+            DateTimeCodec.formatRQTimestamp(rqTimestamp, buffer);
+            assertEquals(19, buffer.position());
+            assertEquals(rqTimestamp, DateTimeCodec.parseRQTimestamp(buffer, 0));
+            assertEquals(date, DateTimeCodec.parseIntDate(buffer, 0));
+
+            long readable = DateTimeHelper.toReadableTimestamp(rqTimestamp) + random.nextInt(1000);
+            end = DateTimeCodec.formatLong(readable, bytes, 0);
+            assertEquals(Long.toString(readable), new String(bytes, 0, end, StandardCharsets.US_ASCII));
+            assertEquals(readable, DateTimeCodec.parseLong(bytes, 0, end));
+        }
+
+        for (long value : new long[]{0, -7, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            int end = DateTimeCodec.formatLong(value, bytes, 0);
+            assertEquals(Long.toString(value), new String(bytes, 0, end, StandardCharsets.US_ASCII));
+        }
+        assertThrows(NumberFormatException.class, () -> DateTimeCodec.parseIntTime("14:3x:20", 0));
+    }
+
+    @Test
+    void testCodecParsesUnpaddedFields() {
+        StringBuilder sb = new StringBuilder();
+        byte[] bytes = new byte[32];
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        for (int month = 1; month <= 12; month++) {
+            for (int day = 1; day <= 28; day += 9) {
+                int date = 2023_00_00 + month * 100 + day;
+                int time = (day % 24) * 10000 + 3000 + month;
+                long expected = DateTimeHelper.toRQTimestamp(2023, month, day, day % 24, 30, month, 0);
+
+                sb.setLength(0);
+                String python = DateTimeCodec.formatPythonDateTime(date, time, sb).toString();
+                assertEquals(expected, DateTimeHelper.toRQTimestamp(python));
+                assertEquals(expected, DateTimeCodec.parseRQTimestamp(python, 0));
+                assertEquals(date, DateTimeCodec.parseIntDate(python, 0));
+
+                int end = DateTimeCodec.formatPythonDateTime(date, time, bytes, 2);
+                assertEquals(expected, DateTimeCodec.parseRQTimestamp(bytes, 2));
+                assertEquals(date, DateTimeCodec.parseIntDate(bytes, 2));
+                assertEquals(python.length(), end - 2);
+
+                buffer.clear();
+                DateTimeCodec.formatPythonDateTime(date, time, buffer);
+                assertEquals(expected, DateTimeCodec.parseRQTimestamp(buffer, 0));
+                assertEquals(date, DateTimeCodec.parseIntDate(buffer, 0));
+            }
+        }
+
+        // the RQ timestamp format of a CSV row, with fields that toRQTimestamp(String) also accepts unpadded
+        String row = "x,2023-1-5 9:3:7,1.5";
+        assertEquals(DateTimeHelper.toRQTimestamp("2023-1-5 9:3:7"), DateTimeCodec.parseRQTimestamp(row, 2));
+        assertEquals(90307, DateTimeCodec.parseIntTime(row, 11));
+        assertEquals(DateTimeHelper.toRQTimestamp(2023, 1, 5, 9, 3, 7, 0), DateTimeCodec.parseRQTimestamp(
+                "2023-01-05 09:03:07".getBytes(StandardCharsets.US_ASCII), 0));
+
+        assertThrows(NumberFormatException.class, () -> DateTimeCodec.parseIntDate("2023-123-1", 0));
+        assertThrows(NumberFormatException.class, () -> DateTimeCodec.parseIntDate("2023-1-", 0));
+        assertThrows(NumberFormatException.class, () -> DateTimeCodec.parseRQTimestamp("2023-1-5 9:3", 0));
+    }
 }
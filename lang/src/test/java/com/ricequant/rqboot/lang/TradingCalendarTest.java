@@ -0,0 +1,132 @@
+package com.ricequant.rqboot.lang;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.MissingResourceException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradingCalendarTest {
+
+  private static final String HOLIDAYS_2024 = "com/ricequant/rqboot/lang/holidays-2024.txt";
+
+  @Test
+  void testMatchesLinearScan(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("holidays.txt");
+    Files.writeString(file, "# 2024 Spring Festival\n20240212\n2024-02-13 # Tuesday\n\n20240214\n20240215\n"
+            + "20240216\n20241001\n20250101\n");
+    TradingCalendar calendar = TradingCalendar.fromFile(file, 20231230, 20251231);
+    TreeSet<Integer> holidays = new TreeSet<>(Arrays.asList(20240212, 20240213, 20240214, 20240215, 20240216,
+            20241001, 20250101));
+
+    List<Integer> expected = new ArrayList<>();
+    for (LocalDate d = LocalDate.of(2023, 12, 30); !d.isAfter(LocalDate.of(2025, 12, 31)); d = d.plusDays(1)) {
+      int date = toInt(d);
+      boolean trading = d.getDayOfWeek().getValue() <= 5 && !holidays.contains(date);
+      assertEquals(trading, calendar.isTradingDay(date), "date " + date);
+      if (trading)
+        expected.add(date);
+    }
+    assertEquals(expected.size(), calendar.tradingDaysBetween(20231230, 20251231));
+
+    Random random = new Random(25);
+    for (int k = 0; k < 5000; k++) {
+      LocalDate from = LocalDate.of(2023, 12, 30).plusDays(random.nextInt(733));
+      LocalDate to = from.plusDays(random.nextInt(60) - 10);
+      if (to.isAfter(LocalDate.of(2025, 12, 31)) || to.isBefore(LocalDate.of(2023, 12, 30)))
+        continue;
+      int fromDate = toInt(from);
+      int toDate = toInt(to);
+
+      int start = firstIndexAtOrAfter(expected, fromDate);
+      int end = firstIndexAtOrAfter(expected, toDate + 1);
+      int count = Math.max(0, end - start);
+      assertEquals(count, calendar.tradingDaysBetween(fromDate, toDate));
+      List<Integer> visited = new ArrayList<>();
+      assertEquals(count, calendar.forEachTradingDay(fromDate, toDate, visited::add));
+      assertEquals(count == 0 ? List.of() : expected.subList(start, end), visited);
+      assertArrayEquals(visited.stream().mapToInt(Integer::intValue).toArray(), calendar.tradingDays(fromDate, toDate));
+
+      int n = random.nextInt(21) - 10;
+      boolean trading = start < expected.size() && expected.get(start) == fromDate;
+      int index = n < 0 ? start + n : start + n - (trading ? 0 : 1);
+      assertEquals(index >= 0 && index < expected.size() ? expected.get(index) : -1,
+              calendar.addTradingDays(fromDate, n), "date " + fromDate + " n " + n);
+    }
+  }
+
+  @Test
+  void testNavigationAtHolidaysAndRangeEnds() {
+    TradingCalendar calendar = new TradingCalendar(20231230, 20251231, 20240212, 20240213, 20240214, 20240215,
+            20240216);
+    assertFalse(calendar.isTradingDay(20240210));
+    assertEquals(20240219, calendar.nextTradingDay(20240209));
+    assertEquals(20240209, calendar.previousTradingDay(20240219));
+    assertEquals(20240101, calendar.nextTradingDay(20231230));
+    assertEquals(-1, calendar.previousTradingDay(20240101));
+    assertEquals(-1, calendar.nextTradingDay(20251231));
+    assertEquals(20240209, calendar.addTradingDays(20240211, 0));
+    assertEquals(20240219, calendar.addTradingDays(20240209, 1));
+    assertEquals(0, calendar.tradingDaysBetween(20240212, 20240218));
+    assertArrayEquals(new int[0], calendar.tradingDays(20240219, 20240218));
+
+    assertThrows(IllegalArgumentException.class, () -> calendar.isTradingDay(20260105));
+    assertThrows(IllegalArgumentException.class, () -> calendar.isTradingDay(20240231));
+    assertThrows(IllegalArgumentException.class, () -> new TradingCalendar(20240102, 20240101));
+  }
+
+  @Test
+  void testFromResource() throws IOException {
+    TradingCalendar calendar = TradingCalendar.fromResource(HOLIDAYS_2024, 20240101, 20241231);
+    assertEquals(20240101, calendar.firstDate());
+    assertEquals(20241231, calendar.lastDate());
+    // 262 weekdays less 20 weekday holidays
+    assertEquals(242, calendar.tradingDaysBetween(20240101, 20241231));
+    assertFalse(calendar.isTradingDay(20240101));
+    assertEquals(20240102, calendar.nextTradingDay(20240101));
+    assertEquals(20240208, calendar.previousTradingDay(20240219));
+    assertEquals(20241008, calendar.nextTradingDay(20240930));
+    assertEquals(20241231, calendar.addTradingDays(20240102, 241));
+
+    try (InputStream in = TradingCalendarTest.class.getClassLoader().getResourceAsStream(HOLIDAYS_2024)) {
+      int[] holidays = TradingCalendar.readHolidays(in);
+      assertEquals(20, holidays.length);
+      assertEquals(20240101, holidays[0]);
+      assertEquals(20240209, holidays[1]);
+      assertEquals(20241007, holidays[19]);
+    }
+  }
+
+  @Test
+  void testLoadingErrors(@TempDir Path dir) throws IOException {
+    assertThrows(MissingResourceException.class,
+            () -> TradingCalendar.fromResource("no-such-holidays.txt", 20240101, 20241231));
+
+    Path file = dir.resolve("holidays.txt");
+    Files.writeString(file, "20240212\n2024021\n");
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> TradingCalendar.fromFile(file, 20240101, 20241231));
+    assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+  }
+
+  private static int toInt(LocalDate date) {
+    return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+  }
+
+  private static int firstIndexAtOrAfter(List<Integer> sorted, int date) {
+    int index = Collections.binarySearch(sorted, date);
+    return index >= 0 ? index : -index - 1;
+  }
+}
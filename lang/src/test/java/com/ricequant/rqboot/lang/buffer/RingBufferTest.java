@@ -0,0 +1,502 @@
+package com.ricequant.rqboot.lang.buffer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+  @Test
+  void testRollingStatsMatchWindowScan() {
+    int window = 50;
+    RollingStatsRingBuffer buffer = new RollingStatsRingBuffer(window);
+    Random random = new Random(7);
+    double[] copy = new double[window];
+    for (int i = 0; i < 10_000; i++) {
+      // a large offset makes naive sum-of-squares variance useless
+      buffer.append(1e6 + random.nextGaussian() * (i % 3 == 0 ? 10 : 1));
+
+      int n = buffer.count();
+      buffer.copyLatestN(copy, n);
+      double sum = 0;
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int j = 0; j < n; j++) {
+        sum += copy[j];
+        min = Math.min(min, copy[j]);
+        max = Math.max(max, copy[j]);
+      }
+      double mean = sum / n;
+      double squares = 0;
+      for (int j = 0; j < n; j++)
+        squares += (copy[j] - mean) * (copy[j] - mean);
+
+      assertEquals(sum, buffer.sum(), 1e-6);
+      assertEquals(mean, buffer.mean(), 1e-8);
+      assertEquals(squares / n, buffer.variance(), 1e-6);
+      assertEquals(min, buffer.min());
+      assertEquals(max, buffer.max());
+    }
+  }
+
+  @Test
+  void testRollingStatsClear() {
+    RollingStatsRingBuffer buffer = new RollingStatsRingBuffer(3);
+    buffer.append(5);
+    buffer.append(1);
+    buffer.clear();
+    assertThrows(IllegalStateException.class, buffer::min);
+    assertEquals(0.0, buffer.sum());
+
+    buffer.append(2);
+    assertEquals(2.0, buffer.max());
+    assertEquals(0.0, buffer.stddev());
+    assertEquals(0.0, buffer.sampleVariance());
+  }
+
+  @Test
+  void testRollingStatsBulkAppendMatchesSingleAppends() {
+    Random random = new Random(14);
+    RollingStatsRingBuffer single = new RollingStatsRingBuffer(20);
+    RollingStatsRingBuffer bulk = new RollingStatsRingBuffer(20);
+    for (int batch = 0; batch < 100; batch++) {
+      double[] src = new double[random.nextInt(50)];
+      for (int i = 0; i < src.length; i++) {
+        src[i] = random.nextGaussian() * 100;
+        single.append(src[i]);
+      }
+      bulk.append(src, 0, src.length);
+      if (single.count() == 0)
+        continue;
+
+      assertEquals(single.count(), bulk.count());
+      assertEquals(single.sum(), bulk.sum(), 1e-9);
+      assertEquals(single.mean(), bulk.mean(), 1e-9);
+      assertEquals(single.variance(), bulk.variance(), 1e-9);
+      assertEquals(single.min(), bulk.min());
+      assertEquals(single.max(), bulk.max());
+    }
+  }
+
+  @Test
+  void testRollingStatsSetLatestMatchesWindowScan() {
+    int window = 10;
+    RollingStatsRingBuffer buffer = new RollingStatsRingBuffer(window);
+    DoubleRingBuffer plain = buffer;
+    assertThrows(IllegalStateException.class, () -> plain.setLatest(1));
+
+    Random random = new Random(20);
+    double[] copy = new double[window];
+    for (int i = 0; i < 5_000; i++) {
+      // replacements both raise and lower the latest value, so it keeps gaining and losing the window extremes
+      if (i % 3 == 0)
+        buffer.append(random.nextInt(100));
+      else
+        plain.setLatest(random.nextInt(100));
+
+      int n = buffer.count();
+      buffer.copyLatestN(copy, n);
+      double sum = 0;
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int j = 0; j < n; j++) {
+        sum += copy[j];
+        min = Math.min(min, copy[j]);
+        max = Math.max(max, copy[j]);
+      }
+      double mean = sum / n;
+      double m2 = 0;
+      for (int j = 0; j < n; j++)
+        m2 += (copy[j] - mean) * (copy[j] - mean);
+
+      assertEquals(sum, buffer.sum(), 1e-9);
+      assertEquals(mean, buffer.mean(), 1e-9);
+      assertEquals(m2 / n, buffer.variance(), 1e-6);
+      assertEquals(min, buffer.min());
+      assertEquals(max, buffer.max());
+    }
+  }
+
+  @Test
+  void testPrimitiveRingBuffersBehaveIdentically() {
+    DoubleRingBuffer doubles = new DoubleRingBuffer(5);
+    LongRingBuffer longs = new LongRingBuffer(5);
+    IntRingBuffer ints = new IntRingBuffer(5);
+    for (int v = 1; v <= 12; v++) {
+      double overwritten = doubles.append(v);
+      assertEquals(overwritten, longs.append(v));
+      assertEquals(overwritten, ints.append(v));
+
+      assertEquals(doubles.count(), longs.count());
+      assertEquals(doubles.count(), ints.count());
+      assertEquals(doubles.getOldest(), longs.getOldest());
+      assertEquals(doubles.getOldest(), ints.getOldest());
+      for (int n = 1; n <= doubles.count(); n++) {
+        assertEquals(doubles.getLatestNthItem(n), longs.getLatestNthItem(n));
+        assertEquals(doubles.getLatestNthItem(n), ints.getLatestNthItem(n));
+      }
+    }
+
+    long[] longCopy = new long[3];
+    int[] intCopy = new int[3];
+    longs.copyLatestN(longCopy, 3);
+    ints.copyLatestN(intCopy, 3);
+    assertArrayEquals(new long[]{10, 11, 12}, longCopy);
+    assertArrayEquals(new int[]{10, 11, 12}, intCopy);
+
+    StringBuilder visited = new StringBuilder();
+    longs.forLatestNItems(2, visited::append);
+    assertEquals("1112", visited.toString());
+    assertThrows(IndexOutOfBoundsException.class, () -> ints.getLatestNthItem(6));
+  }
+
+  @Test
+  void testPrimitiveAppendsDoNotAllocate() {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    LongRingBuffer longs = new LongRingBuffer(1024);
+    IntRingBuffer ints = new IntRingBuffer(1024);
+    // warm up so the measured loop runs compiled code
+    for (int i = 0; i < 100_000; i++) {
+      longs.append(1_000_000L + i);
+      ints.append(i);
+    }
+
+    long before = threads.getCurrentThreadAllocatedBytes();
+    long checksum = 0;
+    for (int i = 0; i < 100_000; i++)
+      checksum += longs.append(1_000_000L + i) + ints.append(i);
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+    assertTrue(checksum > 0);
+    // a boxing append would allocate at least 1.6 MB here
+    assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+  }
+
+  @Test
+  void testBulkAppendMatchesSingleAppends() {
+    Random random = new Random(3);
+    for (int round = 0; round < 200; round++) {
+      int size = 1 + random.nextInt(16);
+      DoubleRingBuffer single = new DoubleRingBuffer(size);
+      DoubleRingBuffer bulk = new DoubleRingBuffer(size);
+      ObjectRingBuffer<Integer> objects = new ObjectRingBuffer<>(size);
+      int next = 0;
+      for (int batch = 0; batch < 10; batch++) {
+        int len = random.nextInt(2 * size + 2);
+        double[] src = new double[len + 2];
+        Integer[] boxed = new Integer[len + 2];
+        for (int i = 0; i < len; i++) {
+          src[i + 1] = ++next;
+          boxed[i + 1] = next;
+          single.append(next);
+        }
+        bulk.append(src, 1, len);
+        objects.append(boxed, 1, len);
+
+        assertEquals(single.count(), bulk.count());
+        if (single.count() == 0)
+          continue;
+        assertEquals(single.getLatest(), bulk.getLatest());
+        assertEquals(single.getOldest(), bulk.getOldest());
+
+        int n = single.count();
+        double[] expected = new double[n];
+        double[] actual = new double[n];
+        single.copyLatestN(expected, n);
+        bulk.copyLatestN(actual, n);
+        assertArrayEquals(expected, actual);
+
+        Integer[] copied = objects.toArrayFromLatestN(n, n, new Integer[0]);
+        for (int i = 0; i < n; i++)
+          assertEquals(expected[i], copied[i].doubleValue());
+
+        double[] visited = new double[n];
+        int[] cursor = {0};
+        bulk.forLatestNItems(n, v -> visited[cursor[0]++] = v);
+        assertArrayEquals(expected, visited);
+      }
+    }
+  }
+
+  @Test
+  void testSingleWriterSnapshotsAreConsistent() throws InterruptedException {
+    SingleWriterDoubleRingBuffer buffer = new SingleWriterDoubleRingBuffer(64);
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<String> failure = new AtomicReference<>();
+    Thread[] readers = new Thread[3];
+    for (int r = 0; r < readers.length; r++) {
+      readers[r] = new Thread(() -> {
+        double[] dest = new double[32];
+        while (!done.get()) {
+          if (buffer.count() < dest.length)
+            continue;
+
+          long seq = buffer.copyLatestN(dest, dest.length);
+          // the writer appends each value's own sequence, so a consistent window is consecutive
+          for (int i = 0; i < dest.length; i++) {
+            if (dest[i] != seq - dest.length + i)
+              failure.compareAndSet(null, "seq " + seq + " slot " + i + " = " + dest[i]);
+          }
+        }
+      });
+      readers[r].start();
+    }
+
+    double[] batch = new double[5];
+    for (long seq = 0; seq < 2_000_000; ) {
+      if (seq % 3 == 0) {
+        for (int i = 0; i < batch.length; i++)
+          batch[i] = seq + i;
+        buffer.append(batch, 0, batch.length);
+        seq += batch.length;
+      }
+      else {
+        buffer.append(seq++);
+      }
+    }
+    done.set(true);
+    for (Thread reader : readers)
+      reader.join();
+
+    assertNull(failure.get());
+    assertEquals(buffer.sequence() - 1, buffer.getLatest());
+    assertEquals(buffer.sequence() - 64, buffer.getLatestNthItem(64));
+  }
+
+  @Test
+  void testEventRingBufferDeliversEveryEventInOrder() throws InterruptedException {
+    for (ProducerMode mode : ProducerMode.values()) {
+      int producers = mode == ProducerMode.SINGLE ? 1 : 3;
+      int perProducer = 200_000;
+      EventRingBuffer<long[]> ring = new EventRingBuffer<>(256, () -> new long[2], mode, WaitStrategy.YIELDING);
+
+      long[] lastSeen = new long[producers];
+      Arrays.fill(lastSeen, -1);
+      AtomicReference<String> failure = new AtomicReference<>();
+      long[] received = {0};
+      BatchEventConsumer<long[]> consumer = ring.newConsumer((event, sequence, endOfBatch) -> {
+        int producer = (int) event[0];
+        if (event[1] != lastSeen[producer] + 1)
+          failure.compareAndSet(null, "producer " + producer + " sent " + event[1] + " after " + lastSeen[producer]);
+        lastSeen[producer] = event[1];
+        received[0]++;
+      });
+      Thread consumerThread = new Thread(consumer);
+      consumerThread.start();
+
+      Thread[] producerThreads = new Thread[producers];
+      for (int p = 0; p < producers; p++) {
+        long id = p;
+        producerThreads[p] = new Thread(() -> {
+          for (long v = 0; v < perProducer; v++) {
+            if (v % 4 == 0) {
+              ring.publishEvent((event, value) -> {
+                event[0] = id;
+                event[1] = value;
+              }, v);
+            }
+            else {
+              long sequence = ring.next();
+              long[] event = ring.get(sequence);
+              event[0] = id;
+              event[1] = v;
+              ring.publish(sequence);
+            }
+          }
+        });
+        producerThreads[p].start();
+      }
+      for (Thread producer : producerThreads)
+        producer.join();
+      while (consumer.processed() < (long) producers * perProducer)
+        Thread.yield();
+      consumer.halt();
+      consumerThread.join();
+
+      assertNull(failure.get(), mode.name());
+      assertEquals((long) producers * perProducer, received[0], mode.name());
+    }
+  }
+
+  @Test
+  void testOffHeapBufferMatchesHeapBuffer() {
+    DoubleRingBuffer heap = new DoubleRingBuffer(7);
+    OffHeapDoubleRingBuffer offHeap = OffHeapDoubleRingBuffer.allocate(7);
+    double[] batch = {10, 11, 12, 13, 14, 15, 16, 17, 18};
+    heap.append(batch, 0, batch.length);
+    offHeap.append(batch, 0, batch.length);
+    for (int v = 0; v < 5; v++)
+      assertEquals(heap.append(v), offHeap.append(v));
+
+    assertEquals(heap.count(), offHeap.count());
+    assertEquals(heap.getOldest(), offHeap.getOldest());
+    double[] expected = new double[7];
+    double[] actual = new double[7];
+    heap.copyLatestN(expected, 7);
+    offHeap.copyLatestN(actual, 7);
+    assertArrayEquals(expected, actual);
+    assertFalse(offHeap.isMapped());
+  }
+
+  @Test
+  void testMappedBufferSurvivesReopen(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("prices.ring");
+    try (OffHeapDoubleRingBuffer buffer = OffHeapDoubleRingBuffer.map(file, 1000)) {
+      for (int v = 0; v < 2500; v++)
+        buffer.append(v);
+      buffer.force();
+    }
+
+    try (OffHeapDoubleRingBuffer reopened = OffHeapDoubleRingBuffer.map(file, 1000)) {
+      assertTrue(reopened.isFull());
+      assertEquals(2499.0, reopened.getLatest());
+      assertEquals(1500.0, reopened.getOldest());
+      reopened.append(2500);
+      assertEquals(1501.0, reopened.getOldest());
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> OffHeapDoubleRingBuffer.map(file, 999));
+  }
+
+  @Test
+  void testWindowKernelsMatchScalarLoops() {
+    assertTrue(WindowKernels.isVectorized(), "tests run with the Vector API module");
+
+    Random random = new Random(11);
+    ArrayKernels scalar = new ScalarArrayKernels();
+    DoubleRingBuffer buffer = new DoubleRingBuffer(257);
+    double[] weights = new double[257];
+    for (int i = 0; i < weights.length; i++)
+      weights[i] = random.nextDouble();
+
+    for (int step = 0; step < 600; step++) {
+      buffer.append(100 + random.nextGaussian());
+      for (int n : new int[]{1, 3, 17, buffer.count()}) {
+        if (n > buffer.count())
+          continue;
+
+        double[] window = new double[n];
+        buffer.copyLatestN(window, n);
+        assertEquals(scalar.sum(window, 0, n), WindowKernels.sumLatestN(buffer, n), 1e-9);
+        assertEquals(scalar.dot(window, 0, weights, 0, n), WindowKernels.dotLatestN(buffer, weights, n), 1e-9);
+        assertEquals(scalar.min(window, 0, n), WindowKernels.minLatestN(buffer, n));
+        assertEquals(scalar.max(window, 0, n), WindowKernels.maxLatestN(buffer, n));
+        assertEquals(scalar.countAbove(window, 0, n, 100), WindowKernels.countLatestNAbove(buffer, n, 100));
+      }
+    }
+  }
+
+  @Test
+  void testTimeSeriesLookupsMatchLinearScan() {
+    int size = 64;
+    long retention = 500;
+    TimeSeriesRingBuffer buffer = new TimeSeriesRingBuffer(size, retention);
+    ArrayDeque<long[]> model = new ArrayDeque<>();
+    Random random = new Random(13);
+    long ts = 1_000;
+    for (int step = 0; step < 5_000; step++) {
+      // bursts of equal timestamps and occasional gaps longer than the retention period
+      ts += random.nextInt(10) < 3 ? 0 : random.nextInt(step % 500 == 0 ? 1_000 : 20);
+      buffer.append(ts, step);
+      model.addLast(new long[]{ts, step});
+      while (model.size() > size || model.peekFirst()[0] < ts - retention)
+        model.removeFirst();
+
+      long[][] points = model.toArray(new long[0][]);
+      assertEquals(points.length, buffer.count());
+      assertEquals(points[0][0], buffer.getOldestTimestamp());
+      assertEquals(step, buffer.getLatestValue());
+
+      long probe = ts - random.nextInt(600);
+      int atOrBefore = -1;
+      int atOrAfter = points.length;
+      for (int i = 0; i < points.length; i++) {
+        if (points[i][0] <= probe)
+          atOrBefore = i;
+        if (points[i][0] >= probe && atOrAfter == points.length)
+          atOrAfter = i;
+      }
+      assertEquals(atOrBefore, buffer.indexAtOrBefore(probe));
+      assertEquals(atOrAfter, buffer.indexAtOrAfter(probe));
+
+      long to = probe + random.nextInt(200);
+      List<Long> expected = new ArrayList<>();
+      for (long[] point : points) {
+        if (point[0] >= probe && point[0] <= to)
+          expected.add(point[1]);
+      }
+      List<Long> visited = new ArrayList<>();
+      assertEquals(expected.size(), buffer.forRange(probe, to, (t, v) -> visited.add((long) v)));
+      assertEquals(expected, visited);
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> buffer.append(buffer.getLatestTimestamp() - 1, 0));
+    assertEquals(buffer.count(), buffer.evictBefore(Long.MAX_VALUE));
+    assertEquals(-1, buffer.indexAtOrBefore(Long.MAX_VALUE));
+  }
+
+  @Test
+  void testBarAggregatorBuildsSessionAlignedBars() {
+    BarAggregator bars = new BarAggregator(16, new int[]{93000, 113000, 130000, 150000}, 1, 5);
+    long day = 20231016_000000000L;
+
+    assertFalse(bars.onTick(day + 92500000L, 9.9, 100));
+    assertTrue(bars.onTick(day + 93000000L, 10.0, 100));
+    assertTrue(bars.onTick(day + 93030500L, 10.4, 50));
+    assertTrue(bars.onTick(day + 93059999L, 9.8, 10));
+    assertTrue(bars.onTick(day + 93100000L, 10.1, 20));
+    assertTrue(bars.onTick(day + 93459000L, 10.2, 30));
+    assertTrue(bars.onTick(day + 93500000L, 10.3, 40));
+    // late tick for a closed bar
+    assertFalse(bars.onTick(day + 93458000L, 10.0, 1));
+    assertFalse(bars.onTick(day + 120000000L, 10.0, 1));
+    // the last bar of the morning is cut at 11:30 and takes the 11:30:00 auction
+    assertTrue(bars.onTick(day + 112900000L, 10.5, 5));
+    assertTrue(bars.onTick(day + 113000000L, 10.6, 5));
+    assertTrue(bars.onTick(day + 150000000L, 11.0, 7));
+
+    BarSeries minutes = bars.series(1);
+    assertEquals(6, minutes.count());
+    long[] times = new long[6];
+    double[] open = new double[6];
+    double[] high = new double[6];
+    double[] low = new double[6];
+    double[] close = new double[6];
+    double[] volume = new double[6];
+    minutes.copyLatest(6, times, open, high, low, close, volume);
+    assertArrayEquals(new long[]{day + 93100000L, day + 93200000L, day + 93500000L, day + 93600000L,
+            day + 113000000L, day + 150000000L}, times);
+    assertArrayEquals(new double[]{10.0, 10.1, 10.2, 10.3, 10.5, 11.0}, open);
+    assertArrayEquals(new double[]{10.4, 10.1, 10.2, 10.3, 10.6, 11.0}, high);
+    assertArrayEquals(new double[]{9.8, 10.1, 10.2, 10.3, 10.5, 11.0}, low);
+    assertArrayEquals(new double[]{9.8, 10.1, 10.2, 10.3, 10.6, 11.0}, close);
+    assertArrayEquals(new double[]{160, 20, 30, 40, 10, 7}, volume);
+
+    BarSeries fives = bars.series(5);
+    assertEquals(4, fives.count());
+    fives.copyLatest(4, times, open, high, low, close, volume);
+    assertArrayEquals(new long[]{day + 93500000L, day + 94000000L, day + 113000000L, day + 150000000L},
+            Arrays.copyOf(times, 4));
+    assertArrayEquals(new double[]{10.0, 10.4, 9.8, 10.2, 210}, new double[]{open[0], high[0], low[0], close[0],
+            volume[0]});
+    assertEquals(10.6, fives.closes().getLatestNthItem(2));
+    assertEquals(fives.closes().getLatest(), fives.closes().getLatestNthItem(1));
+    assertSame(fives.closes(), fives.closes());
+    // the views are read in place by the window kernels
+    assertEquals(21.6, WindowKernels.sumLatestN(fives.closes(), 2), 1e-9);
+    assertEquals(11.0, WindowKernels.maxLatestN(fives.highs(), 3));
+    assertThrows(IllegalArgumentException.class, () -> bars.series(15));
+  }
+}
@@ -0,0 +1,135 @@
+package com.ricequant.rqboot.lang.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitiveCollectionsTest {
+
+  @Test
+  void testLongLongHashMapMatchesHashMapUnderChurn() {
+    LongLongHashMap map = new LongLongHashMap(4, -1);
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 200_000; i++) {
+      // a small key range forces long probe runs and many backward shifts
+      long key = random.nextInt(512) - 8;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.getOrDefault(key, -1L), map.remove(key));
+        expected.remove(key);
+      }
+      else {
+        assertEquals(expected.getOrDefault(key, -1L), map.put(key, i));
+        expected.put(key, (long) i);
+      }
+    }
+
+    assertEquals(expected.size(), map.size());
+    for (long key = -8; key < 504; key++)
+      assertEquals(expected.getOrDefault(key, -1L), map.get(key));
+
+    Map<Long, Long> visited = new HashMap<>();
+    map.forEach(visited::put);
+    assertEquals(expected, visited);
+  }
+
+  @Test
+  void testAddToAndZeroKey() {
+    LongDoubleHashMap map = new LongDoubleHashMap();
+    assertEquals(1.5, map.addTo(0, 1.5));
+    assertEquals(3.0, map.addTo(0, 1.5));
+    assertEquals(2.0, map.addTo(7, 2.0));
+    assertEquals(2, map.size());
+    assertEquals(3.0, map.remove(0));
+    assertFalse(map.containsKey(0));
+    assertEquals(0.0, map.get(0));
+  }
+
+  @Test
+  void testObjectMapsClearAndReuse() {
+    LongObjectHashMap<String> longMap = new LongObjectHashMap<>();
+    IntObjectHashMap<String> intMap = new IntObjectHashMap<>();
+    for (int round = 0; round < 3; round++) {
+      for (int k = 0; k < 1000; k++) {
+        longMap.put(k, "v" + k);
+        assertEquals("i" + k, intMap.computeIfAbsent(k, key -> "i" + key));
+      }
+      assertEquals(1000, longMap.size());
+      assertEquals("v0", longMap.get(0));
+      assertEquals("i999", intMap.get(999));
+      longMap.clear();
+      intMap.clear();
+      assertNull(longMap.get(5));
+      assertTrue(intMap.isEmpty());
+    }
+    assertThrows(NullPointerException.class, () -> longMap.put(1, null));
+  }
+
+  @Test
+  void testKeyMapOverwriteKeepsKeyVisibleToReaders() throws InterruptedException {
+    LongLongKeyMap<String> longs = new LongLongKeyMap<>();
+    IntLongKeyMap<String> ints = new IntLongKeyMap<>();
+    ObjectLongKeyMap<String, String> objects = new ObjectLongKeyMap<>();
+    for (int k = 0; k < 8; k++) {
+      longs.put(k, k, "v");
+      ints.put(k, k, "v");
+      objects.put("k" + k, k, "v");
+    }
+
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicInteger misses = new AtomicInteger();
+    Thread reader = new Thread(() -> {
+      while (!done.get()) {
+        if (longs.get(5, 5) == null || !ints.containsKey(5, 5) || objects.get("k5", 5) == null)
+          misses.incrementAndGet();
+      }
+    });
+    reader.start();
+    for (int i = 0; i < 200_000; i++) {
+      String value = "x" + (i & 7);
+      assertNotNull(longs.put(5, 5, value));
+      assertNotNull(ints.put(5, 5, value));
+      assertNotNull(objects.put("k5", 5, value));
+    }
+    done.set(true);
+    reader.join();
+
+    assertEquals(0, misses.get());
+    assertEquals("x7", longs.get(5, 5));
+    assertEquals("x7", ints.get(5, 5));
+    assertEquals("x7", objects.get("k5", 5));
+    assertEquals(8, longs.size());
+    assertEquals(8, objects.size());
+  }
+
+  @Test
+  void testArrayLists() {
+    LongArrayList longs = new LongArrayList();
+    for (long v = 0; v < 100; v++)
+      longs.add(v);
+    longs.add(0, -1);
+    assertEquals(101, longs.size());
+    assertEquals(-1, longs.removeAt(0));
+    assertEquals(42, longs.indexOf(42));
+    longs.clear();
+    assertTrue(longs.isEmpty());
+    longs.addAll(new long[]{3, 1, 2}, 0, 3);
+    longs.sort();
+    assertArrayEquals(new long[]{1, 2, 3}, longs.toArray());
+
+    DoubleArrayList doubles = new DoubleArrayList(2);
+    doubles.add(1.5);
+    doubles.add(Double.NaN);
+    assertEquals(1, doubles.indexOf(Double.NaN));
+    double[] sum = {0};
+    doubles.forEach(v -> sum[0] += Double.isNaN(v) ? 0 : v);
+    assertEquals(1.5, sum[0]);
+    assertThrows(IndexOutOfBoundsException.class, () -> doubles.get(2));
+  }
+}
@@ -0,0 +1,170 @@
+package com.ricequant.rqboot.lang.container;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContainerTest {
+
+  @Test
+  void testPaddedAtomicLongAccessModes() {
+    PaddedAtomicLong value = new PaddedAtomicLong(5);
+    assertEquals(5, value.get());
+    assertEquals(5, value.getPlain());
+    assertEquals(5, value.getOpaque());
+    assertEquals(5, value.getAcquire());
+
+    value.set(6);
+    assertEquals(6, value.getPlain());
+    value.setPlain(7);
+    assertEquals(7, value.get());
+    value.setOpaque(8);
+    assertEquals(8, value.getAcquire());
+    value.setRelease(9);
+    assertEquals(9, value.getOpaque());
+    assertEquals("9", value.toString());
+
+    assertEquals(0, new PaddedAtomicLong().get());
+  }
+
+  @Test
+  void testPaddedAtomicLongReadModifyWrite() {
+    PaddedAtomicLong value = new PaddedAtomicLong(10);
+    assertFalse(value.compareAndSet(11, 20));
+    assertEquals(10, value.get());
+    assertTrue(value.compareAndSet(10, 20));
+    assertEquals(20, value.get());
+
+    assertEquals(20, value.getAndSet(30));
+    assertEquals(30, value.getAndAdd(5));
+    assertEquals(35, value.get());
+    assertEquals(32, value.addAndGet(-3));
+    assertEquals(33, value.incrementAndGet());
+    assertEquals(Long.MIN_VALUE, new PaddedAtomicLong(Long.MAX_VALUE).incrementAndGet());
+  }
+
+  @Test
+  void testPaddedAtomicLongConcurrentIncrements() throws InterruptedException {
+    PaddedAtomicLong value = new PaddedAtomicLong();
+    runConcurrently(8, 100_000, value::incrementAndGet);
+    assertEquals(800_000, value.get());
+  }
+
+  @Test
+  void testSingleWriterSequenceAdvances() {
+    SingleWriterSequence sequence = new SingleWriterSequence(-1);
+    assertEquals(-1, sequence.get());
+    assertEquals(0, sequence.increment());
+    assertEquals(10, sequence.add(10));
+    assertEquals(10, sequence.get());
+    sequence.set(3);
+    assertEquals(3, sequence.get());
+    assertEquals("3", sequence.toString());
+    assertEquals(0, new SingleWriterSequence().get());
+  }
+
+  @Test
+  void testSingleWriterSequencePublishesPriorWrites() throws InterruptedException {
+    int count = 1_000_000;
+    long[] data = new long[count];
+    SingleWriterSequence published = new SingleWriterSequence();
+    AtomicReference<String> failure = new AtomicReference<>();
+    Thread[] readers = new Thread[3];
+    for (int r = 0; r < readers.length; r++) {
+      readers[r] = new Thread(() -> {
+        long last = 0;
+        while (last < count) {
+          long seq = published.get();
+          if (seq < last)
+            failure.compareAndSet(null, "went back from " + last + " to " + seq);
+          // every slot below the published sequence was written before it was published
+          if (seq > 0 && data[(int) seq - 1] != seq)
+            failure.compareAndSet(null, "slot " + (seq - 1) + " = " + data[(int) seq - 1] + " at seq " + seq);
+          last = seq;
+        }
+      });
+      readers[r].start();
+    }
+
+    for (int i = 0; i < count; i++) {
+      data[i] = i + 1;
+      published.increment();
+    }
+    for (Thread reader : readers)
+      reader.join();
+
+    assertNull(failure.get());
+    assertEquals(count, published.get());
+  }
+
+  @Test
+  void testStripedLongCounter() {
+    StripedLongCounter counter = new StripedLongCounter(5);
+    counter.increment();
+    counter.add(4);
+    assertEquals(10, counter.get());
+    assertEquals("10", counter.toString());
+
+    counter.set(-2);
+    assertEquals(-2, counter.get());
+    assertEquals(-2, counter.getAndReset());
+    assertEquals(0, counter.get());
+    assertEquals(0, new StripedLongCounter().get());
+  }
+
+  @Test
+  void testStripedLongCounterSumsConcurrentIncrements() throws InterruptedException {
+    StripedLongCounter counter = new StripedLongCounter();
+    runConcurrently(16, 100_000, counter::increment);
+    assertEquals(1_600_000, counter.get());
+
+    runConcurrently(16, 1_000, () -> counter.add(3));
+    assertEquals(1_600_000 + 48_000, counter.getAndReset());
+    assertEquals(0, counter.get());
+  }
+
+  @Test
+  void testPaddedLongsAreLongContainers() {
+    ILongContainer[] containers = {new PaddedAtomicLong(1), new SingleWriterSequence(1), new StripedLongCounter(1),
+            new ILongContainer.NaiveContainer(1)};
+    for (ILongContainer container : containers) {
+      assertEquals(1, container.get());
+      container.set(Long.MAX_VALUE);
+      assertEquals(Long.MAX_VALUE, container.get());
+      container.set(Long.MIN_VALUE);
+      assertEquals(Long.MIN_VALUE, container.get());
+    }
+
+    AbstractPaddedLong[] padded = {new PaddedAtomicLong(42), new SingleWriterSequence(42)};
+    for (AbstractPaddedLong value : padded) {
+      // the constructor publishes the initial value through the shared handle
+      assertEquals(42, (long) PaddedValue.VALUE.getVolatile(value));
+      value.set(43);
+      assertEquals(43, value.iValue);
+    }
+  }
+
+  private static void runConcurrently(int threads, int iterations, Runnable action) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread(() -> {
+        try {
+          start.await();
+        }
+        catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < iterations; i++)
+          action.run();
+      });
+      workers[t].start();
+    }
+    start.countDown();
+    for (Thread worker : workers)
+      worker.join();
+  }
+}
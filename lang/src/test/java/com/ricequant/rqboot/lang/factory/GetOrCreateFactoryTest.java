@@ -0,0 +1,515 @@
+package com.ricequant.rqboot.lang.factory;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GetOrCreateFactoryTest {
+
+  @Test
+  void testStripedCreatesOncePerKey() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    GetOrCreateFactory<Integer, String> factory = new GetOrCreateFactory<>(k -> {
+      created.incrementAndGet();
+      return "v" + k;
+    }, ConcurrencyMode.STRIPED);
+
+    int threads = 8;
+    int keys = 1000;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++) {
+      pool.submit(() -> {
+        start.await();
+        for (int k = 0; k < keys; k++)
+          assertEquals("v" + k, factory.getOrCreate(k));
+        return null;
+      });
+    }
+    start.countDown();
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(keys, created.get());
+    assertEquals(keys, factory.size());
+    assertEquals("v42", factory.get(42));
+    assertTrue(factory.contains(7));
+  }
+
+  @Test
+  void testStripedLockBlocksCreators() {
+    GetOrCreateFactory<Integer, String> factory = new GetOrCreateFactory<>(k -> "v" + k, ConcurrencyMode.STRIPED);
+    factory.lock();
+    try {
+      assertEquals("v1", factory.getOrCreate(1));
+    }
+    finally {
+      factory.unlock();
+    }
+    assertEquals(1, factory.size());
+  }
+
+  @Test
+  void testStripedRequiresConcurrentMap() {
+    assertThrows(IllegalArgumentException.class,
+            () -> new ExternalMapGetOrCreateFactory<Integer, String>(k -> "v" + k, new HashMap<>(),
+                    ConcurrencyMode.STRIPED));
+  }
+
+  @Test
+  void testLruKeepsRecentlyReadKeys() {
+    List<Integer> evicted = new ArrayList<>();
+    LimitSizeGetOrCreateFactory<Integer, String> factory =
+            new LimitSizeGetOrCreateFactory<>(k -> "v" + k, 3, EvictionPolicy.LRU, (k, v) -> evicted.add(k));
+    factory.getOrCreate(1);
+    factory.getOrCreate(2);
+    factory.getOrCreate(3);
+    factory.getOrCreate(1);
+    factory.getOrCreate(4);
+
+    assertEquals(List.of(2), evicted);
+    assertTrue(factory.contains(1));
+    assertEquals(3, factory.size());
+  }
+
+  @Test
+  void testTinyLfuResistsScan() {
+    LimitSizeGetOrCreateFactory<Integer, String> factory =
+            new LimitSizeGetOrCreateFactory<>(k -> "v" + k, 100, EvictionPolicy.TINY_LFU);
+    for (int round = 0; round < 5; round++) {
+      for (int k = 0; k < 50; k++)
+        factory.getOrCreate(k);
+    }
+    for (int k = 1000; k < 2000; k++)
+      factory.getOrCreate(k);
+
+    int hotRetained = 0;
+    for (int k = 0; k < 50; k++) {
+      if (factory.contains(k))
+        hotRetained++;
+    }
+    assertTrue(hotRetained >= 45, "hot keys retained: " + hotRetained);
+    assertTrue(factory.size() <= 100);
+  }
+
+  @Test
+  void testRemoveAndPutKeepCapacity() {
+    LimitSizeGetOrCreateFactory<Integer, String> factory = new LimitSizeGetOrCreateFactory<>(k -> "v" + k, 2);
+    factory.getOrCreate(1);
+    factory.getOrCreate(2);
+    factory.remove(1);
+    factory.getOrCreate(3);
+    assertTrue(factory.contains(2));
+    factory.put(4, "x");
+    assertEquals(2, factory.size());
+    assertFalse(factory.contains(2));
+    factory.clearAll();
+    assertEquals(0, factory.size());
+  }
+
+  @Test
+  void testPutDuringCreationIsNotLost() throws Exception {
+    CountDownLatch creating = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    LimitSizeGetOrCreateFactory<Integer, String> factory = new LimitSizeGetOrCreateFactory<>(k -> {
+      creating.countDown();
+      try {
+        release.await();
+      }
+      catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return "created";
+    }, 10, EvictionPolicy.LRU);
+
+    CompletableFuture<String> created = CompletableFuture.supplyAsync(() -> factory.getOrCreate(1));
+    assertTrue(creating.await(5, TimeUnit.SECONDS));
+    CompletableFuture<String> put = CompletableFuture.supplyAsync(() -> factory.put(1, "put"));
+    Thread.sleep(50);
+    assertFalse(put.isDone());
+    release.countDown();
+
+    assertEquals("created", created.get(5, TimeUnit.SECONDS));
+    assertEquals("created", put.get(5, TimeUnit.SECONDS));
+    assertEquals("put", factory.get(1));
+    assertEquals(1, factory.size());
+  }
+
+  @Test
+  void testExpireAfterWrite() {
+    AtomicLong clock = new AtomicLong();
+    List<Integer> expired = new ArrayList<>();
+    AtomicInteger created = new AtomicInteger();
+    ExpiringGetOrCreateFactory<Integer, String> factory = new ExpiringGetOrCreateFactory<>(k -> {
+      created.incrementAndGet();
+      return "v" + k;
+    }, ExpiryMode.AFTER_WRITE, 1, TimeUnit.SECONDS, (k, v) -> expired.add(k), clock::get);
+
+    factory.getOrCreate(1);
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+    assertEquals("v1", factory.get(1));
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+    assertNull(factory.get(1));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    factory.cleanUp();
+    assertEquals(List.of(1), expired);
+    assertFalse(factory.contains(1));
+
+    assertEquals("v1", factory.getOrCreate(1));
+    assertEquals(2, created.get());
+  }
+
+  @Test
+  void testSlowCreationDoesNotShortenExpiry() {
+    AtomicLong clock = new AtomicLong();
+    ExpiringGetOrCreateFactory<Integer, String> factory = new ExpiringGetOrCreateFactory<>(k -> {
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+      return "v" + k;
+    }, ExpiryMode.AFTER_WRITE, 1, TimeUnit.SECONDS, null, clock::get);
+
+    factory.getOrCreate(1);
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+    assertEquals("v1", factory.get(1));
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+    assertNull(factory.get(1));
+  }
+
+  @Test
+  void testExpireAfterAccess() {
+    AtomicLong clock = new AtomicLong();
+    ExpiringGetOrCreateFactory<Integer, String> factory =
+            new ExpiringGetOrCreateFactory<>(k -> "v" + k, ExpiryMode.AFTER_ACCESS, 1, TimeUnit.SECONDS, null,
+                    clock::get);
+
+    factory.getOrCreate(1);
+    factory.getOrCreate(2);
+    for (int i = 0; i < 10; i++) {
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+      assertEquals("v1", factory.get(1));
+    }
+    factory.cleanUp();
+    assertTrue(factory.contains(1));
+    assertFalse(factory.contains(2));
+  }
+
+  @Test
+  void testAsyncCoalescesConcurrentLoads() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    AsyncGetOrCreateFactory<Integer, String> factory = new AsyncGetOrCreateFactory<>(k -> {
+      created.incrementAndGet();
+      try {
+        release.await();
+      }
+      catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return "v" + k;
+    });
+
+    CompletableFuture<String> first = factory.getOrCreateAsync(1);
+    CompletableFuture<String> second = factory.getOrCreateAsync(1);
+    assertSame(first, second);
+    assertFalse(first.isDone());
+
+    release.countDown();
+    assertEquals("v1", first.get(5, TimeUnit.SECONDS));
+    assertEquals("v1", factory.getOrCreate(1));
+    assertEquals(1, created.get());
+    assertEquals(0, factory.loadingCount());
+
+    Map<Integer, String> all = factory.getOrCreateAll(List.of(1, 2, 3)).get(5, TimeUnit.SECONDS);
+    assertEquals(List.of(1, 2, 3), List.copyOf(all.keySet()));
+    assertEquals("v3", all.get(3));
+    assertEquals(3, created.get());
+  }
+
+  @Test
+  void testAsyncLoadYieldsToPutRemoveAndClear() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch releaseCleared = new CountDownLatch(1);
+    AsyncGetOrCreateFactory<Integer, String> factory = new AsyncGetOrCreateFactory<>(k -> {
+      try {
+        (k == 3 ? releaseCleared : release).await();
+      }
+      catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      return "v" + k;
+    });
+    FactoryStats stats = factory.enableStats();
+
+    CompletableFuture<String> put = factory.getOrCreateAsync(1);
+    CompletableFuture<String> removed = factory.getOrCreateAsync(2);
+    // joining a load in flight is neither a hit nor a miss
+    assertSame(put, factory.getOrCreateAsync(1));
+    factory.put(1, "put");
+    factory.remove(2);
+    assertEquals(1, factory.loadingCount());
+
+    release.countDown();
+    assertEquals("put", put.get(5, TimeUnit.SECONDS));
+    assertEquals("v2", removed.get(5, TimeUnit.SECONDS));
+    assertEquals("put", factory.get(1));
+    assertFalse(factory.contains(2));
+
+    CompletableFuture<String> cleared = factory.getOrCreateAsync(3);
+    factory.clear();
+    assertEquals(0, factory.loadingCount());
+    releaseCleared.countDown();
+    assertEquals("v3", cleared.get(5, TimeUnit.SECONDS));
+    assertFalse(factory.contains(3));
+
+    assertEquals(0, stats.hitCount());
+    assertEquals(1, stats.coalescedCount());
+    assertEquals(3, stats.missCount());
+    assertEquals(0.0, stats.hitRatio());
+  }
+
+  @Test
+  void testAsyncFailedLoadIsRetried() {
+    AtomicInteger attempts = new AtomicInteger();
+    AsyncGetOrCreateFactory<Integer, String> factory = new AsyncGetOrCreateFactory<>(k -> {
+      if (attempts.incrementAndGet() == 1)
+        throw new IllegalStateException("boom");
+      return "v" + k;
+    }, Runnable::run);
+
+    assertTrue(factory.getOrCreateAsync(1).isCompletedExceptionally());
+    assertEquals("v1", factory.getOrCreate(1));
+    assertEquals(2, attempts.get());
+  }
+
+  @Test
+  void testLongKeyedFactory() {
+    AtomicInteger created = new AtomicInteger();
+    LongGetOrCreateFactory<String> factory = new LongGetOrCreateFactory<>(k -> {
+      created.incrementAndGet();
+      return "v" + k;
+    });
+    for (long k = 0; k < 1000; k++)
+      assertEquals("v" + k * 31, factory.getOrCreate(k * 31));
+    for (long k = 0; k < 1000; k++)
+      assertEquals("v" + k * 31, factory.getOrCreate(k * 31));
+    assertEquals(1000, created.get());
+    assertEquals(1000, factory.size());
+
+    assertEquals("v0", factory.remove(0));
+    assertNull(factory.get(0));
+    assertEquals("v31", factory.put(31, "x"));
+    assertEquals("x", factory.get(31));
+    assertEquals(999, factory.size());
+
+    factory.clear();
+    assertFalse(factory.contains(31));
+  }
+
+  @Test
+  void testPrimitiveFactoryOverwriteKeepsKeyVisible() throws InterruptedException {
+    LongGetOrCreateFactory<String> longs = new LongGetOrCreateFactory<>(k -> "v" + k);
+    IntGetOrCreateFactory<String> ints = new IntGetOrCreateFactory<>(k -> "v" + k);
+    for (int k = 0; k < 8; k++) {
+      longs.getOrCreate(k);
+      ints.getOrCreate(k);
+    }
+
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicInteger misses = new AtomicInteger();
+    Thread reader = new Thread(() -> {
+      while (!done.get()) {
+        if (longs.get(5) == null || !ints.contains(5))
+          misses.incrementAndGet();
+      }
+    });
+    reader.start();
+    for (int i = 0; i < 200_000; i++) {
+      longs.put(5, "x" + (i & 7));
+      ints.put(5, "x" + (i & 7));
+    }
+    done.set(true);
+    reader.join();
+
+    assertEquals(0, misses.get());
+    assertEquals("x7", longs.get(5));
+    assertEquals("x7", ints.get(5));
+    assertEquals(8, longs.size());
+    assertEquals(8, ints.size());
+  }
+
+  @Test
+  void testStats() {
+    LimitSizeGetOrCreateFactory<Integer, String> factory = new LimitSizeGetOrCreateFactory<>(k -> "v" + k, 2);
+    assertNull(factory.stats());
+    FactoryStats stats = factory.enableStats();
+    factory.getOrCreate(1);
+    factory.getOrCreate(1);
+    factory.getOrCreate(2);
+    factory.getOrCreate(3);
+
+    assertEquals(1, stats.hitCount());
+    assertEquals(3, stats.missCount());
+    assertEquals(0.25, stats.hitRatio(), 1e-9);
+    assertEquals(1, stats.evictionCount());
+    assertTrue(stats.creationNanosQuantile(0.99) > 0);
+
+    stats.reset();
+    assertEquals(0, stats.missCount());
+  }
+
+  @Test
+  void testStatsCountFailedCreations() {
+    GetOrCreateFactory<Integer, String> factory = new GetOrCreateFactory<>(k -> {
+      if (k < 0)
+        throw new IllegalArgumentException("negative key");
+      return "v" + k;
+    }, ConcurrencyMode.STRIPED);
+    FactoryStats stats = factory.enableStats();
+    factory.getOrCreate(1);
+    assertThrows(IllegalArgumentException.class, () -> factory.getOrCreate(-1));
+    assertThrows(IllegalArgumentException.class, () -> factory.getOrCreate(-1));
+
+    assertEquals(3, stats.missCount());
+    assertEquals(2, stats.failureCount());
+    assertFalse(factory.contains(-1));
+
+    AsyncGetOrCreateFactory<Integer, String> async = new AsyncGetOrCreateFactory<>(k -> {
+      throw new IllegalStateException("load failed");
+    }, Runnable::run);
+    FactoryStats asyncStats = async.enableStats();
+    assertTrue(async.getOrCreateAsync(1).isCompletedExceptionally());
+    assertEquals(1, asyncStats.missCount());
+    assertEquals(1, asyncStats.failureCount());
+  }
+
+  @Test
+  void testTraversalDoesNotBlockCreators() {
+    GetOrCreateFactory<Integer, String> factory = new GetOrCreateFactory<>(k -> "v" + k, ConcurrencyMode.STRIPED);
+    for (int k = 0; k < 100; k++)
+      factory.getOrCreate(k);
+
+    AtomicInteger visited = new AtomicInteger();
+    factory.forAllValues(v -> {
+      // a creator on another thread would deadlock here if the traversal held the stripes
+      if (visited.incrementAndGet() == 1)
+        assertEquals("v1000", CompletableFuture.supplyAsync(() -> factory.getOrCreate(1000)).join());
+    }, TraversalMode.WEAKLY_CONSISTENT);
+    assertTrue(visited.get() >= 100);
+
+    Map<Integer, String> snapshot = factory.snapshot();
+    factory.getOrCreate(2000);
+    assertEquals(101, snapshot.size());
+
+    AtomicInteger parallelVisited = new AtomicInteger();
+    factory.forAllValuesParallel(v -> parallelVisited.incrementAndGet());
+    assertEquals(102, parallelVisited.get());
+  }
+
+  @Test
+  void testShedDropsColdestEntries() {
+    ReferenceGetOrCreateFactory<Integer, String> factory =
+            new ReferenceGetOrCreateFactory<>(k -> "v" + k, ValueStrength.STRONG);
+    for (int k = 0; k < 10; k++)
+      factory.getOrCreate(k);
+    factory.get(0);
+    factory.get(1);
+
+    assertEquals(5, factory.shed(0.5));
+    assertEquals(5, factory.size());
+    assertTrue(factory.contains(0));
+    assertTrue(factory.contains(1));
+    assertTrue(factory.contains(9));
+    assertFalse(factory.contains(2));
+
+    for (int k = 0; k < 1000; k++)
+      factory.getOrCreate(k);
+    for (int k = 0; k < 300; k++)
+      factory.get(k);
+    assertEquals(500, factory.shed(0.5));
+    for (int k = 0; k < 1000; k++)
+      assertEquals(k < 300 || k >= 800, factory.contains(k), "key " + k);
+  }
+
+  @Test
+  void testHeapPressureMonitorShedsRegisteredFactories() {
+    ReferenceGetOrCreateFactory<Integer, String> factory =
+            new ReferenceGetOrCreateFactory<>(k -> "v" + k, ValueStrength.SOFT);
+    for (int k = 0; k < 10; k++)
+      factory.getOrCreate(k);
+
+    Map<String, Long> thresholds = new HashMap<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.isCollectionUsageThresholdSupported()) {
+        pool.setCollectionUsageThreshold(1024);
+        thresholds.put(pool.getName(), 1024L);
+      }
+    }
+    HeapPressureMonitor monitor = new HeapPressureMonitor(0.9);
+    try {
+      monitor.register(factory, 0.3);
+      assertEquals(3, monitor.shedAll());
+      assertEquals(7, factory.size());
+      monitor.deregister(factory);
+      assertEquals(0, monitor.shedAll());
+      assertFalse(monitor.monitoredPools().isEmpty());
+    }
+    finally {
+      monitor.close();
+    }
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (thresholds.containsKey(pool.getName())) {
+        assertEquals(thresholds.get(pool.getName()), pool.getCollectionUsageThreshold());
+        pool.setCollectionUsageThreshold(0);
+      }
+    }
+  }
+
+  @Test
+  void testTwoKeyFactories() {
+    AtomicInteger creations = new AtomicInteger();
+    LongLongGetOrCreateFactory<String> longLong = new LongLongGetOrCreateFactory<>((a, b) -> {
+      creations.incrementAndGet();
+      return a + ":" + b;
+    });
+    for (long a = 0; a < 50; a++) {
+      for (long b = 0; b < 50; b++)
+        assertEquals(a + ":" + b, longLong.getOrCreate(a, b));
+    }
+    assertEquals("3:4", longLong.getOrCreate(3, 4));
+    assertEquals(2500, creations.get());
+    assertEquals(2500, longLong.size());
+    assertEquals("3:4", longLong.remove(3, 4));
+    assertFalse(longLong.contains(3, 4));
+    assertTrue(longLong.contains(4, 3));
+
+    IntLongGetOrCreateFactory<String> intLong = new IntLongGetOrCreateFactory<>((a, b) -> a + ":" + b);
+    assertEquals("1:" + Long.MAX_VALUE, intLong.getOrCreate(1, Long.MAX_VALUE));
+    assertNull(intLong.get(1, 0));
+
+    ObjectLongGetOrCreateFactory<String, String> objectLong = new ObjectLongGetOrCreateFactory<>((a, b) -> a + b);
+    for (long b = 0; b < 100; b++)
+      objectLong.getOrCreate("acc" + (b % 3), b);
+    assertEquals("acc17", objectLong.get("acc" + 1, 7));
+    AtomicInteger visited = new AtomicInteger();
+    objectLong.forAllEntries((a, b, value) -> {
+      assertEquals(a + b, value);
+      visited.incrementAndGet();
+    });
+    assertEquals(100, visited.get());
+  }
+}